@@ -9,10 +9,14 @@ import io.pebbletemplates.pebble.node.ForNode;
 import io.pebbletemplates.pebble.node.expression.UnaryMinusExpression;
 import io.pebbletemplates.spring.extension.SpringExtension;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.springframework.aot.hint.MemberCategory;
 import org.springframework.aot.hint.RuntimeHints;
 import org.springframework.aot.hint.RuntimeHintsRegistrar;
 import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -51,7 +55,8 @@ public class PebbleAutoConfiguration extends AbstractPebbleConfiguration {
       Loader<?> pebbleLoader,
       SpringExtension springExtension,
       @Nullable List<Extension> extensions,
-      @Nullable MethodAccessValidator methodAccessValidator) {
+      @Nullable MethodAccessValidator methodAccessValidator,
+      @Nullable @Qualifier("pebblePreloadExecutor") Executor pebblePreloadExecutor) {
     PebbleEngine.Builder builder = new PebbleEngine.Builder();
     builder.loader(pebbleLoader);
     builder.extension(springExtension);
@@ -69,7 +74,27 @@ public class PebbleAutoConfiguration extends AbstractPebbleConfiguration {
     if (methodAccessValidator != null) {
       builder.methodAccessValidator(methodAccessValidator);
     }
-    return builder.build();
+    ExecutorService preloadPool = null;
+    if (properties.isPreload()) {
+      Executor executor = pebblePreloadExecutor;
+      if (executor == null) {
+        // the templates are read while being compiled, which must not block the common pool
+        preloadPool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        executor = preloadPool;
+      }
+      builder.preloadTemplates(executor);
+    }
+    PebbleEngine engine = builder.build();
+    // the application only becomes ready once the preloaded templates are compiled, those which
+    // fail to are logged and reported again when they are rendered
+    try {
+      engine.whenReady().join();
+    } finally {
+      if (preloadPool != null) {
+        preloadPool.shutdown();
+      }
+    }
+    return engine;
   }
 }
 
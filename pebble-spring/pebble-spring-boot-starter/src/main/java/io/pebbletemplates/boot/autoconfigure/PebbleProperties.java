@@ -13,6 +13,7 @@ public class PebbleProperties extends AbstractTemplateViewResolverProperties {
   private Locale defaultLocale;
   private boolean strictVariables;
   private boolean greedyMatchMethod;
+  private boolean preload;
 
   public PebbleProperties() {
     super(DEFAULT_PREFIX, DEFAULT_SUFFIX);
@@ -42,4 +43,12 @@ public class PebbleProperties extends AbstractTemplateViewResolverProperties {
   public void setGreedyMatchMethod(boolean greedyMatchMethod) {
     this.greedyMatchMethod = greedyMatchMethod;
   }
+
+  public boolean isPreload() {
+    return this.preload;
+  }
+
+  public void setPreload(boolean preload) {
+    this.preload = preload;
+  }
 }
@@ -10,6 +10,7 @@ import io.pebbletemplates.pebble.PebbleEngine;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.spring.context.Beans;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
+import io.pebbletemplates.pebble.utils.EncodingWriter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -18,7 +19,9 @@ import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springframework.web.servlet.view.AbstractTemplateView;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Map;
 
@@ -78,7 +81,7 @@ public class PebbleView extends AbstractTemplateView {
       HttpServletResponse response) throws IOException, PebbleException {
     Locale locale = RequestContextUtils.getLocale(request);
 
-    Writer writer = response.getWriter();
+    Writer writer = this.getWriter(response);
     try {
       PebbleTemplate template = this.pebbleEngine.getTemplate(this.templateName);
       template.evaluate(writer, model, locale);
@@ -87,6 +90,20 @@ public class PebbleView extends AbstractTemplateView {
     }
   }
 
+  /**
+   * Writes to the output stream of the response, which lets the static text of the templates be
+   * encoded only once, unless the writer of the response is already in use.
+   */
+  private Writer getWriter(HttpServletResponse response) throws IOException {
+    OutputStream out;
+    try {
+      out = response.getOutputStream();
+    } catch (IllegalStateException e) {
+      return response.getWriter();
+    }
+    return new EncodingWriter(out, Charset.forName(response.getCharacterEncoding()));
+  }
+
   private void logElapsedTime(long startNanoTime, HttpServletRequest request) {
     if (TIMER_LOGGER.isDebugEnabled()) {
       Locale locale = RequestContextUtils.getLocale(request);
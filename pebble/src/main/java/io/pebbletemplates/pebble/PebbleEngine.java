@@ -10,12 +10,14 @@ package io.pebbletemplates.pebble;
 
 
 import io.pebbletemplates.pebble.cache.CacheKey;
+import io.pebbletemplates.pebble.cache.DependencyGraph;
 import io.pebbletemplates.pebble.cache.PebbleCache;
 import io.pebbletemplates.pebble.cache.tag.ConcurrentMapTagCache;
 import io.pebbletemplates.pebble.cache.tag.NoOpTagCache;
 import io.pebbletemplates.pebble.cache.template.ConcurrentMapTemplateCache;
 import io.pebbletemplates.pebble.cache.template.NoOpTemplateCache;
 import io.pebbletemplates.pebble.error.LoaderException;
+import io.pebbletemplates.pebble.lexer.Lexer;
 import io.pebbletemplates.pebble.lexer.LexerImpl;
 import io.pebbletemplates.pebble.lexer.Syntax;
 import io.pebbletemplates.pebble.lexer.TokenStream;
@@ -26,11 +28,16 @@ import io.pebbletemplates.pebble.parser.ParserOptions;
 import io.pebbletemplates.pebble.attributes.methodaccess.BlacklistMethodAccessValidator;
 import io.pebbletemplates.pebble.attributes.methodaccess.MethodAccessValidator;
 import io.pebbletemplates.pebble.extension.escaper.EscapingStrategy;
+import io.pebbletemplates.pebble.extension.writer.BufferPool;
+import io.pebbletemplates.pebble.extension.writer.SharedBufferPool;
+import io.pebbletemplates.pebble.extension.writer.ThreadLocalBufferPool;
 import io.pebbletemplates.pebble.loader.ClasspathLoader;
 import io.pebbletemplates.pebble.loader.DelegatingLoader;
 import io.pebbletemplates.pebble.loader.FileLoader;
 import io.pebbletemplates.pebble.loader.Loader;
 import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.loader.VersionedMemoryLoader;
+import io.pebbletemplates.pebble.loader.WatchingFileLoader;
 import io.pebbletemplates.pebble.extension.*;
 import io.pebbletemplates.pebble.template.EvaluationOptions;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
@@ -38,12 +45,27 @@ import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import io.pebbletemplates.pebble.utils.ContentReader;
 import io.pebbletemplates.pebble.utils.TypeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,6 +102,34 @@ public class PebbleEngine {
 
   private final EvaluationOptions evaluationOptions;
 
+  private final int compilationThreshold;
+
+  private final Executor templateLoadingExecutor;
+
+  /**
+   * The cache keys of the templates each cached template references by a literal name, and which
+   * have to be invalidated along with it.
+   */
+  private final DependencyGraph<Object> templateDependencies = new DependencyGraph<>();
+
+  /**
+   * The size and the modification time of the files of the cached templates, when they were read
+   * by a {@link FileLoader}.
+   */
+  private final Map<Object, FileVersion> fileVersions = new ConcurrentHashMap<>();
+
+  private final AtomicInteger invalidationCount = new AtomicInteger();
+
+  /**
+   * The lexer is shared by all templates, it is thread safe and its operators are set up once.
+   */
+  private final Lexer lexer;
+
+  /**
+   * Completed once the templates to preload have been compiled and warmed up, or failed to.
+   */
+  private volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+
   /**
    * Constructor for the Pebble Engine given an instantiated Loader. This method does only load
    * those userProvidedExtensions listed here.
@@ -97,7 +147,9 @@ public class PebbleEngine {
       ExecutorService executorService,
       ExtensionRegistry extensionRegistry,
       ParserOptions parserOptions,
-      EvaluationOptions evaluationOptions) {
+      EvaluationOptions evaluationOptions,
+      int compilationThreshold,
+      Executor templateLoadingExecutor) {
 
     this.loader = loader;
     this.syntax = syntax;
@@ -110,6 +162,10 @@ public class PebbleEngine {
     this.extensionRegistry = extensionRegistry;
     this.parserOptions = parserOptions;
     this.evaluationOptions = evaluationOptions;
+    this.compilationThreshold = compilationThreshold;
+    this.templateLoadingExecutor = templateLoadingExecutor;
+    this.lexer = new LexerImpl(syntax, extensionRegistry.getUnaryOperators().values(),
+        extensionRegistry.getBinaryOperators().values());
   }
 
   /**
@@ -123,6 +179,44 @@ public class PebbleEngine {
     return this.getTemplate(templateName, this.loader);
   }
 
+  /**
+   * Loads, parses, and compiles a template and the templates it references by a literal name in
+   * its extends, include, import, from and embed tags, recursively. The templates are compiled
+   * concurrently on the template loading executor, or on the common pool if there is none. The
+   * returned future completes once they are all compiled, it only fails if the template itself can
+   * not be compiled.
+   *
+   * @param templateName The name of the template
+   * @return The future compiled version of the template
+   */
+  public CompletableFuture<PebbleTemplate> getTemplateAsync(String templateName) {
+    Executor executor = this.templateLoadingExecutor == null ? ForkJoinPool.commonPool()
+        : this.templateLoadingExecutor;
+    Set<String> visited = ConcurrentHashMap.newKeySet();
+    visited.add(templateName);
+    return this.getTemplateHierarchyAsync(templateName, executor, visited);
+  }
+
+  private CompletableFuture<PebbleTemplate> getTemplateHierarchyAsync(String templateName,
+      Executor executor, Set<String> visited) {
+    return CompletableFuture.supplyAsync(() -> this.getTemplate(templateName), executor)
+        .thenCompose(template -> {
+          List<CompletableFuture<?>> references = new ArrayList<>();
+          for (String name : ((PebbleTemplateImpl) template).getReferencedTemplateNames()) {
+            if (visited.add(name)) {
+              // a missing reference may never be rendered, so it does not fail the template
+              references.add(this.getTemplateHierarchyAsync(name, executor, visited)
+                  .exceptionally(e -> {
+                    this.logger.debug("Could not load template named {}", name, e);
+                    return null;
+                  }));
+            }
+          }
+          return CompletableFuture.allOf(references.toArray(new CompletableFuture<?>[0]))
+              .thenApply(v -> template);
+        });
+  }
+
   /**
    * Loads, parses, and compiles a template using a StringLoader into an instance of PebbleTemplate
    * and returns this instance.
@@ -148,6 +242,9 @@ public class PebbleEngine {
     }
 
     Object cacheKey = loader.createCacheKey(templateName);
+    if (loader == this.loader) {
+      this.validateFiles(cacheKey);
+    }
     return this.templateCache
         .computeIfAbsent(cacheKey, k -> this.getPebbleTemplate(templateName, loader, cacheKey));
   }
@@ -158,10 +255,8 @@ public class PebbleEngine {
     
     try {
       this.logger.trace("Tokenizing template named {}", templateName);
-      LexerImpl lexer = new LexerImpl(this.syntax,
-          this.extensionRegistry.getUnaryOperators().values(),
-          this.extensionRegistry.getBinaryOperators().values());
-      TokenStream tokenStream = lexer.tokenize(templateReader, templateName);
+      TokenStream tokenStream = this.lexer.tokenize(templateReader, templateName,
+          estimateLength((Loader<?>) loader, cacheKey));
       this.logger.trace("TokenStream: {}", tokenStream);
       
       Parser parser = new ParserImpl(this.extensionRegistry.getUnaryOperators(),
@@ -175,6 +270,25 @@ public class PebbleEngine {
         visitorFactory.createVisitor(instance).visit(root);
       }
 
+      if (loader == this.loader && !(this.templateCache instanceof NoOpTemplateCache)) {
+        Set<String> references = instance.getReferencedTemplateNames();
+        List<Object> dependencies = new ArrayList<>(references.size());
+        for (String reference : references) {
+          dependencies.add(this.loader.createCacheKey(reference));
+        }
+        this.templateDependencies.setDependencies(cacheKey, dependencies);
+
+        if (this.loader instanceof FileLoader && templateReader instanceof ContentReader) {
+          ContentReader content = (ContentReader) templateReader;
+          this.fileVersions.put(cacheKey,
+              new FileVersion(templateName, content.getSize(), content.getLastModified()));
+        }
+
+        if (this.templateLoadingExecutor != null) {
+          this.loadReferencedTemplates(instance);
+        }
+      }
+
       return instance;
 
     } finally {
@@ -186,6 +300,164 @@ public class PebbleEngine {
     }
   }
 
+  /**
+   * Removes a cached template from the template cache if its file, or the file of a template it
+   * references by a literal name, changed since it was read, unless the changes of the files are
+   * watched. The referenced templates are checked too as they are rendered without being looked
+   * up, see {@link #getInvalidationCount()}.
+   */
+  private void validateFiles(Object cacheKey) {
+    if (!this.fileVersions.containsKey(cacheKey) || (this.loader instanceof WatchingFileLoader
+        && ((WatchingFileLoader) this.loader).isWatching())) {
+      return;
+    }
+    this.validateFile(cacheKey);
+    for (Object dependency : this.templateDependencies.getDependencies(cacheKey)) {
+      this.validateFile(dependency);
+    }
+  }
+
+  private void validateFile(Object cacheKey) {
+    FileVersion version = this.fileVersions.get(cacheKey);
+    if (version != null && ((FileLoader) this.loader)
+        .isModified(version.templateName, version.size, version.lastModified)) {
+      this.logger.debug("Template {} changed", version.templateName);
+      this.invalidateCacheKey(cacheKey);
+    }
+  }
+
+  private static <T> int estimateLength(Loader<T> loader, Object cacheKey) {
+
+    // This unchecked cast is ok, because the cache key was created by the same loader.
+    @SuppressWarnings("unchecked")
+    T castedKey = (T) cacheKey;
+
+    return loader.estimateLength(castedKey);
+  }
+
+  /**
+   * Removes a template from the template cache, along with the templates which reference it by a
+   * literal name in their extends, include, import, from and embed tags, directly or not. They are
+   * compiled again the next time they are used, while the other templates are kept. Template
+   * caches which can not remove a single template are emptied entirely.
+   *
+   * @param templateName The name of the template
+   */
+  public void invalidateTemplate(String templateName) {
+    this.invalidateCacheKey(this.loader.createCacheKey(templateName));
+  }
+
+  /**
+   * Removes the template cached under a key created by the loader from the template cache, along
+   * with the templates depending on it, like {@link #invalidateTemplate(String)}. This allows to
+   * evict a template whose key changed in the meantime, e.g. a previous version of the template.
+   *
+   * @param cacheKey The cache key of the template
+   */
+  public void invalidateCacheKey(Object cacheKey) {
+    Set<Object> dependents = this.templateDependencies.getDependents(cacheKey);
+    this.templateCache.invalidate(cacheKey);
+    this.templateDependencies.removeDependencies(cacheKey);
+    for (Object dependent : dependents) {
+      this.templateCache.invalidate(dependent);
+      this.templateDependencies.removeDependencies(dependent);
+    }
+    // counted once the templates left the cache, so that they are not linked again
+    this.invalidationCount.incrementAndGet();
+    this.logger.debug("Invalidated template {} and {} dependent templates", cacheKey,
+        dependents.size());
+  }
+
+  /**
+   * Returns the number of times templates were invalidated with {@link
+   * #invalidateTemplate(String)} or {@link #invalidateCacheKey(Object)}. A template keeps the
+   * templates it references by a literal name until this number changes, and then looks them up
+   * again in the template cache. Templates removed from the template cache by other means stay
+   * linked to the templates referencing them.
+   *
+   * @return The number of invalidations
+   */
+  public int getInvalidationCount() {
+    return this.invalidationCount.get();
+  }
+
+  /**
+   * Starts loading the templates referenced by a literal name in a template which has just been
+   * compiled, so that they are in the template cache by the time they are rendered.
+   */
+  private void loadReferencedTemplates(PebbleTemplateImpl template) {
+    for (String name : template.getReferencedTemplateNames()) {
+      this.templateLoadingExecutor.execute(() -> {
+        try {
+          this.getTemplate(name);
+        } catch (RuntimeException e) {
+          // the error is reported if the template is ever rendered
+          this.logger.debug("Could not load template named {}", name, e);
+        }
+      });
+    }
+  }
+
+  /**
+   * Compiles templates in parallel and renders the warm-up models once they are compiled.
+   *
+   * @param templateNames The names of the templates to compile
+   * @param warmUpModels The models to render, by template name
+   * @param executor The executor compiling the templates
+   */
+  private void preload(Collection<String> templateNames,
+      Map<String, List<Map<String, Object>>> warmUpModels, Executor executor) {
+    Set<String> names = new LinkedHashSet<>(templateNames);
+    names.addAll(warmUpModels.keySet());
+    long start = System.nanoTime();
+    AtomicInteger failures = new AtomicInteger();
+
+    List<CompletableFuture<Void>> futures = new ArrayList<>(names.size());
+    for (String name : names) {
+      futures.add(CompletableFuture.runAsync(() -> {
+        PebbleTemplate template = this.getTemplate(name);
+        for (Map<String, Object> model : warmUpModels.getOrDefault(name,
+            Collections.emptyList())) {
+          try {
+            template.evaluate(new StringWriter(), model);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      }, executor).exceptionally(e -> {
+        // the error is reported again if the template is ever rendered
+        failures.incrementAndGet();
+        this.logger.warn("Could not preload template named {}", name, e);
+        return null;
+      }));
+    }
+    this.ready = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+        .thenRun(() -> this.logger.info("Preloaded {} templates in {} ms, {} failed",
+            names.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+            failures.get()));
+  }
+
+  /**
+   * Returns whether the templates to preload, if any, have all been compiled and warmed up, or
+   * failed to.
+   *
+   * @return Whether the engine is ready
+   */
+  public boolean isReady() {
+    return this.ready.isDone();
+  }
+
+  /**
+   * Returns a future which is completed once the templates to preload, if any, have all been
+   * compiled and warmed up. A template which fails to is logged and does not keep the future from
+   * completing normally.
+   *
+   * @return The future completed when the engine is ready
+   */
+  public CompletableFuture<Void> whenReady() {
+    return this.ready;
+  }
+
   /**
    * Returns the loader
    *
@@ -267,6 +539,16 @@ public class PebbleEngine {
     return this.tagCache;
   }
 
+  /**
+   * Returns the number of evaluations after which a template gets compiled, a negative value means
+   * that templates are never compiled.
+   *
+   * @return The compilation threshold
+   */
+  public int getCompilationThreshold() {
+    return this.compilationThreshold;
+  }
+
   /**
    * A builder to configure and construct an instance of a PebbleEngine.
    */
@@ -300,6 +582,18 @@ public class PebbleEngine {
 
     private MethodAccessValidator methodAccessValidator = new BlacklistMethodAccessValidator();
 
+    private BufferPool bufferPool;
+
+    private int compilationThreshold = -1;
+
+    private Executor templateLoadingExecutor;
+
+    private Executor preloadExecutor;
+
+    private Collection<String> preloadTemplateNames;
+
+    private final Map<String, List<Map<String, Object>>> warmUpModels = new LinkedHashMap<>();
+
     private final ExtensionRegistryFactory factory = new ExtensionRegistryFactory();
 
     /**
@@ -509,6 +803,21 @@ public class PebbleEngine {
       return this;
     }
 
+    /**
+     * Sets the pool of the buffers into which the output of macros, blocks, cache tags and
+     * parallel tags is rendered before being used. The default pool keeps a few buffers per
+     * thread, which suits a fixed set of platform threads; a {@link SharedBufferPool} keeps a
+     * bounded number of buffers whatever the number of threads, which suits templates rendered on
+     * virtual threads.
+     *
+     * @param bufferPool The pool of the buffers
+     * @return This builder object
+     */
+    public Builder bufferPool(BufferPool bufferPool) {
+      this.bufferPool = bufferPool;
+      return this;
+    }
+
     /**
      * Enable/disable treat literal decimal as Integer. Default is disabled, treated as Long.
      *
@@ -559,6 +868,91 @@ public class PebbleEngine {
       return this;
     }
 
+    /**
+     * Enables the compilation of hot templates. Once a template has been evaluated as many times as
+     * the given threshold, its node tree is compiled into generated classes which render the
+     * static text and print tags as straight-line code. Anything which can not be compiled keeps
+     * being interpreted. A threshold of 0 compiles a template on its first evaluation. The default
+     * value is -1 which disables compilation.
+     *
+     * @param compilationThreshold The number of evaluations after which a template is compiled
+     * @return This builder object
+     */
+    public Builder compilationThreshold(int compilationThreshold) {
+      this.compilationThreshold = compilationThreshold;
+      return this;
+    }
+
+    /**
+     * Sets an executor on which the templates referenced by a literal name in the extends,
+     * include, import, from and embed tags of a template are loaded and compiled as soon as this
+     * template is compiled, rather than one by one as rendering reaches them. It is also used by
+     * {@link PebbleEngine#getTemplateAsync(String)}. By default referenced templates are loaded
+     * when they are first rendered.
+     *
+     * @param templateLoadingExecutor The executor loading the referenced templates
+     * @return This builder object
+     */
+    public Builder templateLoadingExecutor(Executor templateLoadingExecutor) {
+      this.templateLoadingExecutor = templateLoadingExecutor;
+      return this;
+    }
+
+    /**
+     * Compiles all the templates listed by the loader in parallel as soon as the engine is built,
+     * instead of on their first use. See {@link Loader#listTemplateNames()} and
+     * {@link PebbleEngine#whenReady()}.
+     *
+     * @param executor The executor compiling the templates
+     * @return This builder object
+     */
+    public Builder preloadTemplates(Executor executor) {
+      return this.preloadTemplates(executor, null);
+    }
+
+    /**
+     * Compiles templates in parallel as soon as the engine is built, instead of on their first
+     * use. {@link PebbleEngine#whenReady()} tells when they are all compiled.
+     *
+     * @param executor The executor compiling the templates
+     * @param templateNames The names of the templates to compile, or null for all the templates
+     * listed by the loader
+     * @return This builder object
+     */
+    public Builder preloadTemplates(Executor executor, Collection<String> templateNames) {
+      this.preloadExecutor = executor;
+      this.preloadTemplateNames = templateNames;
+      return this;
+    }
+
+    /**
+     * Renders a template with a sample model once it has been preloaded, so that the caches used
+     * while rendering are filled before the first real request. A template can be given several
+     * models. Has no effect unless templates are preloaded.
+     *
+     * @param templateName The name of the template
+     * @param model The sample model
+     * @return This builder object
+     */
+    public Builder warmUp(String templateName, Map<String, Object> model) {
+      this.warmUpModels.computeIfAbsent(templateName, k -> new ArrayList<>()).add(model);
+      return this;
+    }
+
+    /**
+     * Sets whether or not templates should be optimized once they have been parsed. Expressions
+     * made of literals only are evaluated beforehand, the branches of "if" tags with a literal
+     * condition are kept or removed, and the printed literals are merged with the surrounding text.
+     * The default value is true.
+     *
+     * @param optimizeTemplates Whether or not templates should be optimized
+     * @return This builder object
+     */
+    public Builder optimizeTemplates(boolean optimizeTemplates) {
+      this.factory.optimizeTemplates(optimizeTemplates);
+      return this;
+    }
+
     /**
      * Registers an implementation of {@link ExtensionCustomizer} to change runtime-behaviour of standard
      * functionality.
@@ -616,15 +1010,49 @@ public class PebbleEngine {
       parserOptions.setLiteralDecimalTreatedAsInteger(this.literalDecimalTreatedAsInteger);
       parserOptions.setLiteralNumbersAsBigDecimals(this.literalNumbersAsBigDecimals);
 
+      if (this.bufferPool == null) {
+        this.bufferPool = new ThreadLocalBufferPool();
+      }
+
       EvaluationOptions evaluationOptions = new EvaluationOptions(this.greedyMatchMethod,
-          this.methodAccessValidator);
-      return new PebbleEngine(this.loader, this.syntax, this.strictVariables, this.defaultLocale, this.maxRenderedSize,
+          this.methodAccessValidator, this.bufferPool);
+      PebbleEngine engine = new PebbleEngine(this.loader, this.syntax, this.strictVariables, this.defaultLocale, this.maxRenderedSize,
           this.tagCache, this.templateCache,
-          this.executorService, extensionRegistry, parserOptions, evaluationOptions);
+          this.executorService, extensionRegistry, parserOptions, evaluationOptions,
+          this.compilationThreshold, this.templateLoadingExecutor);
+
+      if (this.loader instanceof WatchingFileLoader && this.cacheActive) {
+        ((WatchingFileLoader) this.loader).addListener(engine::invalidateTemplate);
+      }
+      if (this.loader instanceof VersionedMemoryLoader && this.cacheActive) {
+        ((VersionedMemoryLoader) this.loader).addListener(engine::invalidateCacheKey);
+      }
+
+      if (this.preloadExecutor != null) {
+        engine.preload(this.preloadTemplateNames == null ? this.loader.listTemplateNames()
+            : this.preloadTemplateNames, new LinkedHashMap<>(this.warmUpModels),
+            this.preloadExecutor);
+      }
+      return engine;
     }
   }
 
   public EvaluationOptions getEvaluationOptions() {
     return this.evaluationOptions;
   }
+
+  private static final class FileVersion {
+
+    private final String templateName;
+
+    private final long size;
+
+    private final long lastModified;
+
+    private FileVersion(String templateName, long size, long lastModified) {
+      this.templateName = templateName;
+      this.size = size;
+      this.lastModified = lastModified;
+    }
+  }
 }
@@ -0,0 +1,125 @@
+package io.pebbletemplates.pebble.attributes;
+
+import java.util.List;
+
+/**
+ * An inline cache for a single attribute access of a template, e.g. {@code user.name}. It
+ * remembers the member the {@link DefaultAttributeResolver} resolved for each of the few receiver
+ * classes seen at that place, so that later accesses only need a class check before invoking it.
+ * Once too many receiver classes are seen the cache gives up and every access goes through the
+ * attribute resolvers again.
+ */
+public final class AttributeCallSiteCache {
+
+  /**
+   * Returned by {@link #get} when the attribute must be resolved by the attribute resolvers.
+   */
+  public static final Object MISS = new Object();
+
+  static final int MAX_ENTRIES = 4;
+
+  private static final Entry[] EMPTY = new Entry[0];
+
+  private final String attributeName;
+
+  private volatile Entry[] entries = EMPTY;
+
+  private volatile boolean megamorphic = false;
+
+  /**
+   * Constructor
+   *
+   * @param attributeName The constant name of the attribute, which is called without arguments
+   */
+  public AttributeCallSiteCache(String attributeName) {
+    this.attributeName = attributeName;
+  }
+
+  /**
+   * Gets the attribute of an object by the member cached for its class.
+   *
+   * @param instance The object, not null
+   * @param argumentValues The argument values, null or empty
+   * @param filename The filename of the template
+   * @param lineNumber The line number of the attribute access
+   * @return The value of the attribute or {@link #MISS}
+   */
+  public Object get(Object instance, Object[] argumentValues, String filename, int lineNumber) {
+    Class<?> clazz = instance.getClass();
+    for (Entry entry : this.entries) {
+      if (entry.clazz == clazz) {
+        if (entry.member == null) {
+          return MISS;
+        }
+        return entry.member.invoke(instance, argumentValues, filename, lineNumber);
+      }
+    }
+    return MISS;
+  }
+
+  /**
+   * Records how the attribute of an object has just been resolved by the given resolvers.
+   *
+   * @param instance The object, not null
+   * @param attributeResolvers The attribute resolvers of the engine
+   */
+  public void update(Object instance, List<AttributeResolver> attributeResolvers) {
+    if (this.megamorphic) {
+      return;
+    }
+    // a custom resolver might take precedence over the members, only the default one is known
+    // to always resolve the same attribute of a class the same way
+    if (attributeResolvers.size() != 1
+        || attributeResolvers.get(0).getClass() != DefaultAttributeResolver.class) {
+      this.megamorphic = true;
+      return;
+    }
+
+    Class<?> clazz = instance.getClass();
+    Entry[] current = this.entries;
+    for (Entry entry : current) {
+      if (entry.clazz == clazz) {
+        return;
+      }
+    }
+    if (current.length == MAX_ENTRIES) {
+      this.megamorphic = true;
+      this.entries = EMPTY;
+      return;
+    }
+
+    // a class resolved without a member (e.g. a map) is cached as well, so that it does not
+    // need to be looked up again; concurrent updates may lose an entry which is simply added later
+    MemberAccessor member = ((DefaultAttributeResolver) attributeResolvers.get(0))
+        .getResolvedMember(clazz, this.attributeName);
+    Entry[] updated = new Entry[current.length + 1];
+    System.arraycopy(current, 0, updated, 0, current.length);
+    updated[current.length] = new Entry(clazz, member);
+    this.entries = updated;
+  }
+
+  /**
+   * Returns whether the cache has given up on the attribute access.
+   *
+   * @return Whether too many receiver classes have been seen
+   */
+  public boolean isMegamorphic() {
+    return this.megamorphic;
+  }
+
+  int size() {
+    return this.entries.length;
+  }
+
+  private static final class Entry {
+
+    private final Class<?> clazz;
+
+    private final MemberAccessor member;
+
+    private Entry(Class<?> clazz, MemberAccessor member) {
+      this.clazz = clazz;
+      this.member = member;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package io.pebbletemplates.pebble.attributes;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The public methods and fields of a class, introspected once and indexed so that resolving an
+ * attribute does not scan {@link Class#getMethods()} again. Methods are indexed by their case
+ * insensitive name and their number of parameters, in the order of {@link Class#getMethods()};
+ * fields by their name, the same field as {@link Class#getField(String)} winning.
+ */
+final class ClassMemberTable {
+
+  private static final ClassValue<ClassMemberTable> TABLES = new ClassValue<ClassMemberTable>() {
+    @Override
+    protected ClassMemberTable computeValue(Class<?> type) {
+      return new ClassMemberTable(type);
+    }
+  };
+
+  private final Map<String, List<Method>[]> methods = new HashMap<>();
+
+  private final Map<String, Field> fields = new HashMap<>();
+
+  private ClassMemberTable(Class<?> type) {
+    Method[] publicMethods;
+    Field[] publicFields;
+    try {
+      publicMethods = type.getMethods();
+      publicFields = type.getFields();
+    } catch (SecurityException e) {
+      return;
+    }
+
+    Map<String, List<List<Method>>> methodsByName = new HashMap<>();
+    for (Method method : publicMethods) {
+      List<List<Method>> byArity = methodsByName
+          .computeIfAbsent(foldCase(method.getName()), name -> new ArrayList<>());
+      int arity = method.getParameterCount();
+      while (byArity.size() <= arity) {
+        byArity.add(new ArrayList<>(1));
+      }
+      byArity.get(arity).add(method);
+    }
+    for (Map.Entry<String, List<List<Method>>> entry : methodsByName.entrySet()) {
+      @SuppressWarnings({"unchecked", "rawtypes"})
+      List<Method>[] byArity = entry.getValue().toArray(new List[0]);
+      this.methods.put(entry.getKey(), byArity);
+    }
+
+    for (Field field : publicFields) {
+      this.fields.putIfAbsent(field.getName(), field);
+    }
+  }
+
+  static ClassMemberTable of(Class<?> type) {
+    return TABLES.get(type);
+  }
+
+  /**
+   * Returns the public methods matching a name, ignoring case, and a number of parameters.
+   *
+   * @param name The name of the methods
+   * @param arity The number of parameters
+   * @return The methods, possibly empty
+   */
+  List<Method> getMethods(String name, int arity) {
+    List<Method>[] byArity = this.methods.get(foldCase(name));
+    if (byArity == null || arity >= byArity.length) {
+      return Collections.emptyList();
+    }
+    return byArity[arity];
+  }
+
+  /**
+   * Returns a public field.
+   *
+   * @param name The name of the field
+   * @return The field or null if there is none
+   */
+  Field getField(String name) {
+    return this.fields.get(name);
+  }
+
+  /**
+   * Folds the case of a name so that two names are equal exactly when
+   * {@link String#equalsIgnoreCase} considers them equal.
+   */
+  private static String foldCase(String name) {
+    char[] chars = name.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+}
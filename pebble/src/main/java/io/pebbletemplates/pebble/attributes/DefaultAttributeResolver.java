@@ -1,20 +1,16 @@
 package io.pebbletemplates.pebble.attributes;
 
-import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.MacroAttributeProvider;
-import io.pebbletemplates.pebble.utils.TypeUtils;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Member;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 
 public class DefaultAttributeResolver implements AttributeResolver {
 
+  private static final Class<?>[] NO_ARGUMENT_TYPES = new Class<?>[0];
+
   private final MemberCacheUtils memberCacheUtils = new MemberCacheUtils();
 
   @Override
@@ -29,7 +25,7 @@ public class DefaultAttributeResolver implements AttributeResolver {
       String attributeName = String.valueOf(attributeNameValue);
 
       Class<?>[] argumentTypes = this.getArgumentTypes(argumentValues);
-      Member member = this.memberCacheUtils.getMember(instance, attributeName, argumentTypes);
+      MemberAccessor member = this.memberCacheUtils.getMember(instance, attributeName, argumentTypes);
       if (member == null) {
         if (argumentValues == null) {
 
@@ -66,7 +62,7 @@ public class DefaultAttributeResolver implements AttributeResolver {
       }
 
       if (member != null) {
-        return new ResolvedAttribute(this.invokeMember(instance, member, argumentValues, filename, lineNumber));
+        return new ResolvedAttribute(member.invoke(instance, argumentValues, filename, lineNumber));
       }
     }
     return null;
@@ -87,26 +83,16 @@ public class DefaultAttributeResolver implements AttributeResolver {
       return argumentTypes;
     }
 
-    return new Class<?>[0];
+    return NO_ARGUMENT_TYPES;
   }
 
   /**
-   * Invoke the "Member" that was found via reflection.
+   * Returns the accessor of the member which has already been resolved for an attribute called
+   * without arguments.
+   *
+   * @return The accessor or null if the attribute of the class is not resolved to a member
    */
-  private Object invokeMember(Object object, Member member, Object[] argumentValues, String filename, int lineNumber) {
-    Object result = null;
-    try {
-      if (member instanceof Method) {
-        Method method = (Method) member;
-        argumentValues = TypeUtils.compatibleCast(argumentValues, method.getParameterTypes());
-        result = method.invoke(object, argumentValues);
-      } else if (member instanceof Field) {
-        result = ((Field) member).get(object);
-      }
-
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      throw new PebbleException(e, "Could not call " + member.getName(), lineNumber, filename);
-    }
-    return result;
+  MemberAccessor getResolvedMember(Class<?> clazz, String attributeName) {
+    return this.memberCacheUtils.getMember(clazz, attributeName, NO_ARGUMENT_TYPES);
   }
 }
@@ -0,0 +1,149 @@
+package io.pebbletemplates.pebble.attributes;
+
+import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.utils.TypeUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Gets an attribute through a method or a field resolved by the {@link DefaultAttributeResolver}.
+ * The member is turned once into a method handle taking the object and the arguments, and the
+ * argument conversions are prepared from the parameter types, so that getting the attribute does
+ * not go through {@link Method#invoke} anymore.
+ */
+final class MemberAccessor {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodType GETTER_TYPE = MethodType
+      .methodType(Object.class, Object.class);
+
+  private static final MethodType INVOKER_TYPE = MethodType
+      .methodType(Object.class, Object.class, Object[].class);
+
+  private final Member member;
+
+  /**
+   * The handle of type (Object)Object for fields and methods without parameters, (Object,
+   * Object[])Object otherwise; null if the member can only be used through reflection.
+   */
+  private final MethodHandle handle;
+
+  private final Class<?>[] parameterTypes;
+
+  /**
+   * The boxed parameter types, which the converted arguments must be instances of.
+   */
+  private final Class<?>[] boxedParameterTypes;
+
+  private MemberAccessor(Member member, MethodHandle handle, Class<?>[] parameterTypes) {
+    this.member = member;
+    this.handle = handle;
+    this.parameterTypes = parameterTypes;
+    this.boxedParameterTypes = new Class<?>[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      this.boxedParameterTypes[i] = MethodType.methodType(parameterTypes[i]).wrap().returnType();
+    }
+  }
+
+  /**
+   * Creates the accessor of a method or a field which has already been made accessible.
+   *
+   * @param member The method or the field
+   * @return The accessor
+   */
+  static MemberAccessor of(Member member) {
+    Class<?>[] parameterTypes = member instanceof Method
+        ? ((Method) member).getParameterTypes() : new Class<?>[0];
+    MethodHandle handle;
+    try {
+      if (member instanceof Method) {
+        handle = LOOKUP.unreflect((Method) member).asFixedArity();
+      } else {
+        handle = LOOKUP.unreflectGetter((Field) member);
+      }
+      if (Modifier.isStatic(member.getModifiers())) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      if (parameterTypes.length == 0) {
+        handle = handle.asType(GETTER_TYPE);
+      } else {
+        handle = handle.asType(handle.type().generic())
+            .asSpreader(Object[].class, parameterTypes.length).asType(INVOKER_TYPE);
+      }
+    } catch (IllegalAccessException | RuntimeException e) {
+      // e.g. a member of a class which is not visible from here, reflection still works
+      handle = null;
+    }
+    return new MemberAccessor(member, handle, parameterTypes);
+  }
+
+  Member getMember() {
+    return this.member;
+  }
+
+  /**
+   * Gets the attribute of an object.
+   *
+   * @param object The object
+   * @param argumentValues The arguments, there must be as many as parameters if there are any
+   * @param filename The filename of the template
+   * @param lineNumber The line number of the attribute access
+   * @return The value of the attribute
+   */
+  Object invoke(Object object, Object[] argumentValues, String filename, int lineNumber) {
+    if (this.handle == null) {
+      return this.reflectiveInvoke(object, argumentValues, filename, lineNumber);
+    }
+    try {
+      if (this.parameterTypes.length == 0) {
+        return this.handle.invokeExact(object);
+      }
+      return this.handle.invokeExact(object, this.convert(argumentValues));
+    } catch (IllegalArgumentException e) {
+      throw new PebbleException(e, "Could not call " + this.member.getName(), lineNumber,
+          filename);
+    } catch (Throwable e) {
+      // same as the exception thrown by the reflective call
+      throw new PebbleException(new InvocationTargetException(e),
+          "Could not call " + this.member.getName(), lineNumber, filename);
+    }
+  }
+
+  /**
+   * Converts the arguments to the parameter types, see {@link TypeUtils#compatibleCast}.
+   */
+  private Object[] convert(Object[] argumentValues) {
+    Object[] converted = new Object[argumentValues.length];
+    for (int i = 0; i < converted.length; i++) {
+      Object value = TypeUtils.compatibleCast(argumentValues[i], this.parameterTypes[i]);
+      if (value == null ? this.parameterTypes[i].isPrimitive()
+          : !this.boxedParameterTypes[i].isInstance(value)) {
+        throw new IllegalArgumentException("argument type mismatch");
+      }
+      converted[i] = value;
+    }
+    return converted;
+  }
+
+  private Object reflectiveInvoke(Object object, Object[] argumentValues, String filename,
+      int lineNumber) {
+    try {
+      if (this.member instanceof Method) {
+        return ((Method) this.member)
+            .invoke(object, TypeUtils.compatibleCast(argumentValues, this.parameterTypes));
+      }
+      return ((Field) this.member).get(object);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      throw new PebbleException(e, "Could not call " + this.member.getName(), lineNumber,
+          filename);
+    }
+  }
+}
@@ -7,7 +7,6 @@ import io.pebbletemplates.pebble.template.EvaluationOptions;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -15,27 +14,61 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Resolves and caches the members used to get attributes. The cache is a table per class held by
+ * a {@link ClassValue}, so that it does not prevent classes, and their class loaders, from being
+ * unloaded.
+ */
 class MemberCacheUtils {
-  private final ConcurrentHashMap<MemberCacheKey, Member> memberCache = new ConcurrentHashMap<>(100,
-      0.9f, 1);
 
-  Member getMember(Object instance, String attributeName, Class<?>[] argumentTypes) {
-    return this.memberCache.get(new MemberCacheKey(instance.getClass(), attributeName, argumentTypes));
+  /**
+   * Bounds the number of lookups remembered as not found for a class, since attribute names can
+   * come from the data passed to the templates.
+   */
+  static final int MAX_MISSING_MEMBERS = 1000;
+
+  private final ClassValue<ClassMembers> classMembers = new ClassMembersValue();
+
+  MemberAccessor getMember(Object instance, String attributeName, Class<?>[] argumentTypes) {
+    return this.getMember(instance.getClass(), attributeName, argumentTypes);
   }
 
-  Member cacheMember(Object instance,
+  MemberAccessor getMember(Class<?> clazz, String attributeName, Class<?>[] argumentTypes) {
+    return this.classMembers.get(clazz).members.get(key(attributeName, argumentTypes));
+  }
+
+  MemberAccessor cacheMember(Object instance,
       String attributeName,
       Class<?>[] argumentTypes,
       EvaluationContextImpl context,
       String filename,
       int lineNumber) {
+    ClassMembers classMembers = this.classMembers.get(instance.getClass());
+    Object key = key(attributeName, argumentTypes);
+    if (classMembers.missingMembers.contains(key)) {
+      return null;
+    }
     Member member = this.reflect(instance, attributeName, argumentTypes,
         filename, lineNumber, context.getEvaluationOptions());
-    if (member != null) {
-      this.memberCache
-          .put(new MemberCacheKey(instance.getClass(), attributeName, argumentTypes), member);
+    if (member == null) {
+      if (classMembers.missingMembers.size() < MAX_MISSING_MEMBERS) {
+        classMembers.missingMembers.add(key);
+      }
+      return null;
+    }
+    MemberAccessor accessor = MemberAccessor.of(member);
+    classMembers.members.put(key, accessor);
+    return accessor;
+  }
+
+  /**
+   * Attributes without arguments, by far the most common ones, are simply keyed by their name.
+   */
+  private static Object key(String attributeName, Class<?>[] argumentTypes) {
+    if (argumentTypes.length == 0) {
+      return attributeName;
     }
-    return member;
+    return new MemberCacheKey(attributeName, argumentTypes);
   }
 
   /**
@@ -93,10 +126,7 @@ class MemberCacheUtils {
 
       // public field
       if (result == null) {
-        try {
-          result = type.getField(attributeName);
-        } catch (NoSuchFieldException | SecurityException e) {
-        }
+        result = ClassMemberTable.of(type).getField(attributeName);
       }
       
       if (result != null) {
@@ -113,7 +143,7 @@ class MemberCacheUtils {
    */
   private Method findMethod(Object object, Class<?> clazz, String name, Class<?>[] requiredTypes,
       String filename, int lineNumber, EvaluationOptions evaluationOptions) {
-    List<Method> candidates = this.getCandidates(clazz, name, requiredTypes);
+    List<Method> candidates = ClassMemberTable.of(clazz).getMethods(name, requiredTypes.length);
 
     // perfect match
     Method bestMatch = null;
@@ -211,36 +241,36 @@ class MemberCacheUtils {
     return clazz;
   }
 
-  private List<Method> getCandidates(Class<?> clazz, String name, Object[] requiredTypes) {
-    List<Method> candidates = new ArrayList<>();
-    Method[] methods = clazz.getMethods();
-    for (Method m : methods) {
-      if (!m.getName().equalsIgnoreCase(name)) {
-        continue;
-      }
-
-      Class<?>[] types = m.getParameterTypes();
-      if (types.length != requiredTypes.length) {
-        continue;
-      }
-      candidates.add(m);
-    }
-    return candidates;
-  }
-
   private boolean isCompatibleType(Class<?> type1, Class<?> type2) {
     Class<?> widenType = this.widen(type1);
     return Number.class.isAssignableFrom(widenType) && Number.class.isAssignableFrom(type2);
   }
 
-  private class MemberCacheKey {
+  /**
+   * The members of a class resolved so far, by attribute name or {@link MemberCacheKey}.
+   */
+  private static class ClassMembers {
+
+    private final ConcurrentHashMap<Object, MemberAccessor> members = new ConcurrentHashMap<>(16,
+        0.9f, 1);
+
+    private final Set<Object> missingMembers = ConcurrentHashMap.newKeySet();
+  }
+
+  private static class ClassMembersValue extends ClassValue<ClassMembers> {
+
+    @Override
+    protected ClassMembers computeValue(Class<?> type) {
+      return new ClassMembers();
+    }
+  }
+
+  private static class MemberCacheKey {
 
-    private final Class<?> clazz;
     private final String attributeName;
     private final Class<?>[] methodParameterTypes;
 
-    public MemberCacheKey(Class<?> clazz, String attributeName, Class<?>[] methodParameterTypes) {
-      this.clazz = clazz;
+    public MemberCacheKey(String attributeName, Class<?>[] methodParameterTypes) {
       this.attributeName = attributeName;
       this.methodParameterTypes = methodParameterTypes;
     }
@@ -256,9 +286,6 @@ class MemberCacheUtils {
 
       MemberCacheKey that = (MemberCacheKey) o;
 
-      if (!this.clazz.equals(that.clazz)) {
-        return false;
-      }
       if (!this.attributeName.equals(that.attributeName)) {
         return false;
       }
@@ -268,8 +295,7 @@ class MemberCacheUtils {
 
     @Override
     public int hashCode() {
-      int result = this.clazz.hashCode();
-      result = 31 * result + this.attributeName.hashCode();
+      int result = this.attributeName.hashCode();
       result = 31 * result + Arrays.hashCode(this.methodParameterTypes);
       return result;
     }
@@ -0,0 +1,122 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.cache;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records which cache entries depend on which other entries, e.g. which templates extend, include,
+ * import or embed a template, so that invalidating an entry can also invalidate the entries built
+ * from it. It is safe to use from several threads.
+ *
+ * @param <K> The type of the cache keys
+ */
+public class DependencyGraph<K> {
+
+  /**
+   * The entries each entry depends on.
+   */
+  private final ConcurrentMap<K, Set<K>> dependencies = new ConcurrentHashMap<>();
+
+  /**
+   * The entries depending on each entry, the reverse of the dependencies.
+   */
+  private final ConcurrentMap<K, Set<K>> dependents = new ConcurrentHashMap<>();
+
+  /**
+   * Sets the entries an entry depends on, replacing those set before.
+   *
+   * @param key The key of the entry
+   * @param dependencies The keys of the entries it depends on
+   */
+  public synchronized void setDependencies(K key, Collection<K> dependencies) {
+    this.removeDependencies(key);
+    if (dependencies.isEmpty()) {
+      return;
+    }
+    Set<K> set = ConcurrentHashMap.newKeySet();
+    set.addAll(dependencies);
+    this.dependencies.put(key, set);
+    for (K dependency : set) {
+      this.dependents.computeIfAbsent(dependency, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+  }
+
+  /**
+   * Returns the entries which depend on an entry, directly or not.
+   *
+   * @param key The key of the entry
+   * @return The keys of the dependents
+   */
+  public Set<K> getDependents(K key) {
+    return traverse(this.dependents, key);
+  }
+
+  /**
+   * Returns the entries an entry depends on, directly or not.
+   *
+   * @param key The key of the entry
+   * @return The keys of the dependencies
+   */
+  public Set<K> getDependencies(K key) {
+    return traverse(this.dependencies, key);
+  }
+
+  private static <K> Set<K> traverse(ConcurrentMap<K, Set<K>> edges, K key) {
+    Set<K> result = new LinkedHashSet<>();
+    Deque<K> queue = new ArrayDeque<>();
+    queue.add(key);
+    while (!queue.isEmpty()) {
+      for (K next : edges.getOrDefault(queue.poll(), Collections.emptySet())) {
+        if (!next.equals(key) && result.add(next)) {
+          queue.add(next);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Forgets the dependencies of an entry, which is typically done when it is removed from the
+   * cache. The entries depending on it still do.
+   *
+   * @param key The key of the entry
+   */
+  public synchronized void removeDependencies(K key) {
+    Set<K> previous = this.dependencies.remove(key);
+    if (previous == null) {
+      return;
+    }
+    for (K dependency : previous) {
+      Set<K> dependents = this.dependents.get(dependency);
+      if (dependents != null) {
+        dependents.remove(key);
+        if (dependents.isEmpty()) {
+          this.dependents.remove(dependency);
+        }
+      }
+    }
+  }
+
+  /**
+   * Forgets all the dependencies.
+   */
+  public synchronized void clear() {
+    this.dependencies.clear();
+    this.dependents.clear();
+  }
+
+}
@@ -7,4 +7,14 @@ public interface PebbleCache<K, V> {
   V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction);
 
   void invalidateAll();
+
+  /**
+   * Removes a single entry from the cache. Caches which can not remove a single entry may remove
+   * all of them, which is what this default implementation does.
+   *
+   * @param key The key of the entry to remove
+   */
+  default void invalidate(K key) {
+    this.invalidateAll();
+  }
 }
@@ -29,4 +29,9 @@ public class ConcurrentMapTagCache implements PebbleCache<CacheKey, Object> {
   public void invalidateAll() {
     this.tagCache.clear();
   }
+
+  @Override
+  public void invalidate(CacheKey key) {
+    this.tagCache.remove(key);
+  }
 }
@@ -15,4 +15,7 @@ public class NoOpTagCache implements PebbleCache<CacheKey, Object> {
 
   @Override
   public void invalidateAll() {}
+
+  @Override
+  public void invalidate(CacheKey key) {}
 }
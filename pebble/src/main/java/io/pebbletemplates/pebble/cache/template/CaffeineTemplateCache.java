@@ -31,5 +31,10 @@ public class CaffeineTemplateCache implements PebbleCache<Object, PebbleTemplate
   public void invalidateAll() {
     this.templateCache.invalidateAll();
   }
+
+  @Override
+  public void invalidate(Object key) {
+    this.templateCache.invalidate(key);
+  }
 }
 
@@ -3,6 +3,8 @@ package io.pebbletemplates.pebble.cache.template;
 import io.pebbletemplates.pebble.cache.PebbleCache;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
@@ -11,6 +13,12 @@ public class ConcurrentMapTemplateCache implements PebbleCache<Object, PebbleTem
 
   private final ConcurrentMap<Object, PebbleTemplate> templateCache;
 
+  /**
+   * The templates being compiled. A template is compiled by the first thread asking for it, the
+   * others wait for its result, without holding a lock of the map while the template compiles.
+   */
+  private final ConcurrentMap<Object, Compilation> compiling = new ConcurrentHashMap<>();
+
   public ConcurrentMapTemplateCache() {
     this.templateCache = new ConcurrentHashMap<>(200);
   }
@@ -22,11 +30,61 @@ public class ConcurrentMapTemplateCache implements PebbleCache<Object, PebbleTem
   @Override
   public PebbleTemplate computeIfAbsent(Object key,
       Function<? super Object, ? extends PebbleTemplate> mappingFunction) {
-    return this.templateCache.computeIfAbsent(key, mappingFunction);
+    PebbleTemplate template = this.templateCache.get(key);
+    if (template != null) {
+      return template;
+    }
+
+    Compilation future = new Compilation();
+    Compilation other = this.compiling.putIfAbsent(key, future);
+    if (other != null) {
+      if (other.thread == Thread.currentThread()) {
+        throw new IllegalStateException("Recursive compilation of template " + key);
+      }
+      try {
+        return other.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    try {
+      // another thread may have finished compiling it in the meantime
+      template = this.templateCache.get(key);
+      if (template == null) {
+        template = mappingFunction.apply(key);
+        // a template invalidated while it was being compiled may be outdated, so it is not kept
+        if (template != null && this.compiling.get(key) == future) {
+          this.templateCache.put(key, template);
+        }
+      }
+      future.complete(template);
+      return template;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.compiling.remove(key, future);
+    }
   }
 
   @Override
   public void invalidateAll() {
+    this.compiling.clear();
     this.templateCache.clear();
   }
+
+  @Override
+  public void invalidate(Object key) {
+    this.compiling.remove(key);
+    this.templateCache.remove(key);
+  }
+
+  private static class Compilation extends CompletableFuture<PebbleTemplate> {
+
+    private final Thread thread = Thread.currentThread();
+  }
 }
@@ -0,0 +1,395 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the class files of the {@link CompiledBody} subclasses. The generated render method
+ * never branches, which means that no stack map frames are required by the verifier and that a
+ * tiny class file writer is all we need instead of a full bytecode library.
+ *
+ * <p>
+ * A print tag is either printed at once ({@link #PRINT}), or evaluated step by step: the value of
+ * a variable ({@link #VARIABLE}) or of another expression ({@link #EVALUATE}) is left on the stack,
+ * each attribute ({@link #ATTRIBUTE}) and filter ({@link #FILTER}) of the chain replaces it, and
+ * the result is printed ({@link #PRINT_VALUE}). The steps take their expressions from the
+ * expressions in order.
+ */
+class BodyClassGenerator {
+
+  static final byte TEXT = 0;
+
+  static final byte PRINT = 1;
+
+  static final byte NODE = 2;
+
+  static final byte VARIABLE = 3;
+
+  static final byte EVALUATE = 4;
+
+  static final byte ATTRIBUTE = 5;
+
+  static final byte FILTER = 6;
+
+  static final byte PRINT_VALUE = 7;
+
+  private static final String SUPER_CLASS = "io/pebbletemplates/pebble/compiler/CompiledBody";
+
+  private static final String NODE_CLASS = "io/pebbletemplates/pebble/node/RenderableNode";
+
+  private static final String EXPRESSION_CLASS = "io/pebbletemplates/pebble/node/expression/Expression";
+
+  private static final String PRINT_NODE_CLASS = "io/pebbletemplates/pebble/node/PrintNode";
+
+  private static final String VARIABLE_CLASS = "io/pebbletemplates/pebble/node/expression/ContextVariableExpression";
+
+  private static final String ATTRIBUTE_CLASS = "io/pebbletemplates/pebble/node/expression/GetAttributeExpression";
+
+  private static final String FILTER_CLASS = "io/pebbletemplates/pebble/node/expression/FilterExpression";
+
+  private static final String TEMPLATE_DESCRIPTOR = "Lio/pebbletemplates/pebble/template/PebbleTemplateImpl;";
+
+  private static final String CONTEXT_DESCRIPTOR = "Lio/pebbletemplates/pebble/template/EvaluationContextImpl;";
+
+  private static final String CONSTRUCTOR_DESCRIPTOR = "([L" + NODE_CLASS + ";[[C[L"
+      + EXPRESSION_CLASS + ";)V";
+
+  private static final String EVALUATE_DESCRIPTOR = "(" + TEMPLATE_DESCRIPTOR + CONTEXT_DESCRIPTOR
+      + ")Ljava/lang/Object;";
+
+  private static final String STEP_DESCRIPTOR = "(Ljava/lang/Object;" + TEMPLATE_DESCRIPTOR
+      + CONTEXT_DESCRIPTOR + ")Ljava/lang/Object;";
+
+  private static final String RENDER_DESCRIPTOR = "(" + TEMPLATE_DESCRIPTOR + "Ljava/io/Writer;"
+      + CONTEXT_DESCRIPTOR + ")V";
+
+  private static final int ACC_PUBLIC = 0x0001;
+
+  private static final int ACC_FINAL = 0x0010;
+
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final int ALOAD = 0x19;
+
+  private static final int ALOAD_0 = 0x2a;
+
+  private static final int ASTORE = 0x3a;
+
+  private static final int AALOAD = 0x32;
+
+  private static final int ICONST_0 = 0x03;
+
+  private static final int BIPUSH = 0x10;
+
+  private static final int SIPUSH = 0x11;
+
+  private static final int SWAP = 0x5f;
+
+  private static final int GETFIELD = 0xb4;
+
+  private static final int INVOKEVIRTUAL = 0xb6;
+
+  private static final int INVOKESPECIAL = 0xb7;
+
+  private static final int INVOKESTATIC = 0xb8;
+
+  private static final int INVOKEINTERFACE = 0xb9;
+
+  private static final int CHECKCAST = 0xc0;
+
+  private static final int RETURN = 0xb1;
+
+  private static final int NODES_LOCAL = 4;
+
+  private static final int EXPRESSIONS_LOCAL = 5;
+
+  private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+
+  private final DataOutputStream constantPool = new DataOutputStream(this.constantPoolBytes);
+
+  private final Map<String, Integer> constants = new HashMap<>();
+
+  private int constantCount = 1;
+
+  private BodyClassGenerator() {
+  }
+
+  /**
+   * Generates a class extending {@link CompiledBody} which performs the given operations in order.
+   *
+   * @param className The binary name of the class to generate
+   * @param operations The operations, one of the operation constants
+   * @return The class file
+   */
+  static byte[] generate(String className, byte[] operations) {
+    try {
+      return new BodyClassGenerator().write(className.replace('.', '/'), operations);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private byte[] write(String className, byte[] operations) throws IOException {
+    int thisClass = this.classConstant(className);
+    int superClass = this.classConstant(SUPER_CLASS);
+    int code = this.utf8Constant("Code");
+
+    byte[] constructor = this.constructorCode();
+    byte[] render = this.renderCode(operations);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(52);
+    out.writeShort(this.constantCount);
+    this.constantPoolBytes.writeTo(out);
+    out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    out.writeShort(thisClass);
+    out.writeShort(superClass);
+    out.writeShort(0); // interfaces
+    out.writeShort(0); // fields
+    out.writeShort(2); // methods
+    this.writeMethod(out, "<init>", CONSTRUCTOR_DESCRIPTOR, code, 4, 4, constructor);
+    this.writeMethod(out, "render", RENDER_DESCRIPTOR, code, 4, 6, render);
+    out.writeShort(0); // attributes
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private void writeMethod(DataOutputStream out, String name, String descriptor, int code,
+      int maxStack, int maxLocals, byte[] instructions) throws IOException {
+    out.writeShort(ACC_PUBLIC);
+    out.writeShort(this.utf8Constant(name));
+    out.writeShort(this.utf8Constant(descriptor));
+    out.writeShort(1);
+    out.writeShort(code);
+    out.writeInt(12 + instructions.length);
+    out.writeShort(maxStack);
+    out.writeShort(maxLocals);
+    out.writeInt(instructions.length);
+    out.write(instructions);
+    out.writeShort(0); // exception table
+    out.writeShort(0); // attributes
+  }
+
+  private byte[] constructorCode() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream code = new DataOutputStream(bytes);
+    for (int i = 0; i < 4; i++) {
+      code.writeByte(ALOAD_0 + i);
+    }
+    code.writeByte(INVOKESPECIAL);
+    code.writeShort(this.memberConstant(10, SUPER_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR));
+    code.writeByte(RETURN);
+    return bytes.toByteArray();
+  }
+
+  private byte[] renderCode(byte[] operations) throws IOException {
+    int nodes = this.memberConstant(9, SUPER_CLASS, "nodes", "[L" + NODE_CLASS + ";");
+    int expressions = this.memberConstant(9, SUPER_CLASS, "expressions",
+        "[L" + EXPRESSION_CLASS + ";");
+    int writeText = this.memberConstant(10, SUPER_CLASS, "writeText", "(Ljava/io/Writer;I)V");
+    int render = this.memberConstant(11, NODE_CLASS, "render", RENDER_DESCRIPTOR);
+    int print = this.memberConstant(10, PRINT_NODE_CLASS, "print",
+        "(L" + EXPRESSION_CLASS + ";" + TEMPLATE_DESCRIPTOR + CONTEXT_DESCRIPTOR
+            + "Ljava/io/Writer;)V");
+    int printValue = this.memberConstant(10, PRINT_NODE_CLASS, "print",
+        "(Ljava/lang/Object;Ljava/io/Writer;)V");
+    int variable = this.memberConstant(10, VARIABLE_CLASS, "evaluate", EVALUATE_DESCRIPTOR);
+    int evaluate = this.memberConstant(11, EXPRESSION_CLASS, "evaluate", EVALUATE_DESCRIPTOR);
+    int attribute = this.memberConstant(10, ATTRIBUTE_CLASS, "getAttribute", STEP_DESCRIPTOR);
+    int filter = this.memberConstant(10, FILTER_CLASS, "applyFilter", STEP_DESCRIPTOR);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream code = new DataOutputStream(bytes);
+    this.loadField(code, nodes, NODES_LOCAL);
+    this.loadField(code, expressions, EXPRESSIONS_LOCAL);
+
+    int textIndex = 0;
+    int nodeIndex = 0;
+    int expressionIndex = 0;
+    for (byte operation : operations) {
+      switch (operation) {
+        case TEXT:
+          // this.writeText(writer, i)
+          code.writeByte(ALOAD_0);
+          code.writeByte(ALOAD_0 + 2);
+          this.pushInt(code, textIndex++);
+          code.writeByte(INVOKEVIRTUAL);
+          code.writeShort(writeText);
+          break;
+        case PRINT:
+          // PrintNode.print(expressions[i], self, context, writer)
+          this.loadElement(code, EXPRESSIONS_LOCAL, expressionIndex++);
+          code.writeByte(ALOAD_0 + 1);
+          code.writeByte(ALOAD_0 + 3);
+          code.writeByte(ALOAD_0 + 2);
+          code.writeByte(INVOKESTATIC);
+          code.writeShort(print);
+          break;
+        case NODE:
+          // nodes[i].render(self, writer, context)
+          this.loadElement(code, NODES_LOCAL, nodeIndex++);
+          code.writeByte(ALOAD_0 + 1);
+          code.writeByte(ALOAD_0 + 2);
+          code.writeByte(ALOAD_0 + 3);
+          code.writeByte(INVOKEINTERFACE);
+          code.writeShort(render);
+          code.writeByte(4);
+          code.writeByte(0);
+          break;
+        case VARIABLE:
+          // ((ContextVariableExpression) expressions[i]).evaluate(self, context)
+          this.loadElement(code, EXPRESSIONS_LOCAL, expressionIndex++);
+          code.writeByte(CHECKCAST);
+          code.writeShort(this.classConstant(VARIABLE_CLASS));
+          code.writeByte(ALOAD_0 + 1);
+          code.writeByte(ALOAD_0 + 3);
+          code.writeByte(INVOKEVIRTUAL);
+          code.writeShort(variable);
+          break;
+        case EVALUATE:
+          // expressions[i].evaluate(self, context)
+          this.loadElement(code, EXPRESSIONS_LOCAL, expressionIndex++);
+          code.writeByte(ALOAD_0 + 1);
+          code.writeByte(ALOAD_0 + 3);
+          code.writeByte(INVOKEINTERFACE);
+          code.writeShort(evaluate);
+          code.writeByte(3);
+          code.writeByte(0);
+          break;
+        case ATTRIBUTE:
+          // ((GetAttributeExpression) expressions[i]).getAttribute(value, self, context)
+          this.step(code, expressionIndex++, ATTRIBUTE_CLASS, attribute);
+          break;
+        case FILTER:
+          // ((FilterExpression) expressions[i]).applyFilter(value, self, context)
+          this.step(code, expressionIndex++, FILTER_CLASS, filter);
+          break;
+        case PRINT_VALUE:
+          // PrintNode.print(value, writer)
+          code.writeByte(ALOAD_0 + 2);
+          code.writeByte(INVOKESTATIC);
+          code.writeShort(printValue);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown operation " + operation);
+      }
+    }
+    code.writeByte(RETURN);
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Calls a method of an expression on the value left on the stack, which it replaces.
+   */
+  private void step(DataOutputStream code, int index, String expressionClass, int method)
+      throws IOException {
+    this.loadElement(code, EXPRESSIONS_LOCAL, index);
+    code.writeByte(CHECKCAST);
+    code.writeShort(this.classConstant(expressionClass));
+    code.writeByte(SWAP);
+    code.writeByte(ALOAD_0 + 1);
+    code.writeByte(ALOAD_0 + 3);
+    code.writeByte(INVOKEVIRTUAL);
+    code.writeShort(method);
+  }
+
+  private void loadField(DataOutputStream code, int field, int local) throws IOException {
+    code.writeByte(ALOAD_0);
+    code.writeByte(GETFIELD);
+    code.writeShort(field);
+    code.writeByte(ASTORE);
+    code.writeByte(local);
+  }
+
+  private void loadElement(DataOutputStream code, int local, int index) throws IOException {
+    code.writeByte(ALOAD);
+    code.writeByte(local);
+    this.pushInt(code, index);
+    code.writeByte(AALOAD);
+  }
+
+  private void pushInt(DataOutputStream code, int value) throws IOException {
+    if (value <= 5) {
+      code.writeByte(ICONST_0 + value);
+    } else if (value <= Byte.MAX_VALUE) {
+      code.writeByte(BIPUSH);
+      code.writeByte(value);
+    } else {
+      code.writeByte(SIPUSH);
+      code.writeShort(value);
+    }
+  }
+
+  private int utf8Constant(String value) throws IOException {
+    Integer index = this.constants.get("U" + value);
+    if (index == null) {
+      this.constantPool.writeByte(1);
+      this.constantPool.writeUTF(value);
+      index = this.register("U" + value);
+    }
+    return index;
+  }
+
+  private int classConstant(String internalName) throws IOException {
+    Integer index = this.constants.get("C" + internalName);
+    if (index == null) {
+      int name = this.utf8Constant(internalName);
+      this.constantPool.writeByte(7);
+      this.constantPool.writeShort(name);
+      index = this.register("C" + internalName);
+    }
+    return index;
+  }
+
+  /**
+   * Adds a field (tag 9), method (tag 10) or interface method (tag 11) reference.
+   */
+  private int memberConstant(int tag, String owner, String name, String descriptor)
+      throws IOException {
+    String key = tag + owner + "." + name + descriptor;
+    Integer index = this.constants.get(key);
+    if (index == null) {
+      int ownerClass = this.classConstant(owner);
+      int nameAndType = this.nameAndTypeConstant(name, descriptor);
+      this.constantPool.writeByte(tag);
+      this.constantPool.writeShort(ownerClass);
+      this.constantPool.writeShort(nameAndType);
+      index = this.register(key);
+    }
+    return index;
+  }
+
+  private int nameAndTypeConstant(String name, String descriptor) throws IOException {
+    Integer index = this.constants.get("N" + name + descriptor);
+    if (index == null) {
+      int nameIndex = this.utf8Constant(name);
+      int descriptorIndex = this.utf8Constant(descriptor);
+      this.constantPool.writeByte(12);
+      this.constantPool.writeShort(nameIndex);
+      this.constantPool.writeShort(descriptorIndex);
+      index = this.register("N" + name + descriptor);
+    }
+    return index;
+  }
+
+  private int register(String key) {
+    int index = this.constantCount++;
+    this.constants.put(key, index);
+    return index;
+  }
+}
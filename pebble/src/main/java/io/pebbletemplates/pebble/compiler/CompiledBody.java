@@ -0,0 +1,74 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.compiler;
+
+import io.pebbletemplates.pebble.node.RenderableNode;
+import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.template.EvaluationContextImpl;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+import io.pebbletemplates.pebble.utils.EncodingWriter;
+import io.pebbletemplates.pebble.utils.EncodingWriter.EncodedText;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Base class of the classes generated by the {@link TemplateCompiler}. A generated subclass
+ * renders the children of a single body node as straight-line code: static text is written from
+ * {@link #texts} by {@link #writeText}, print tags evaluate {@link #expressions} directly and every
+ * other node is rendered through {@link #nodes}. Each of these calls is a distinct call site which
+ * lets the JIT profile and inline them individually.
+ *
+ * <p>
+ * Only print tags are compiled further: a printed literal is part of the static text, and a
+ * printed variable followed by attributes and filters becomes one call per step on concrete
+ * classes, see {@link BodyClassGenerator}. Any other expression is evaluated as a whole, and the
+ * other tags are rendered by their nodes as when interpreted.
+ */
+public abstract class CompiledBody {
+
+  protected final RenderableNode[] nodes;
+
+  protected final char[][] texts;
+
+  protected final Expression<?>[] expressions;
+
+  /**
+   * The texts encoded with the charset of the last {@link EncodingWriter} they were rendered to.
+   */
+  private final EncodedText[] encodedTexts;
+
+  protected CompiledBody(RenderableNode[] nodes, char[][] texts, Expression<?>[] expressions) {
+    this.nodes = nodes;
+    this.texts = texts;
+    this.expressions = expressions;
+    this.encodedTexts = new EncodedText[texts.length];
+  }
+
+  /**
+   * Writes one of the static texts, as bytes encoded once if the writer encodes into a stream.
+   *
+   * @param writer The writer
+   * @param index The index of the text
+   * @throws IOException Thrown from the writer
+   */
+  protected final void writeText(Writer writer, int index) throws IOException {
+    if (writer instanceof EncodingWriter) {
+      char[] text = this.texts[index];
+      this.encodedTexts[index] = ((EncodingWriter) writer)
+          .writeText(text, 0, text.length, this.encodedTexts[index]);
+    } else {
+      writer.write(this.texts[index]);
+    }
+  }
+
+  public abstract void render(PebbleTemplateImpl self, Writer writer,
+      EvaluationContextImpl context) throws IOException;
+
+}
@@ -0,0 +1,323 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.compiler;
+
+import io.pebbletemplates.pebble.extension.AbstractNodeVisitor;
+import io.pebbletemplates.pebble.extension.ExtensionRegistry;
+import io.pebbletemplates.pebble.extension.Filter;
+import io.pebbletemplates.pebble.extension.core.DefaultFilter;
+import io.pebbletemplates.pebble.node.ArgumentsNode;
+import io.pebbletemplates.pebble.node.BodyNode;
+import io.pebbletemplates.pebble.node.ExtendsNode;
+import io.pebbletemplates.pebble.node.NamedArgumentNode;
+import io.pebbletemplates.pebble.node.Node;
+import io.pebbletemplates.pebble.node.PositionalArgumentNode;
+import io.pebbletemplates.pebble.node.PrintNode;
+import io.pebbletemplates.pebble.node.RenderableNode;
+import io.pebbletemplates.pebble.node.RootNode;
+import io.pebbletemplates.pebble.node.TextNode;
+import io.pebbletemplates.pebble.node.expression.ContextVariableExpression;
+import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.node.expression.FilterExpression;
+import io.pebbletemplates.pebble.node.expression.FilterInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.GetAttributeExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralBigDecimalExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralBooleanExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralDoubleExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralIntegerExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralLongExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralNullExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralStringExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the body nodes of a template into generated classes, see {@link CompiledBody}. The
+ * compiled form is only an optimization: whenever a body can not be compiled, it simply keeps
+ * being rendered by walking the node tree.
+ *
+ * <p>
+ * Only the print tags are compiled: a printed literal becomes static text, and a printed variable
+ * followed by attributes and filters becomes a sequence of direct calls on those expressions. Any
+ * other tag, such as an "if" or a "for", is still rendered by its node.
+ */
+public final class TemplateCompiler {
+
+  private static final Logger logger = LoggerFactory.getLogger(TemplateCompiler.class);
+
+  /**
+   * Bodies with more children than this are not compiled, which keeps the generated render method
+   * well below the limits of the class file format and of the JIT.
+   */
+  static final int MAX_CHILDREN = 1000;
+
+  private static final String CLASS_NAME_PREFIX = CompiledBody.class.getName() + "$Generated";
+
+  private static final AtomicInteger classCounter = new AtomicInteger();
+
+  /**
+   * The literals, which are printed the same way whatever the writer and can thus become text
+   * when printed. They are also the arguments a compiled filter may take.
+   */
+  private static final Set<Class<?>> LITERALS = new HashSet<>(Arrays.asList(
+      LiteralBigDecimalExpression.class,
+      LiteralBooleanExpression.class,
+      LiteralDoubleExpression.class,
+      LiteralIntegerExpression.class,
+      LiteralLongExpression.class,
+      LiteralNullExpression.class,
+      LiteralStringExpression.class));
+
+  private TemplateCompiler() {
+  }
+
+  /**
+   * Compiles every body node reachable from the given root node. Bodies which are already
+   * compiled are left untouched.
+   *
+   * @param template The template owning the root node
+   * @param root The root node of the template
+   * @param extensionRegistry The extensions of the engine, which tell the filters apart
+   */
+  public static void compile(PebbleTemplateImpl template, RenderableNode root,
+      ExtensionRegistry extensionRegistry) {
+    logger.debug("Compiling template named {}", template.getName());
+    GeneratedClassLoader classLoader = new GeneratedClassLoader(
+        CompiledBody.class.getClassLoader());
+    root.accept(new CompilingNodeVisitor(template, classLoader, extensionRegistry));
+  }
+
+  static CompiledBody compile(List<RenderableNode> children, GeneratedClassLoader classLoader,
+      ExtensionRegistry extensionRegistry) {
+    if (children.isEmpty() || children.size() > MAX_CHILDREN) {
+      return null;
+    }
+
+    List<RenderableNode> nodes = new ArrayList<>();
+    List<char[]> texts = new ArrayList<>();
+    List<Expression<?>> expressions = new ArrayList<>();
+    ByteArrayOutputStream operations = new ByteArrayOutputStream();
+    boolean previousIsText = false;
+
+    for (RenderableNode child : children) {
+      char[] data = null;
+      if (child.getClass() == TextNode.class) {
+        data = ((TextNode) child).getData();
+      } else if (child.getClass() == PrintNode.class
+          && LITERALS.contains(((PrintNode) child).getExpression().getClass())) {
+        data = print(((PrintNode) child).getExpression());
+      }
+      if (data != null) {
+        if (previousIsText) {
+          // adjacent text is written at once
+          char[] previous = texts.get(texts.size() - 1);
+          char[] merged = new char[previous.length + data.length];
+          System.arraycopy(previous, 0, merged, 0, previous.length);
+          System.arraycopy(data, 0, merged, previous.length, data.length);
+          texts.set(texts.size() - 1, merged);
+        } else {
+          texts.add(data);
+          operations.write(BodyClassGenerator.TEXT);
+        }
+        previousIsText = true;
+        continue;
+      }
+      if (child.getClass() == PrintNode.class) {
+        compilePrint(((PrintNode) child).getExpression(), extensionRegistry, expressions,
+            operations);
+      } else {
+        nodes.add(child);
+        operations.write(BodyClassGenerator.NODE);
+      }
+      previousIsText = false;
+    }
+
+    String className = CLASS_NAME_PREFIX + classCounter.getAndIncrement();
+    try {
+      Class<?> compiledClass = classLoader
+          .define(className, BodyClassGenerator.generate(className, operations.toByteArray()));
+      return (CompiledBody) compiledClass
+          .getConstructor(RenderableNode[].class, char[][].class, Expression[].class)
+          .newInstance(nodes.toArray(new RenderableNode[0]), texts.toArray(new char[0][]),
+              expressions.toArray(new Expression<?>[0]));
+    } catch (ReflectiveOperationException | LinkageError | SecurityException e) {
+      logger.debug("Could not compile body, it will be interpreted instead", e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns the text a print tag prints for a literal.
+   */
+  private static char[] print(Expression<?> literal) {
+    StringWriter writer = new StringWriter();
+    try {
+      PrintNode.print(literal.evaluate(null, null), writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString().toCharArray();
+  }
+
+  /**
+   * Adds the operations of a print tag. A chain of attributes and filters is evaluated step by
+   * step from the expression it starts with, the other expressions are evaluated at once.
+   */
+  private static void compilePrint(Expression<?> expression, ExtensionRegistry extensionRegistry,
+      List<Expression<?>> expressions, ByteArrayOutputStream operations) {
+    List<Expression<?>> steps = new ArrayList<>();
+    Expression<?> start = expression;
+    while (true) {
+      if (start.getClass() == GetAttributeExpression.class) {
+        steps.add(start);
+        start = ((GetAttributeExpression) start).getNode();
+      } else if (start.getClass() == FilterExpression.class
+          && isCompilable((FilterExpression) start, extensionRegistry)) {
+        steps.add(start);
+        start = ((FilterExpression) start).getLeftExpression();
+      } else {
+        break;
+      }
+    }
+
+    expressions.add(start);
+    if (start.getClass() == ContextVariableExpression.class) {
+      operations.write(BodyClassGenerator.VARIABLE);
+    } else if (steps.isEmpty()) {
+      // the expression may print primitives itself
+      operations.write(BodyClassGenerator.PRINT);
+      return;
+    } else {
+      operations.write(BodyClassGenerator.EVALUATE);
+    }
+    for (int i = steps.size() - 1; i >= 0; i--) {
+      Expression<?> step = steps.get(i);
+      expressions.add(step);
+      operations.write(step instanceof GetAttributeExpression ? BodyClassGenerator.ATTRIBUTE
+          : BodyClassGenerator.FILTER);
+    }
+    operations.write(BodyClassGenerator.PRINT_VALUE);
+  }
+
+  /**
+   * Whether the input of a filter can be evaluated before the filter is applied. This is not the
+   * case of the default filter, which ignores a missing attribute in its input, nor of a filter
+   * whose arguments are not all literals since they are evaluated before the input.
+   */
+  private static boolean isCompilable(FilterExpression expression,
+      ExtensionRegistry extensionRegistry) {
+    if (extensionRegistry == null) {
+      return false;
+    }
+    Filter filter = extensionRegistry.getFilter(expression.getFilterName());
+    if (filter == null || filter instanceof DefaultFilter) {
+      return false;
+    }
+    ArgumentsNode args = ((FilterInvocationExpression) expression.getRightExpression()).getArgs();
+    if (args.getPositionalArgs() != null) {
+      for (PositionalArgumentNode arg : args.getPositionalArgs()) {
+        if (!LITERALS.contains(arg.getValueExpression().getClass())) {
+          return false;
+        }
+      }
+    }
+    if (args.getNamedArgs() != null) {
+      for (NamedArgumentNode arg : args.getNamedArgs()) {
+        if (!LITERALS.contains(arg.getValueExpression().getClass())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static class CompilingNodeVisitor extends AbstractNodeVisitor {
+
+    private final GeneratedClassLoader classLoader;
+
+    private final ExtensionRegistry extensionRegistry;
+
+    /**
+     * Whether the template contains a node which might give it a parent while it is being
+     * rendered, i.e. an "extends" tag or an unknown node from a user provided extension.
+     */
+    private boolean mayHaveParent = false;
+
+    CompilingNodeVisitor(PebbleTemplateImpl template, GeneratedClassLoader classLoader,
+        ExtensionRegistry extensionRegistry) {
+      super(template);
+      this.classLoader = classLoader;
+      this.extensionRegistry = extensionRegistry;
+    }
+
+    @Override
+    public void visit(Node node) {
+      if (node instanceof RenderableNode
+          && node.getClass().getPackage() != RootNode.class.getPackage()) {
+        this.mayHaveParent = true;
+      }
+    }
+
+    @Override
+    public void visit(ExtendsNode node) {
+      this.mayHaveParent = true;
+      super.visit(node);
+    }
+
+    @Override
+    public void visit(RootNode node) {
+      BodyNode body = node.getBody();
+      super.visit(body);
+      // once a parent is set, the root body must stop rendering anything but the inheritance
+      // safe nodes which only the interpreter knows how to do
+      if (!this.mayHaveParent && body.getCompiledBody() == null) {
+        body.setCompiledBody(
+            compile(body.getChildren(), this.classLoader, this.extensionRegistry));
+      }
+    }
+
+    @Override
+    public void visit(BodyNode node) {
+      super.visit(node);
+      // the root body of an embedded template is only compiled along with its own template
+      if (node.getCompiledBody() == null && !node.isOnlyRenderInheritanceSafeNodes()) {
+        node.setCompiledBody(
+            compile(node.getChildren(), this.classLoader, this.extensionRegistry));
+      }
+    }
+  }
+
+  /**
+   * Every compiled template gets its own class loader so that the generated classes can be
+   * unloaded together with the template.
+   */
+  static class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String name, byte[] classFile) {
+      return this.defineClass(name, classFile, 0, classFile.length);
+    }
+  }
+}
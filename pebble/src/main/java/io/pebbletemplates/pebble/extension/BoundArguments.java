@@ -0,0 +1,310 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The arguments of a filter, function, test or macro invocation, stored in an array by the
+ * position of their name in {@link NamedArguments#getArgumentNames()}. It is a regular map of the
+ * arguments which have been provided, but also gives access to them by index without any lookup.
+ * Entries with names that are not argument names may be added, they are kept in a separate map.
+ */
+public final class BoundArguments extends AbstractMap<String, Object> {
+
+  private static final Object UNSET = new Object();
+
+  private final List<String> argumentNames;
+
+  /**
+   * The values, only allocated once an argument is provided.
+   */
+  private Object[] values;
+
+  private int size = 0;
+
+  private Map<String, Object> others;
+
+  private Set<Entry<String, Object>> entrySet;
+
+  /**
+   * Constructor
+   *
+   * @param argumentNames The names of the arguments, which is not copied
+   */
+  public BoundArguments(List<String> argumentNames) {
+    this.argumentNames = argumentNames;
+  }
+
+  /**
+   * Returns the names of the arguments.
+   *
+   * @return The names of the arguments
+   */
+  public List<String> getArgumentNames() {
+    return this.argumentNames;
+  }
+
+  /**
+   * Returns the value of an argument.
+   *
+   * @param index The index of the name of the argument
+   * @return The value or null if the argument has not been provided
+   */
+  public Object get(int index) {
+    if (this.values == null) {
+      return null;
+    }
+    Object value = this.values[index];
+    return value == UNSET ? null : value;
+  }
+
+  /**
+   * Returns whether an argument has been provided.
+   *
+   * @param index The index of the name of the argument
+   * @return Whether the argument has been provided
+   */
+  public boolean isSet(int index) {
+    return this.values != null && this.values[index] != UNSET;
+  }
+
+  /**
+   * Sets the value of an argument.
+   *
+   * @param index The index of the name of the argument
+   * @param value The value of the argument
+   * @return The previous value or null
+   */
+  public Object set(int index, Object value) {
+    if (this.values == null) {
+      this.values = new Object[this.argumentNames.size()];
+      Arrays.fill(this.values, UNSET);
+    }
+    Object previous = this.values[index];
+    this.values[index] = value;
+    if (previous == UNSET) {
+      this.size++;
+      return null;
+    }
+    return previous;
+  }
+
+  private int indexOf(Object key) {
+    for (int i = 0; i < this.argumentNames.size(); i++) {
+      if (this.argumentNames.get(i) == key) {
+        return i;
+      }
+    }
+    for (int i = 0; i < this.argumentNames.size(); i++) {
+      if (this.argumentNames.get(i).equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int index = this.indexOf(key);
+    if (index >= 0) {
+      return this.get(index);
+    }
+    return this.others == null ? null : this.others.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    int index = this.indexOf(key);
+    if (index >= 0) {
+      return this.isSet(index);
+    }
+    return this.others != null && this.others.containsKey(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    int index = this.indexOf(key);
+    if (index >= 0) {
+      return this.set(index, value);
+    }
+    if (this.others == null) {
+      this.others = new HashMap<>();
+    }
+    return this.others.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int index = this.indexOf(key);
+    if (index >= 0) {
+      return this.unset(index);
+    }
+    return this.others == null ? null : this.others.remove(key);
+  }
+
+  private Object unset(int index) {
+    if (!this.isSet(index)) {
+      return null;
+    }
+    Object previous = this.values[index];
+    this.values[index] = UNSET;
+    this.size--;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    if (this.values != null) {
+      Arrays.fill(this.values, UNSET);
+    }
+    this.size = 0;
+    this.others = null;
+  }
+
+  @Override
+  public int size() {
+    return this.size + (this.others == null ? 0 : this.others.size());
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    if (this.entrySet == null) {
+      this.entrySet = new EntrySet();
+    }
+    return this.entrySet;
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return BoundArguments.this.size();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    private int next = -1;
+
+    private int current = -1;
+
+    private Iterator<Entry<String, Object>> others;
+
+    EntryIterator() {
+      this.advance();
+    }
+
+    private void advance() {
+      do {
+        this.next++;
+      } while (this.next < BoundArguments.this.argumentNames.size()
+          && !BoundArguments.this.isSet(this.next));
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.next < BoundArguments.this.argumentNames.size()) {
+        return true;
+      }
+      if (this.others == null) {
+        if (BoundArguments.this.others == null) {
+          return false;
+        }
+        this.others = BoundArguments.this.others.entrySet().iterator();
+      }
+      return this.others.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (this.others != null) {
+        this.current = -1;
+        return this.others.next();
+      }
+      int index = this.current = this.next;
+      this.advance();
+      return new ArgumentEntry(index);
+    }
+
+    @Override
+    public void remove() {
+      if (this.others != null && this.current < 0) {
+        this.others.remove();
+      } else if (this.current >= 0) {
+        BoundArguments.this.unset(this.current);
+        this.current = -1;
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+  }
+
+  private class ArgumentEntry implements Entry<String, Object> {
+
+    private final int index;
+
+    ArgumentEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return BoundArguments.this.argumentNames.get(this.index);
+    }
+
+    @Override
+    public Object getValue() {
+      return BoundArguments.this.get(this.index);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      return BoundArguments.this.set(this.index, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> that = (Entry<?, ?>) o;
+      Object value = this.getValue();
+      return this.getKey().equals(that.getKey())
+          && (value == null ? that.getValue() == null : value.equals(that.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      Object value = this.getValue();
+      return this.getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return this.getKey() + "=" + this.getValue();
+    }
+  }
+}
@@ -6,6 +6,7 @@ import io.pebbletemplates.pebble.PebbleEngine;
 import io.pebbletemplates.pebble.extension.core.CoreExtension;
 import io.pebbletemplates.pebble.extension.escaper.EscaperExtension;
 import io.pebbletemplates.pebble.extension.escaper.EscapingStrategy;
+import io.pebbletemplates.pebble.extension.optimizer.OptimizerExtension;
 
 import java.util.*;
 import java.util.function.Function;
@@ -24,6 +25,8 @@ public class ExtensionRegistryFactory {
 
   private boolean allowOverrideCoreOperators = false;
 
+  private boolean optimizeTemplates = true;
+
   private Function<Extension, Extension> customizer = Function.identity();
 
   public ExtensionRegistry buildExtensionRegistry() {
@@ -43,6 +46,10 @@ public class ExtensionRegistryFactory {
 
     extensionRegistry.addExtension(customizer.apply(new AttributeResolverExtension()));
 
+    if (this.optimizeTemplates) {
+      extensionRegistry.addExtension(customizer.apply(new OptimizerExtension(extensionRegistry)));
+    }
+
     return extensionRegistry;
   }
 
@@ -62,6 +69,10 @@ public class ExtensionRegistryFactory {
     this.allowOverrideCoreOperators = allowOverrideCoreOperators;
   }
 
+  public void optimizeTemplates(boolean optimizeTemplates) {
+    this.optimizeTemplates = optimizeTemplates;
+  }
+
   public void defaultEscapingStrategy(String strategy) {
     this.escaperExtension.setDefaultStrategy(strategy);
   }
@@ -19,4 +19,14 @@ public interface Filter extends NamedArguments {
   Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
                EvaluationContext context, int
       lineNumber) throws PebbleException;
+
+  /**
+   * Applies the filter to arguments bound by their position in {@link #getArgumentNames()}. A
+   * filter invoked very often may override this method to read its arguments by index, the
+   * default implementation uses them as a map.
+   */
+  default Object apply(Object input, BoundArguments args, PebbleTemplate self,
+      EvaluationContext context, int lineNumber) throws PebbleException {
+    return this.apply(input, (Map<String, Object>) args, self, context, lineNumber);
+  }
 }
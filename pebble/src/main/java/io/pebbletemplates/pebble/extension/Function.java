@@ -18,4 +18,14 @@ public interface Function extends NamedArguments {
   Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context,
                  int lineNumber);
 
+  /**
+   * Executes the function with arguments bound by their position in {@link #getArgumentNames()}.
+   * A function invoked very often may override this method to read its arguments by index, the
+   * default implementation uses them as a map.
+   */
+  default Object execute(BoundArguments args, PebbleTemplate self, EvaluationContext context,
+      int lineNumber) {
+    return this.execute((Map<String, Object>) args, self, context, lineNumber);
+  }
+
 }
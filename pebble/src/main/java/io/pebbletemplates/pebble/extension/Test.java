@@ -19,4 +19,14 @@ public interface Test extends NamedArguments {
   boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
                 EvaluationContext context, int
       lineNumber) throws PebbleException;
+
+  /**
+   * Applies the test to arguments bound by their position in {@link #getArgumentNames()}. A test
+   * invoked very often may override this method to read its arguments by index, the default
+   * implementation uses them as a map.
+   */
+  default boolean apply(Object input, BoundArguments args, PebbleTemplate self,
+      EvaluationContext context, int lineNumber) throws PebbleException {
+    return this.apply(input, (Map<String, Object>) args, self, context, lineNumber);
+  }
 }
@@ -190,6 +190,8 @@ public class CoreExtension extends AbstractExtension {
   public List<NodeVisitorFactory> getNodeVisitors() {
     List<NodeVisitorFactory> visitors = new ArrayList<>();
     visitors.add(new MacroAndBlockRegistrantNodeVisitorFactory());
+    visitors.add(new LocalVariableSlotNodeVisitorFactory());
+    visitors.add(new TemplateLinkingNodeVisitorFactory());
     return visitors;
   }
 }
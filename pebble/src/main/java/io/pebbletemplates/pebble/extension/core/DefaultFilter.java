@@ -15,12 +15,14 @@ import io.pebbletemplates.pebble.template.EvaluationContext;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class DefaultFilter implements Filter {
 
+  private static final Test EMPTY_TEST = new EmptyTest();
+
   private final List<String> argumentNames = new ArrayList<>();
 
   public DefaultFilter() {
@@ -38,8 +40,7 @@ public class DefaultFilter implements Filter {
 
     Object defaultObj = args.get("default");
 
-    Test emptyTest = new EmptyTest();
-    if (emptyTest.apply(input, new HashMap<>(), self, context, lineNumber)) {
+    if (EMPTY_TEST.apply(input, Collections.emptyMap(), self, context, lineNumber)) {
       return defaultObj;
     }
     return input;
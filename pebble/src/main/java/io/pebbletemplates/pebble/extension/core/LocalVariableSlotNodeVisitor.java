@@ -0,0 +1,208 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.core;
+
+import io.pebbletemplates.pebble.extension.AbstractNodeVisitor;
+import io.pebbletemplates.pebble.node.ArgumentsNode;
+import io.pebbletemplates.pebble.node.ForNode;
+import io.pebbletemplates.pebble.node.MacroNode;
+import io.pebbletemplates.pebble.node.Node;
+import io.pebbletemplates.pebble.node.SetNode;
+import io.pebbletemplates.pebble.node.TestInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.ArrayExpression;
+import io.pebbletemplates.pebble.node.expression.BinaryExpression;
+import io.pebbletemplates.pebble.node.expression.BlockFunctionExpression;
+import io.pebbletemplates.pebble.node.expression.ContextVariableExpression;
+import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.node.expression.FilterInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.FunctionOrMacroInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.GetAttributeExpression;
+import io.pebbletemplates.pebble.node.expression.MapExpression;
+import io.pebbletemplates.pebble.node.expression.RenderableNodeExpression;
+import io.pebbletemplates.pebble.node.expression.TernaryExpression;
+import io.pebbletemplates.pebble.node.expression.UnaryExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+import io.pebbletemplates.pebble.template.SlotLayout;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns the loop variables, the variables set inside of a loop and the macro arguments to the
+ * slots of the scopes created by the "for" tag and by macro invocations. Every variable expression
+ * referring to one of them is then resolved to its slot, so that it can be read without hashing its
+ * name at runtime.
+ */
+public class LocalVariableSlotNodeVisitor extends AbstractNodeVisitor {
+
+  /**
+   * The scopes which are lexically visible, the innermost first.
+   */
+  private Deque<Frame> frames = new ArrayDeque<>();
+
+  public LocalVariableSlotNodeVisitor(PebbleTemplateImpl template) {
+    super(template);
+  }
+
+  @Override
+  public void visit(ForNode node) {
+    node.getIterable().accept(this);
+
+    List<String> names = new ArrayList<>();
+    names.add(node.getIterationVariable());
+    names.add("loop");
+    node.getBody().accept(new SetVariableCollector(names));
+    SlotLayout layout = new SlotLayout(names);
+    node.setSlotLayout(layout);
+
+    this.frames.push(new Frame(layout, 1));
+    node.getBody().accept(this);
+    this.frames.pop();
+
+    if (node.getElseBody() != null) {
+      node.getElseBody().accept(this);
+    }
+  }
+
+  @Override
+  public void visit(MacroNode node) {
+    // a macro is invoked with its own scopes, none of the enclosing ones are visible
+    Deque<Frame> enclosingFrames = this.frames;
+    this.frames = new ArrayDeque<>();
+
+    // the default values are evaluated while the default arguments are being assigned
+    node.getArgs().accept(this);
+
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < node.getSlotLayout().size(); i++) {
+      names.add(node.getSlotLayout().getName(i));
+    }
+    node.getBody().accept(new SetVariableCollector(names));
+    SlotLayout layout = new SlotLayout(names);
+    node.setSlotLayout(layout);
+
+    // the default arguments are followed by a scope with the user provided arguments
+    this.frames.push(new Frame(layout, 2));
+    node.getBody().accept(this);
+    this.frames = enclosingFrames;
+  }
+
+  @Override
+  public void visit(Node node) {
+    if (node instanceof ContextVariableExpression) {
+      this.resolve((ContextVariableExpression) node);
+    } else if (node instanceof BinaryExpression) {
+      this.visitExpressions(((BinaryExpression<?>) node).getLeftExpression(),
+          ((BinaryExpression<?>) node).getRightExpression());
+    } else if (node instanceof RenderableNodeExpression) {
+      ((RenderableNodeExpression) node).getNode().accept(this);
+    } else if (node instanceof UnaryExpression) {
+      this.visitExpressions(((UnaryExpression) node).getChildExpression());
+    } else if (node instanceof TernaryExpression) {
+      TernaryExpression ternary = (TernaryExpression) node;
+      this.visitExpressions(ternary.getExpression1(), ternary.getExpression2(),
+          ternary.getExpression3());
+    } else if (node instanceof GetAttributeExpression) {
+      GetAttributeExpression getAttribute = (GetAttributeExpression) node;
+      this.visitExpressions(getAttribute.getNode(), getAttribute.getAttributeNameExpression());
+      this.visitArguments(getAttribute.getArgumentsNode());
+    } else if (node instanceof FilterInvocationExpression) {
+      this.visitArguments(((FilterInvocationExpression) node).getArgs());
+    } else if (node instanceof TestInvocationExpression) {
+      this.visitArguments(((TestInvocationExpression) node).getArgs());
+    } else if (node instanceof FunctionOrMacroInvocationExpression) {
+      this.visitArguments(((FunctionOrMacroInvocationExpression) node).getArguments());
+    } else if (node instanceof BlockFunctionExpression) {
+      this.visitExpressions(((BlockFunctionExpression) node).getBlockNameExpression());
+    } else if (node instanceof ArrayExpression) {
+      for (Expression<?> value : ((ArrayExpression) node).getValues()) {
+        this.visitExpressions(value);
+      }
+    } else if (node instanceof MapExpression) {
+      for (Map.Entry<Expression<?>, Expression<?>> entry : ((MapExpression) node).getEntries()
+          .entrySet()) {
+        this.visitExpressions(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void visitExpressions(Expression<?>... expressions) {
+    for (Expression<?> expression : expressions) {
+      if (expression != null) {
+        expression.accept(this);
+      }
+    }
+  }
+
+  private void visitArguments(ArgumentsNode arguments) {
+    if (arguments != null) {
+      arguments.accept(this);
+    }
+  }
+
+  private void resolve(ContextVariableExpression expression) {
+    int depth = 0;
+    for (Frame frame : this.frames) {
+      int slot = frame.layout.indexOf(expression.getName());
+      if (slot >= 0) {
+        expression.resolveSlot(frame.layout, depth + frame.scopes - 1, slot);
+        return;
+      }
+      depth += frame.scopes;
+    }
+  }
+
+  /**
+   * A slotted scope and the number of scopes pushed along with it, itself included.
+   */
+  private static class Frame {
+
+    private final SlotLayout layout;
+
+    private final int scopes;
+
+    private Frame(SlotLayout layout, int scopes) {
+      this.layout = layout;
+      this.scopes = scopes;
+    }
+  }
+
+  /**
+   * Collects the names of the variables which, when set, end up in the scope of the visited body.
+   * Nested loops and macros have scopes of their own.
+   */
+  private static class SetVariableCollector extends AbstractNodeVisitor {
+
+    private final List<String> names;
+
+    private SetVariableCollector(List<String> names) {
+      super(null);
+      this.names = names;
+    }
+
+    @Override
+    public void visit(SetNode node) {
+      this.names.add(node.getName());
+    }
+
+    @Override
+    public void visit(ForNode node) {
+      if (node.getElseBody() != null) {
+        node.getElseBody().accept(this);
+      }
+    }
+
+    @Override
+    public void visit(MacroNode node) {
+    }
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.core;
+
+import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.NodeVisitorFactory;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+
+/**
+ * Implementation of {@link NodeVisitorFactory} to handle {@link LocalVariableSlotNodeVisitor}.
+ */
+public class LocalVariableSlotNodeVisitorFactory implements NodeVisitorFactory {
+
+  @Override
+  public NodeVisitor createVisitor(PebbleTemplate template) {
+    return new LocalVariableSlotNodeVisitor((PebbleTemplateImpl) template);
+  }
+
+}
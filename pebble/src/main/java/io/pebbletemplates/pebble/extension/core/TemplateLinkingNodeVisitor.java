@@ -0,0 +1,63 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.core;
+
+import io.pebbletemplates.pebble.extension.AbstractNodeVisitor;
+import io.pebbletemplates.pebble.node.EmbedNode;
+import io.pebbletemplates.pebble.node.ExtendsNode;
+import io.pebbletemplates.pebble.node.FromNode;
+import io.pebbletemplates.pebble.node.ImportNode;
+import io.pebbletemplates.pebble.node.IncludeNode;
+import io.pebbletemplates.pebble.node.Node;
+import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.node.expression.LiteralStringExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+
+/**
+ * Links the templates referenced by a literal name in the import, from, include, embed and
+ * extends tags, so that the template only looks them up the first time they are used, and again
+ * after the engine invalidated templates.
+ */
+public class TemplateLinkingNodeVisitor extends AbstractNodeVisitor {
+
+  public TemplateLinkingNodeVisitor(PebbleTemplateImpl template) {
+    super(template);
+  }
+
+  @Override
+  public void visit(Node node) {
+    if (node instanceof FromNode) {
+      this.link(((FromNode) node).getFromExpression());
+    } else if (node instanceof EmbedNode) {
+      this.link(((EmbedNode) node).getIncludeExpression());
+    }
+  }
+
+  @Override
+  public void visit(ExtendsNode node) {
+    this.link(node.getParentExpression());
+  }
+
+  @Override
+  public void visit(ImportNode node) {
+    this.link(node.getImportExpression());
+  }
+
+  @Override
+  public void visit(IncludeNode node) {
+    this.link(node.getIncludeExpression());
+  }
+
+  private void link(Expression<?> templateNameExpression) {
+    if (templateNameExpression.getClass() == LiteralStringExpression.class) {
+      this.getTemplate()
+          .linkTemplateName(((LiteralStringExpression) templateNameExpression).getValue());
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.optimizer;
+
+import io.pebbletemplates.pebble.extension.AbstractExtension;
+import io.pebbletemplates.pebble.extension.ExtensionRegistry;
+import io.pebbletemplates.pebble.extension.NodeVisitorFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Optimizes the node tree of every template once it has been parsed. It has to be the last
+ * extension of the registry, so that the tree it optimizes is the one left by all of the other node
+ * visitors.
+ */
+public class OptimizerExtension extends AbstractExtension {
+
+  private final OptimizerNodeVisitorFactory visitorFactory;
+
+  /**
+   * Constructor
+   *
+   * @param extensionRegistry The registry this extension is added to, used to look up the filters
+   * which can be applied when a template is parsed
+   */
+  public OptimizerExtension(ExtensionRegistry extensionRegistry) {
+    this.visitorFactory = new OptimizerNodeVisitorFactory(extensionRegistry);
+  }
+
+  @Override
+  public List<NodeVisitorFactory> getNodeVisitors() {
+    List<NodeVisitorFactory> visitors = new ArrayList<>();
+    visitors.add(this.visitorFactory);
+    return visitors;
+  }
+
+}
@@ -0,0 +1,379 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.optimizer;
+
+import io.pebbletemplates.pebble.extension.AbstractNodeVisitor;
+import io.pebbletemplates.pebble.extension.escaper.EscapeFilter;
+import io.pebbletemplates.pebble.node.ArgumentsNode;
+import io.pebbletemplates.pebble.node.BodyNode;
+import io.pebbletemplates.pebble.node.IfNode;
+import io.pebbletemplates.pebble.node.NamedArgumentNode;
+import io.pebbletemplates.pebble.node.PositionalArgumentNode;
+import io.pebbletemplates.pebble.node.PrintNode;
+import io.pebbletemplates.pebble.node.RenderableNode;
+import io.pebbletemplates.pebble.node.TextNode;
+import io.pebbletemplates.pebble.node.expression.AddExpression;
+import io.pebbletemplates.pebble.node.expression.AndExpression;
+import io.pebbletemplates.pebble.node.expression.BinaryExpression;
+import io.pebbletemplates.pebble.node.expression.ConcatenateExpression;
+import io.pebbletemplates.pebble.node.expression.DivideExpression;
+import io.pebbletemplates.pebble.node.expression.EqualsExpression;
+import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.node.expression.FilterExpression;
+import io.pebbletemplates.pebble.node.expression.FilterInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.GreaterThanEqualsExpression;
+import io.pebbletemplates.pebble.node.expression.GreaterThanExpression;
+import io.pebbletemplates.pebble.node.expression.LessThanEqualsExpression;
+import io.pebbletemplates.pebble.node.expression.LessThanExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralBigDecimalExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralBooleanExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralDoubleExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralIntegerExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralLongExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralNullExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralStringExpression;
+import io.pebbletemplates.pebble.node.expression.ModulusExpression;
+import io.pebbletemplates.pebble.node.expression.MultiplyExpression;
+import io.pebbletemplates.pebble.node.expression.NotEqualsExpression;
+import io.pebbletemplates.pebble.node.expression.OrExpression;
+import io.pebbletemplates.pebble.node.expression.SubtractExpression;
+import io.pebbletemplates.pebble.node.expression.TernaryExpression;
+import io.pebbletemplates.pebble.node.expression.UnaryExpression;
+import io.pebbletemplates.pebble.node.expression.UnaryMinusExpression;
+import io.pebbletemplates.pebble.node.expression.UnaryNotExpression;
+import io.pebbletemplates.pebble.node.expression.UnaryPlusExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+import io.pebbletemplates.pebble.utils.Pair;
+import io.pebbletemplates.pebble.utils.StringUtils;
+import io.pebbletemplates.pebble.utils.TypeUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Simplifies the node tree of a template where the outcome is already known when it is parsed:
+ *
+ * <ul>
+ * <li>Operators whose operands are all literals are replaced by the literal they evaluate to.</li>
+ * <li>Branches of "if" tags whose condition is a literal are either kept unconditionally or
+ * removed.</li>
+ * <li>Print tags of literals, escaped with the built-in escape filter if need be, are turned into
+ * static text.</li>
+ * <li>Adjacent static texts are merged into a single one.</li>
+ * </ul>
+ *
+ * Only the core operators are folded, so that operators overridden by an extension keep being
+ * evaluated at runtime. Anything which fails to evaluate is left untouched so that it fails, with
+ * the usual error, when the template is rendered.
+ */
+public class OptimizerNodeVisitor extends AbstractNodeVisitor {
+
+  private static final Set<Class<?>> FOLDABLE_EXPRESSIONS = new HashSet<>(Arrays.asList(
+      AddExpression.class,
+      AndExpression.class,
+      ConcatenateExpression.class,
+      DivideExpression.class,
+      EqualsExpression.class,
+      GreaterThanEqualsExpression.class,
+      GreaterThanExpression.class,
+      LessThanEqualsExpression.class,
+      LessThanExpression.class,
+      ModulusExpression.class,
+      MultiplyExpression.class,
+      NotEqualsExpression.class,
+      OrExpression.class,
+      SubtractExpression.class,
+      UnaryMinusExpression.class,
+      UnaryNotExpression.class,
+      UnaryPlusExpression.class));
+
+  private static final Set<Class<?>> LITERAL_EXPRESSIONS = new HashSet<>(Arrays.asList(
+      LiteralBigDecimalExpression.class,
+      LiteralBooleanExpression.class,
+      LiteralDoubleExpression.class,
+      LiteralIntegerExpression.class,
+      LiteralLongExpression.class,
+      LiteralNullExpression.class,
+      LiteralStringExpression.class));
+
+  /**
+   * Marks an expression whose value is not known before the template is rendered.
+   */
+  private static final Object UNKNOWN = new Object();
+
+  private final EscapeFilter escapeFilter;
+
+  /**
+   * Constructor
+   *
+   * @param template The template being optimized
+   * @param escapeFilter The escape filter of the template, if it can be applied at parse time
+   */
+  public OptimizerNodeVisitor(PebbleTemplateImpl template, EscapeFilter escapeFilter) {
+    super(template);
+    this.escapeFilter = escapeFilter;
+  }
+
+  @Override
+  public void visit(BodyNode node) {
+    List<RenderableNode> children = new ArrayList<>(node.getChildren().size());
+    boolean changed = false;
+    StringBuilder text = null;
+    TextNode textNode = null;
+
+    for (RenderableNode child : node.getChildren()) {
+      child.accept(this);
+      RenderableNode optimized = this.optimize(child);
+      changed |= optimized != child;
+      if (optimized == null) {
+        continue;
+      }
+      if (optimized.getClass() != TextNode.class) {
+        if (textNode != null) {
+          children.add(this.toTextNode(text, textNode));
+          textNode = null;
+          text = null;
+        }
+        children.add(optimized);
+      } else if (textNode == null) {
+        textNode = (TextNode) optimized;
+      } else {
+        if (text == null) {
+          text = new StringBuilder().append(textNode.getData());
+        }
+        text.append(((TextNode) optimized).getData());
+        changed = true;
+      }
+    }
+    if (textNode != null) {
+      children.add(this.toTextNode(text, textNode));
+    }
+
+    if (changed) {
+      node.setChildren(children);
+    }
+  }
+
+  /**
+   * Returns the first of the merged text nodes if it is the only one, or a new node holding the
+   * merged text.
+   */
+  private TextNode toTextNode(StringBuilder text, TextNode first) {
+    if (text == null) {
+      return first;
+    }
+    return new TextNode(text.toString(), first.getLineNumber());
+  }
+
+  /**
+   * Returns the node which replaces a child of a body, which can be the child itself, or null if
+   * the child can be removed.
+   */
+  private RenderableNode optimize(RenderableNode node) {
+    if (node.getClass() == PrintNode.class) {
+      return this.optimize((PrintNode) node);
+    } else if (node.getClass() == IfNode.class) {
+      return this.optimize((IfNode) node);
+    }
+    return node;
+  }
+
+  private RenderableNode optimize(PrintNode node) {
+    Expression<?> expression = this.fold(node.getExpression());
+    node.setExpression(expression);
+
+    Object value = this.printedValue(expression);
+    if (value == UNKNOWN) {
+      return node;
+    } else if (value == null) {
+      // printing null writes nothing at all
+      return null;
+    }
+    return new TextNode(StringUtils.toString(value), node.getLineNumber());
+  }
+
+  private RenderableNode optimize(IfNode node) {
+    List<Pair<Expression<?>, BodyNode>> conditionsWithBodies = new ArrayList<>();
+    BodyNode elseBody = node.getElseBody();
+    boolean changed = false;
+
+    for (Pair<Expression<?>, BodyNode> conditionWithBody : node.getConditionsWithBodies()) {
+      Expression<?> condition = this.fold(conditionWithBody.getLeft());
+      changed |= condition != conditionWithBody.getLeft();
+      Boolean satisfied = this.condition(this.value(condition));
+      if (satisfied == null) {
+        conditionsWithBodies.add(new Pair<>(condition, conditionWithBody.getRight()));
+      } else if (satisfied) {
+        // none of the following branches can ever be rendered
+        elseBody = conditionWithBody.getRight();
+        changed = true;
+        break;
+      } else {
+        changed = true;
+      }
+    }
+
+    if (!changed) {
+      return node;
+    } else if (conditionsWithBodies.isEmpty()) {
+      // the body is kept as is, so that it is not rendered by templates which have a parent
+      return elseBody;
+    }
+    return new IfNode(node.getLineNumber(), conditionsWithBodies, elseBody);
+  }
+
+  /**
+   * Returns whether the value of a condition satisfies an "if" tag, or null if it is unknown or if
+   * it may fail when the template is rendered.
+   */
+  private Boolean condition(Object value) {
+    if (value instanceof Boolean || value instanceof Number || value instanceof String) {
+      try {
+        return TypeUtils.compatibleCast(value, Boolean.class);
+      } catch (RuntimeException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Folds the operators of an expression whose operands are literals, starting with the innermost
+   * ones.
+   */
+  private Expression<?> fold(Expression<?> expression) {
+    if (expression == null) {
+      return null;
+    } else if (expression instanceof BinaryExpression) {
+      BinaryExpression<?> binary = (BinaryExpression<?>) expression;
+      binary.setLeft(this.fold(binary.getLeftExpression()));
+      if (expression.getClass() == FilterExpression.class) {
+        return expression;
+      }
+      binary.setRight(this.fold(binary.getRightExpression()));
+      if (FOLDABLE_EXPRESSIONS.contains(expression.getClass())
+          && this.value(binary.getLeftExpression()) != UNKNOWN
+          && this.value(binary.getRightExpression()) != UNKNOWN) {
+        return this.evaluate(expression);
+      }
+    } else if (expression instanceof UnaryExpression) {
+      UnaryExpression unary = (UnaryExpression) expression;
+      unary.setChildExpression(this.fold(unary.getChildExpression()));
+      if (FOLDABLE_EXPRESSIONS.contains(expression.getClass())
+          && this.value(unary.getChildExpression()) != UNKNOWN) {
+        return this.evaluate(expression);
+      }
+    } else if (expression.getClass() == TernaryExpression.class) {
+      TernaryExpression ternary = (TernaryExpression) expression;
+      ternary.setExpression2(this.fold(ternary.getExpression2()));
+      ternary.setExpression3(this.fold(ternary.getExpression3()));
+      Object value = this.value(this.fold(ternary.getExpression1()));
+      if (value == null) {
+        return ternary.getExpression3();
+      } else if (value != UNKNOWN) {
+        try {
+          return TypeUtils.compatibleCast(value, Boolean.class) ? ternary.getExpression2()
+              : ternary.getExpression3();
+        } catch (RuntimeException e) {
+          return expression;
+        }
+      }
+    }
+    return expression;
+  }
+
+  /**
+   * Evaluates an operator whose operands are literals, it is kept if it fails to evaluate or if
+   * its value has no literal.
+   */
+  private Expression<?> evaluate(Expression<?> expression) {
+    Object value;
+    try {
+      value = expression.evaluate(this.getTemplate(), null);
+    } catch (RuntimeException e) {
+      return expression;
+    }
+    int lineNumber = expression.getLineNumber();
+    if (value == null) {
+      return new LiteralNullExpression(lineNumber);
+    } else if (value instanceof String) {
+      return new LiteralStringExpression((String) value, lineNumber);
+    } else if (value instanceof Boolean) {
+      return new LiteralBooleanExpression((Boolean) value, lineNumber);
+    } else if (value instanceof Long) {
+      return new LiteralLongExpression((Long) value, lineNumber);
+    } else if (value instanceof Integer) {
+      return new LiteralIntegerExpression((Integer) value, lineNumber);
+    } else if (value instanceof Double) {
+      return new LiteralDoubleExpression((Double) value, lineNumber);
+    } else if (value instanceof BigDecimal) {
+      return new LiteralBigDecimalExpression((BigDecimal) value, lineNumber);
+    }
+    return expression;
+  }
+
+  /**
+   * Returns the value of a literal expression, or {@link #UNKNOWN} for any other expression.
+   */
+  private Object value(Expression<?> expression) {
+    if (expression != null && LITERAL_EXPRESSIONS.contains(expression.getClass())) {
+      return expression.evaluate(this.getTemplate(), null);
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Returns the value printed by a print tag, which may be a literal escaped by the escape filter,
+   * or {@link #UNKNOWN} if it can only be known when the template is rendered.
+   */
+  private Object printedValue(Expression<?> expression) {
+    if (expression.getClass() != FilterExpression.class) {
+      return this.value(expression);
+    }
+    FilterExpression filter = (FilterExpression) expression;
+    FilterInvocationExpression invocation = (FilterInvocationExpression) filter
+        .getRightExpression();
+    Object input = this.value(filter.getLeftExpression());
+    if (this.escapeFilter == null || input == UNKNOWN
+        || !"escape".equals(invocation.getFilterName())
+        || !this.hasLiteralArguments(invocation.getArgs())) {
+      return UNKNOWN;
+    }
+    try {
+      return this.escapeFilter.apply(input,
+          invocation.getArgs().getArgumentMap(this.getTemplate(), null, this.escapeFilter),
+          this.getTemplate(), null, filter.getLineNumber());
+    } catch (RuntimeException e) {
+      return UNKNOWN;
+    }
+  }
+
+  private boolean hasLiteralArguments(ArgumentsNode args) {
+    if (args.getPositionalArgs() != null) {
+      for (PositionalArgumentNode arg : args.getPositionalArgs()) {
+        if (this.value(arg.getValueExpression()) == UNKNOWN) {
+          return false;
+        }
+      }
+    }
+    if (args.getNamedArgs() != null) {
+      for (NamedArgumentNode arg : args.getNamedArgs()) {
+        if (this.value(arg.getValueExpression()) == UNKNOWN) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+}
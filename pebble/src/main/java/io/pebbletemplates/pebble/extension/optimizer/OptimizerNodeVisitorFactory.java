@@ -0,0 +1,39 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.extension.optimizer;
+
+import io.pebbletemplates.pebble.extension.ExtensionRegistry;
+import io.pebbletemplates.pebble.extension.Filter;
+import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.NodeVisitorFactory;
+import io.pebbletemplates.pebble.extension.escaper.EscapeFilter;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+
+/**
+ * Factory class for creating {@link OptimizerNodeVisitor}.
+ */
+public class OptimizerNodeVisitorFactory implements NodeVisitorFactory {
+
+  private final ExtensionRegistry extensionRegistry;
+
+  public OptimizerNodeVisitorFactory(ExtensionRegistry extensionRegistry) {
+    this.extensionRegistry = extensionRegistry;
+  }
+
+  @Override
+  public NodeVisitor createVisitor(PebbleTemplate template) {
+    // only the built-in escape filter is known to give the same result at parse time
+    Filter filter = this.extensionRegistry.getFilter("escape");
+    EscapeFilter escapeFilter = filter != null && filter.getClass() == EscapeFilter.class
+        ? (EscapeFilter) filter : null;
+    return new OptimizerNodeVisitor((PebbleTemplateImpl) template, escapeFilter);
+  }
+
+}
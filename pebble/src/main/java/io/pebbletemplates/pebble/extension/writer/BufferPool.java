@@ -0,0 +1,37 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+/**
+ * A pool of the {@code char[]} buffers a {@link ChunkedWriter} renders into. The buffers are
+ * grouped by size class, the smallest one holding {@value #MIN_BUFFER_LENGTH} characters and each
+ * next one twice as many, up to {@value #MAX_BUFFER_LENGTH} characters.
+ *
+ * <p>
+ * Implementations must be thread safe, a buffer may be released by another thread than the one
+ * which acquired it.
+ *
+ * @see ThreadLocalBufferPool
+ * @see SharedBufferPool
+ */
+public interface BufferPool {
+
+  int MIN_BUFFER_LENGTH = 256;
+
+  int MAX_BUFFER_LENGTH = 16384;
+
+  /**
+   * Returns a buffer holding the given number of characters at least, which the caller owns until
+   * it gives it back with {@link #release(char[])}.
+   *
+   * @param minimumLength The number of characters needed
+   * @return The buffer, whose content is undefined
+   */
+  char[] acquire(int minimumLength);
+
+  /**
+   * Gives back a buffer which is not used anymore. The pool may keep it for a next caller or
+   * drop it.
+   *
+   * @param buffer The buffer
+   */
+  void release(char[] buffer);
+}
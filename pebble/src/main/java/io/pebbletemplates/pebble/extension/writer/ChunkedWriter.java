@@ -0,0 +1,275 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+import io.pebbletemplates.pebble.utils.NumberChars;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A {@link SpecializedWriter} buffering the output in a list of {@code char[]} segments, used
+ * wherever Pebble renders into an intermediate buffer, e.g. a macro call or a cache tag. Unlike
+ * {@link java.io.StringWriter} it is not synchronized and never copies the output to grow, its
+ * content can be written to another writer without building a String first, and the numbers are
+ * formatted directly into its segments.
+ *
+ * <p>
+ * The segments are taken from a {@link BufferPool} and given back by {@link #close()}, after which
+ * the writer is empty. The first segment is small and each next one twice as large, up to {@value
+ * BufferPool#MAX_BUFFER_LENGTH} characters. It is not thread safe.
+ */
+public class ChunkedWriter extends Writer implements SpecializedWriter {
+
+  private static final BufferPool DEFAULT_POOL = new ThreadLocalBufferPool();
+
+  private static final char[][] NO_SEGMENTS = new char[0][];
+
+  private final BufferPool pool;
+
+  /**
+   * The full segments.
+   */
+  private char[][] segments = NO_SEGMENTS;
+
+  private int segmentCount;
+
+  /**
+   * The number of characters of the full segments.
+   */
+  private int segmentsLength;
+
+  /**
+   * The segment being written to, or null before anything was written.
+   */
+  private char[] current;
+
+  private int position;
+
+  /**
+   * The buffer numbers are formatted into when there is not enough room left in the segment.
+   */
+  private char[] digits;
+
+  /**
+   * Creates a writer taking its segments from a pool shared by the writers created without one.
+   */
+  public ChunkedWriter() {
+    this(DEFAULT_POOL);
+  }
+
+  /**
+   * Creates a writer.
+   *
+   * @param pool The pool of the segments
+   */
+  public ChunkedWriter(BufferPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    while (len > 0) {
+      int count = Math.min(len, this.available());
+      System.arraycopy(cbuf, off, this.current, this.position, count);
+      this.position += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    while (len > 0) {
+      int count = Math.min(len, this.available());
+      str.getChars(off, off + count, this.current, this.position);
+      this.position += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  @Override
+  public void write(String str) {
+    this.write(str, 0, str.length());
+  }
+
+  @Override
+  public void write(int c) {
+    this.available();
+    this.current[this.position++] = (char) c;
+  }
+
+  /**
+   * Returns the room left in the current segment, moving on to a new segment if it is full.
+   */
+  private int available() {
+    if (this.current == null) {
+      this.current = this.pool.acquire(BufferPool.MIN_BUFFER_LENGTH);
+    } else if (this.position == this.current.length) {
+      if (this.segmentCount == this.segments.length) {
+        this.segments = Arrays.copyOf(this.segments, Math.max(4, this.segmentCount << 1));
+      }
+      this.segments[this.segmentCount++] = this.current;
+      this.segmentsLength += this.current.length;
+      this.current = this.pool.acquire(
+          Math.min(this.current.length << 1, BufferPool.MAX_BUFFER_LENGTH));
+      this.position = 0;
+    }
+    return this.current.length - this.position;
+  }
+
+  @Override
+  public void writeSpecialized(int i) {
+    this.writeSpecialized((long) i);
+  }
+
+  @Override
+  public void writeSpecialized(long l) {
+    char[] buffer = this.numberBuffer();
+    int start = buffer == this.current ? this.position : 0;
+    this.writeNumber(buffer, start, NumberChars.getChars(l, buffer, start));
+  }
+
+  @Override
+  public void writeSpecialized(double d) {
+    char[] buffer = this.numberBuffer();
+    int start = buffer == this.current ? this.position : 0;
+    int end = NumberChars.getChars(d, buffer, start);
+    if (end < 0) {
+      this.write(Double.toString(d));
+    } else {
+      this.writeNumber(buffer, start, end);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(float f) {
+    char[] buffer = this.numberBuffer();
+    int start = buffer == this.current ? this.position : 0;
+    int end = NumberChars.getChars(f, buffer, start);
+    if (end < 0) {
+      this.write(Float.toString(f));
+    } else {
+      this.writeNumber(buffer, start, end);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(short s) {
+    this.writeSpecialized((long) s);
+  }
+
+  @Override
+  public void writeSpecialized(byte b) {
+    this.writeSpecialized((long) b);
+  }
+
+  @Override
+  public void writeSpecialized(BigDecimal bd) {
+    char[] buffer = this.numberBuffer();
+    int start = buffer == this.current ? this.position : 0;
+    int end = NumberChars.getChars(bd, buffer, start);
+    if (end < 0) {
+      this.write(bd.toPlainString());
+    } else {
+      this.writeNumber(buffer, start, end);
+    }
+  }
+
+  /**
+   * Returns the current segment if a number fits in it, or else the buffer of the numbers.
+   */
+  private char[] numberBuffer() {
+    if (this.current != null && this.current.length - this.position >= NumberChars.MAX_LENGTH) {
+      return this.current;
+    }
+    if (this.digits == null) {
+      this.digits = new char[NumberChars.MAX_LENGTH];
+    }
+    return this.digits;
+  }
+
+  /**
+   * Completes the writing of a number formatted into the given buffer.
+   */
+  private void writeNumber(char[] buffer, int start, int end) {
+    if (buffer == this.current) {
+      this.position = end;
+    } else {
+      this.write(buffer, start, end - start);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(char c) {
+    this.write(c);
+  }
+
+  @Override
+  public void writeSpecialized(String s) {
+    this.write(s);
+  }
+
+  /**
+   * Returns the number of characters written.
+   *
+   * @return The length of the content
+   */
+  public int length() {
+    return this.segmentsLength + this.position;
+  }
+
+  /**
+   * Writes the content to another writer, segment by segment.
+   *
+   * @param writer The writer
+   * @throws IOException Thrown from the writer
+   */
+  public void writeTo(Writer writer) throws IOException {
+    for (int i = 0; i < this.segmentCount; i++) {
+      writer.write(this.segments[i]);
+    }
+    if (this.position > 0) {
+      writer.write(this.current, 0, this.position);
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (this.segmentCount == 0) {
+      return this.current == null ? "" : new String(this.current, 0, this.position);
+    }
+    char[] content = new char[this.length()];
+    int offset = 0;
+    for (int i = 0; i < this.segmentCount; i++) {
+      char[] segment = this.segments[i];
+      System.arraycopy(segment, 0, content, offset, segment.length);
+      offset += segment.length;
+    }
+    System.arraycopy(this.current, 0, content, offset, this.position);
+    return new String(content);
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  /**
+   * Gives the segments back to the pool and empties the writer.
+   */
+  @Override
+  public void close() {
+    for (int i = 0; i < this.segmentCount; i++) {
+      this.pool.release(this.segments[i]);
+      this.segments[i] = null;
+    }
+    if (this.current != null) {
+      this.pool.release(this.current);
+    }
+    this.segmentCount = 0;
+    this.segmentsLength = 0;
+    this.current = null;
+    this.position = 0;
+  }
+}
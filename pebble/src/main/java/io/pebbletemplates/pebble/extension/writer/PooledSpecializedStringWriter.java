@@ -11,6 +11,8 @@ import java.io.Writer;
  * are rebooted at runtime</li>
  * <li>It doesn't take any security measure against very large payloads that would cause underlying
  * buffers to eat memory</li>
+ * <li>It retains a writer per thread, i.e. one per rendering when rendering on virtual threads. A
+ * {@link ChunkedWriter} with a {@link SharedBufferPool} should be used instead</li>
  * </ul>
  */
 public class PooledSpecializedStringWriter extends Writer implements SpecializedWriter {
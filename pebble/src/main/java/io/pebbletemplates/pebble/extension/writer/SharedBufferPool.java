@@ -0,0 +1,105 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded {@link BufferPool} shared by all the threads, whatever their number, which suits
+ * templates rendered on virtual threads. The buffers of each size class are kept in a fixed number
+ * of slots which are taken and filled with compare-and-set operations, without locking, and the
+ * total number of characters kept by the pool is capped as well. Buffers which do not fit are left
+ * to the garbage collector.
+ */
+public class SharedBufferPool implements BufferPool {
+
+  private static final int DEFAULT_SLOTS_PER_SIZE_CLASS = 64;
+
+  private static final long DEFAULT_MAX_RETAINED_CHARS = 1024 * 1024;
+
+  private final int slotsPerSizeClass;
+
+  private final long maxRetainedChars;
+
+  /**
+   * The slots of all the size classes, one after the other.
+   */
+  private final AtomicReferenceArray<char[]> slots;
+
+  private final AtomicLong retainedChars = new AtomicLong();
+
+  /**
+   * Creates a pool with 64 slots per size class, keeping 1M characters at most.
+   */
+  public SharedBufferPool() {
+    this(DEFAULT_SLOTS_PER_SIZE_CLASS, DEFAULT_MAX_RETAINED_CHARS);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param slotsPerSizeClass The number of buffers of each size class kept at most
+   * @param maxRetainedChars The number of characters of all the buffers kept at most
+   */
+  public SharedBufferPool(int slotsPerSizeClass, long maxRetainedChars) {
+    if (slotsPerSizeClass < 0 || maxRetainedChars < 0) {
+      throw new IllegalArgumentException(
+          "slotsPerSizeClass and maxRetainedChars should not be negative");
+    }
+    this.slotsPerSizeClass = slotsPerSizeClass;
+    this.maxRetainedChars = maxRetainedChars;
+    this.slots = new AtomicReferenceArray<>(SizeClasses.COUNT * slotsPerSizeClass);
+  }
+
+  @Override
+  public char[] acquire(int minimumLength) {
+    int sizeClass = SizeClasses.forLength(minimumLength);
+    if (sizeClass >= SizeClasses.COUNT) {
+      return new char[minimumLength];
+    }
+    if (this.slotsPerSizeClass > 0) {
+      int base = sizeClass * this.slotsPerSizeClass;
+      // the threads start from random slots so that they do not all compete for the first ones
+      int start = ThreadLocalRandom.current().nextInt(this.slotsPerSizeClass);
+      for (int i = 0; i < this.slotsPerSizeClass; i++) {
+        int index = base + (start + i) % this.slotsPerSizeClass;
+        char[] buffer = this.slots.get(index);
+        if (buffer != null && this.slots.compareAndSet(index, buffer, null)) {
+          this.retainedChars.addAndGet(-buffer.length);
+          return buffer;
+        }
+      }
+    }
+    return new char[SizeClasses.length(sizeClass)];
+  }
+
+  @Override
+  public void release(char[] buffer) {
+    int sizeClass = SizeClasses.of(buffer);
+    if (sizeClass < 0 || this.slotsPerSizeClass == 0) {
+      return;
+    }
+    if (this.retainedChars.addAndGet(buffer.length) > this.maxRetainedChars) {
+      this.retainedChars.addAndGet(-buffer.length);
+      return;
+    }
+    int base = sizeClass * this.slotsPerSizeClass;
+    int start = ThreadLocalRandom.current().nextInt(this.slotsPerSizeClass);
+    for (int i = 0; i < this.slotsPerSizeClass; i++) {
+      int index = base + (start + i) % this.slotsPerSizeClass;
+      if (this.slots.get(index) == null && this.slots.compareAndSet(index, null, buffer)) {
+        return;
+      }
+    }
+    this.retainedChars.addAndGet(-buffer.length);
+  }
+
+  /**
+   * Returns the number of characters of the buffers kept by the pool.
+   *
+   * @return The number of characters
+   */
+  public long getRetainedChars() {
+    return this.retainedChars.get();
+  }
+}
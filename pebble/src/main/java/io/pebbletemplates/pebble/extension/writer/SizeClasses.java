@@ -0,0 +1,48 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+import static io.pebbletemplates.pebble.extension.writer.BufferPool.MAX_BUFFER_LENGTH;
+import static io.pebbletemplates.pebble.extension.writer.BufferPool.MIN_BUFFER_LENGTH;
+
+/**
+ * The size classes of the buffers of a {@link BufferPool}.
+ */
+final class SizeClasses {
+
+  private static final int SHIFT = 31 - Integer.numberOfLeadingZeros(MIN_BUFFER_LENGTH);
+
+  static final int COUNT = of(MAX_BUFFER_LENGTH) + 1;
+
+  private SizeClasses() {
+  }
+
+  /**
+   * Returns the size class of the smallest buffers holding the given number of characters, which
+   * is {@link #COUNT} or more if they are larger than the pooled buffers.
+   */
+  static int forLength(int minimumLength) {
+    if (minimumLength <= MIN_BUFFER_LENGTH) {
+      return 0;
+    }
+    return 32 - Integer.numberOfLeadingZeros(minimumLength - 1) - SHIFT;
+  }
+
+  /**
+   * Returns the size class a buffer belongs to, or -1 if it is smaller or larger than the pooled
+   * buffers. The buffer holds at least as many characters as the buffers of its class.
+   */
+  static int of(char[] buffer) {
+    return buffer.length < MIN_BUFFER_LENGTH || buffer.length > MAX_BUFFER_LENGTH ? -1
+        : of(buffer.length);
+  }
+
+  private static int of(int length) {
+    return 31 - Integer.numberOfLeadingZeros(length) - SHIFT;
+  }
+
+  /**
+   * Returns the length of the buffers of a size class.
+   */
+  static int length(int sizeClass) {
+    return MIN_BUFFER_LENGTH << sizeClass;
+  }
+}
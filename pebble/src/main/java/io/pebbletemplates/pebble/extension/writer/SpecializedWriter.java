@@ -24,6 +24,15 @@ public interface SpecializedWriter {
 
   void writeSpecialized(String s);
 
+  /**
+   * Writes a BigDecimal the way {@link BigDecimal#toPlainString()} formats it.
+   *
+   * @param bd The value
+   */
+  default void writeSpecialized(BigDecimal bd) {
+    writeSpecialized(bd.toPlainString());
+  }
+
   default void write(Object o) {
     if (o == null) {
       throw new IllegalArgumentException("Var can not be null");
@@ -44,7 +53,7 @@ public interface SpecializedWriter {
     } else if (o instanceof Character) {
       writeSpecialized(((Character) o).charValue());
     } else if (o instanceof BigDecimal) {
-      writeSpecialized(((BigDecimal) o).toPlainString());
+      writeSpecialized((BigDecimal) o);
     } else {
       writeSpecialized(o.toString());
     }
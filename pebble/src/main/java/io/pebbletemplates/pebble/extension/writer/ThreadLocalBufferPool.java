@@ -0,0 +1,81 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+/**
+ * A {@link BufferPool} keeping a few buffers of each size class per thread, which never contends
+ * but retains buffers for every thread which rendered a template. It suits a fixed set of
+ * platform threads; when the templates are rendered on virtual threads, which are rarely reused,
+ * a {@link SharedBufferPool} should be used instead.
+ */
+public class ThreadLocalBufferPool implements BufferPool {
+
+  private static final int DEFAULT_BUFFERS_PER_SIZE_CLASS = 8;
+
+  private final int buffersPerSizeClass;
+
+  private final ThreadLocal<Spares> spares = ThreadLocal.withInitial(Spares::new);
+
+  /**
+   * Creates a pool keeping 8 buffers of each size class per thread at most.
+   */
+  public ThreadLocalBufferPool() {
+    this(DEFAULT_BUFFERS_PER_SIZE_CLASS);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param buffersPerSizeClass The number of buffers of each size class kept per thread at most
+   */
+  public ThreadLocalBufferPool(int buffersPerSizeClass) {
+    if (buffersPerSizeClass < 0) {
+      throw new IllegalArgumentException("buffersPerSizeClass should not be negative");
+    }
+    this.buffersPerSizeClass = buffersPerSizeClass;
+  }
+
+  @Override
+  public char[] acquire(int minimumLength) {
+    int sizeClass = SizeClasses.forLength(minimumLength);
+    if (sizeClass >= SizeClasses.COUNT) {
+      return new char[minimumLength];
+    }
+    Spares spares = this.spares.get();
+    int count = spares.counts[sizeClass];
+    if (count == 0) {
+      return new char[SizeClasses.length(sizeClass)];
+    }
+    char[][] buffers = spares.buffers[sizeClass];
+    char[] buffer = buffers[--count];
+    buffers[count] = null;
+    spares.counts[sizeClass] = count;
+    return buffer;
+  }
+
+  @Override
+  public void release(char[] buffer) {
+    int sizeClass = SizeClasses.of(buffer);
+    if (sizeClass < 0) {
+      return;
+    }
+    Spares spares = this.spares.get();
+    int count = spares.counts[sizeClass];
+    if (count < this.buffersPerSizeClass) {
+      char[][] buffers = spares.buffers[sizeClass];
+      if (buffers == null) {
+        buffers = spares.buffers[sizeClass] = new char[this.buffersPerSizeClass][];
+      }
+      buffers[count] = buffer;
+      spares.counts[sizeClass] = count + 1;
+    }
+  }
+
+  /**
+   * The buffers kept for a thread, as a stack per size class.
+   */
+  private static class Spares {
+
+    private final char[][][] buffers = new char[SizeClasses.COUNT][][];
+
+    private final int[] counts = new int[SizeClasses.COUNT];
+  }
+}
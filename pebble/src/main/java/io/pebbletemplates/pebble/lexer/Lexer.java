@@ -13,4 +13,16 @@ import java.io.Reader;
 public interface Lexer {
 
   TokenStream tokenize(Reader templateReader, String name);
+
+  /**
+   * Tokenizes a template, knowing about how long it is.
+   *
+   * @param templateReader The reader provided from the Loader
+   * @param name The name of the template
+   * @param expectedLength The estimated number of characters of the template or -1 if unknown
+   * @return The stream of tokens
+   */
+  default TokenStream tokenize(Reader templateReader, String name, int expectedLength) {
+    return this.tokenize(templateReader, name);
+  }
 }
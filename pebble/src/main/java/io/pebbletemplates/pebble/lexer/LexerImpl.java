@@ -10,8 +10,6 @@ import io.pebbletemplates.pebble.operator.UnaryOperator;
 import io.pebbletemplates.pebble.error.ParserException;
 import io.pebbletemplates.pebble.lexer.Token.Type;
 import io.pebbletemplates.pebble.utils.Pair;
-import io.pebbletemplates.pebble.utils.StringLengthComparator;
-import io.pebbletemplates.pebble.utils.StringUtils;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayDeque;
@@ -21,8 +19,6 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,106 +26,40 @@ import org.slf4j.LoggerFactory;
 /**
  * This class reads the template input and builds single items out of it.
  * <p>
- * This class is not thread safe.
+ * The source is scanned by hand, character by character, rather than with regular expressions.
+ * Everything which depends only on the syntax and on the operators is prepared once in the
+ * constructor, and the state of a tokenization is local to each call, so that a single instance can
+ * be shared by all of the templates of an engine. This class is thread safe.
  */
 public final class LexerImpl implements Lexer {
 
   private final Logger logger = LoggerFactory.getLogger(LexerImpl.class);
 
-  /**
-   * Syntax
-   */
-  private final Syntax syntax;
+  private static final String VERBATIM = "verbatim";
 
-  /**
-   * Unary operators
-   */
-  private final Collection<UnaryOperator> unaryOperators;
-
-  /**
-   * Binary operators
-   */
-  private final Collection<BinaryOperator> binaryOperators;
+  private static final String END_VERBATIM = "endverbatim";
 
-  /**
-   * As we progress through the source we maintain a string which is the text that has yet to be
-   * tokenized.
-   */
-  private TemplateSource source;
+  private static final String PUNCTUATION = "()[]{}?:.,|=";
 
   /**
-   * The list of tokens that we find and use to create a TokenStream
+   * Syntax
    */
-  private ArrayList<Token> tokens;
+  private final Syntax syntax;
 
   /**
-   * Represents the brackets we are currently inside ordered by how recently we encountered them.
-   * (i.e. peek() will return the most innermost bracket, getLast() will return the outermost).
-   * Brackets in this case includes double quotes. The String value of the pair is the bracket
-   * representation, and the Integer is the line number.
+   * The symbols of the unary and binary operators
    */
-  private LinkedList<Pair<String, Integer>> brackets;
+  private final OperatorTrie operators;
 
   /**
-   * The state of the lexer is important so that we know what to expect next and to help discover
-   * errors in the template (ex. unclosed comments).
+   * The whitespace trim character reversed, to find it at the end of a comment.
    */
-  private Deque<State> lexerStateStack = new ArrayDeque<State>();
+  private final String reversedWhitespaceTrim;
 
   private enum State {
     DATA, EXECUTE, PRINT, COMMENT, STRING, STRING_INTERPOLATION
   }
 
-  /**
-   * If we encountered an END delimiter that was preceded with a whitespace trim character (ex. {{
-   * foo -}}) then this boolean is toggled to "true" which tells the lexData() method to trim
-   * leading whitespace from the next text token.
-   */
-  private boolean trimLeadingWhitespaceFromNextData = false;
-
-  /**
-   * Static regular expressions for identifiers.
-   */
-  private static final Pattern REGEX_IDENTIFIER;
-  
-  static {
-    if ("The Android Project".equals(System.getProperty("java.vendor"))) {
-      REGEX_IDENTIFIER = Pattern.compile("^[\\p{Letter}_][\\p{Letter}\\p{Digit}_]*");
-    } else {
-      // Standard
-      REGEX_IDENTIFIER = Pattern.compile("^[\\p{IsLetter}_][\\p{IsLetter}\\p{IsDigit}_]*");
-    }
-  }
-
-  private static final Pattern REGEX_LONG = Pattern.compile("^[0-9]+L");
-
-  private static final Pattern REGEX_NUMBER = Pattern.compile("^[0-9]+(\\.[0-9]+)?");
-
-  /**
-   * Matches a double quote
-   */
-  private static final Pattern REGEX_DOUBLEQUOTE = Pattern.compile("^\"");
-
-  /**
-   * Matches everything up to the first interpolation in a double quoted string
-   */
-  private static final Pattern REGEX_STRING_NON_INTERPOLATED_PART =
-      Pattern.compile("^[^#\"\\\\]*(?:(?:\\\\.|#(?!\\{))[^#\"\\\\]*)*", Pattern.DOTALL);
-
-  /**
-   * Matches single quoted strings and double quoted strings without interpolation. Extra complexity
-   * is due to ignoring escaped quotation marks.
-   */
-  private static final Pattern REGEX_STRING_PLAIN = Pattern.compile(
-      "^\"([^#\"\\\\]*(?:\\\\.[^#\"\\\\]*)*)\"|'([^'\\\\]*(?:\\\\.[^'\\\\]*)*)'", Pattern.DOTALL);
-
-  private static final String PUNCTUATION = "()[]{}?:.,|=";
-
-  /**
-   * Regular expression to find operators
-   */
-  private Pattern regexOperators;
-
   /**
    * Constructor
    *
@@ -140,8 +70,17 @@ public final class LexerImpl implements Lexer {
   public LexerImpl(Syntax syntax, Collection<UnaryOperator> unaryOperators,
       Collection<BinaryOperator> binaryOperators) {
     this.syntax = syntax;
-    this.unaryOperators = unaryOperators;
-    this.binaryOperators = binaryOperators;
+
+    List<String> symbols = new ArrayList<>();
+    for (UnaryOperator operator : unaryOperators) {
+      symbols.add(operator.getSymbol());
+    }
+    for (BinaryOperator operator : binaryOperators) {
+      symbols.add(operator.getSymbol());
+    }
+    this.operators = new OperatorTrie(symbols);
+    this.reversedWhitespaceTrim = new StringBuilder(syntax.getWhitespaceTrim()).reverse()
+        .toString();
   }
 
   /**
@@ -152,532 +91,787 @@ public final class LexerImpl implements Lexer {
    */
   @Override
   public TokenStream tokenize(Reader reader, String name) {
+    return this.tokenize(reader, name, -1);
+  }
 
-    // operator regex
-    this.buildOperatorRegex();
+  /**
+   * Tokenizes a template, reading it into a buffer sized from its expected length.
+   *
+   * @param reader The reader provided from the Loader
+   * @param name The name of the template (used for meaningful error messages)
+   * @param expectedLength The estimated number of characters of the template or -1 if unknown
+   */
+  @Override
+  public TokenStream tokenize(Reader reader, String name, int expectedLength) {
 
     // standardize the character used for line breaks
+    TemplateSource source;
     try {
-      this.source = new TemplateSource(reader, name);
+      source = new TemplateSource(reader, name, expectedLength);
     } catch (IOException e) {
       throw new ParserException(e, "Can not convert template Reader into a String", 0, name);
     }
 
+    return new Tokenizer(source).tokenize();
+  }
 
-    this.tokens = new ArrayList<>();
-    this.lexerStateStack = new ArrayDeque<>();
-    this.brackets = new LinkedList<>();
+  /**
+   * Characters matched by "\s" in a regular expression, which unlike
+   * {@link Character#isWhitespace(char)} only covers the ASCII whitespace characters.
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * The state of the tokenization of a single template.
+   */
+  private final class Tokenizer {
 
-    /*
-     * Start in a DATA state by pushing it to the state stack. This state basically means that we
-     * are NOT in between a pair of meaningful delimiters.
+    /**
+     * As we progress through the source we maintain a string which is the text that has yet to be
+     * tokenized.
      */
-    this.lexerStateStack.push(State.DATA);
+    private final TemplateSource source;
 
-    /*
-     * loop through the entire source and apply different lexing methods depending on what kind of
-     * state we are in at the time.
-     *
-     * This will always start on lexData();
+    /**
+     * The list of tokens that we find and use to create a TokenStream
      */
-    while (this.source.length() > 0) {
-      switch (this.lexerStateStack.peek()) {
-        case DATA:
-          this.tokenizeData();
-          break;
-        case EXECUTE:
-          this.tokenizeBetweenExecuteDelimiters();
-          break;
-        case PRINT:
-          this.tokenizeBetweenPrintDelimiters();
-          break;
-        case COMMENT:
-          this.tokenizeComment();
-          break;
-        case STRING:
-          this.tokenizeString();
-          break;
-        case STRING_INTERPOLATION:
-          this.tokenizeStringInterpolation();
-          break;
-        default:
-          break;
-      }
-    }
+    private final ArrayList<Token> tokens = new ArrayList<>();
 
-    // end of file token
-    this.pushToken(Token.Type.EOF);
-    this.popState();
+    /**
+     * The names found so far, so that a name used many times is only turned into a string once.
+     */
+    private final NameTable names = new NameTable();
 
-    // make sure that all brackets have been closed, else throw an error
-    if (!this.brackets.isEmpty()) {
-      String expected = this.brackets.pop().getLeft();
-      throw new ParserException(null, String.format("Unclosed \"%s\"", expected),
-          this.source.getLineNumber(), this.source.getFilename());
-    }
+    /**
+     * Represents the brackets we are currently inside ordered by how recently we encountered them.
+     * (i.e. peek() will return the most innermost bracket, getLast() will return the outermost).
+     * Brackets in this case includes double quotes. The String value of the pair is the bracket
+     * representation, and the Integer is the line number.
+     */
+    private final LinkedList<Pair<String, Integer>> brackets = new LinkedList<>();
 
-    return new TokenStream(this.tokens, this.source.getFilename());
-  }
+    /**
+     * The state of the lexer is important so that we know what to expect next and to help discover
+     * errors in the template (ex. unclosed comments).
+     */
+    private final Deque<State> lexerStateStack = new ArrayDeque<>();
 
-  private void tokenizeStringInterpolation() {
-    this.logger.trace("Tokenizing String Interpolation");
-    String lastBracket = this.brackets.peek().getLeft();
-    Matcher matcher = this.syntax.getRegexInterpolationClose().matcher(this.source);
-    if (this.syntax.getInterpolationOpenDelimiter().equals(lastBracket) && matcher.lookingAt()) {
-      this.brackets.pop();
-      this.pushToken(Token.Type.STRING_INTERPOLATION_END);
-      this.source.advance(matcher.end());
-      this.popState();
-    } else {
-      this.tokenizeExpression();
-    }
-  }
+    /**
+     * If we encountered an END delimiter that was preceded with a whitespace trim character (ex.
+     * {{ foo -}}) then this boolean is toggled to "true" which tells the lexData() method to trim
+     * leading whitespace from the next text token.
+     */
+    private boolean trimLeadingWhitespaceFromNextData = false;
 
-  private void tokenizeString() {
-    this.logger.trace("Tokenizing String");
-    // interpolation
-    Matcher matcher = this.syntax.getRegexInterpolationOpen().matcher(this.source);
-    if (matcher.lookingAt()) {
-      this.brackets.push(
-          new Pair<>(this.syntax.getInterpolationOpenDelimiter(), this.source.getLineNumber()));
-      this.pushToken(Token.Type.STRING_INTERPOLATION_START);
-      this.source.advance(matcher.end());
-      this.lexerStateStack.push(State.STRING_INTERPOLATION);
-      return;
-    }
+    /**
+     * Whether the last closing delimiter matched was preceded with a whitespace trim character.
+     */
+    private boolean closeDelimiterTrimmed;
 
-    // regular string start (always full string if single quotes)
-    matcher = REGEX_STRING_NON_INTERPOLATED_PART.matcher(this.source);
-    if (matcher.lookingAt() && matcher.end() > 0) {
-      String token = this.source.substring(matcher.end());
-      this.source.advance(matcher.end());
-      this.pushToken(Token.Type.STRING, token);
-      return;
+    private Tokenizer(TemplateSource source) {
+      this.source = source;
     }
 
-    // end of string (which may have contained interpolation)
-    matcher = REGEX_DOUBLEQUOTE.matcher(this.source);
-    if (matcher.lookingAt()) {
-      String expected = this.brackets.pop().getLeft();
+    private TokenStream tokenize() {
+      /*
+       * Start in a DATA state by pushing it to the state stack. This state basically means that we
+       * are NOT in between a pair of meaningful delimiters.
+       */
+      this.lexerStateStack.push(State.DATA);
 
-      if (this.source.charAt(0) != '"') {
-        throw new ParserException(null, String.format("Unclosed \"%s\"", expected),
-            this.source.getLineNumber(), this.source.getFilename());
+      /*
+       * loop through the entire source and apply different lexing methods depending on what kind
+       * of state we are in at the time.
+       *
+       * This will always start on lexData();
+       */
+      while (this.source.length() > 0) {
+        switch (this.lexerStateStack.peek()) {
+          case DATA:
+            this.tokenizeData();
+            break;
+          case EXECUTE:
+            this.tokenizeBetweenExecuteDelimiters();
+            break;
+          case PRINT:
+            this.tokenizeBetweenPrintDelimiters();
+            break;
+          case COMMENT:
+            this.tokenizeComment();
+            break;
+          case STRING:
+            this.tokenizeString();
+            break;
+          case STRING_INTERPOLATION:
+            this.tokenizeStringInterpolation();
+            break;
+          default:
+            break;
+        }
       }
 
+      // end of file token
+      this.pushToken(Token.Type.EOF);
       this.popState();
-      this.source.advance(matcher.end());
-    }
-  }
 
-  /**
-   * The DATA state assumes that we are current NOT in between any pair of meaningful delimiters. We
-   * are currently looking for the next "open" or "start" delimiter, ex. the opening comment
-   * delimiter, or the opening variable delimiter.
-   */
-  private void tokenizeData() {
-    this.logger.trace("Tokenizing Data");
-    // find the next start delimiter
-    Matcher matcher = this.syntax.getRegexStartDelimiters().matcher(this.source);
-    boolean match = matcher.find();
-
-    String text;
-    String startDelimiter = null;
-
-    // if we didn't find another start delimiter, the text
-    // token goes all the way to the end of the template.
-    if (!match) {
-      this.logger
-          .trace("Advancing to the end of the template because no start delimiter was found");
-      text = this.source.toString();
-      this.source.advance(this.source.length());
-    } else {
-      text = this.source.substring(matcher.start());
-      startDelimiter = this.source.substring(matcher.start(), matcher.end());
-      this.logger.trace("Start Deliminter Token string: {}", startDelimiter);
-      // advance to after the start delimiter
-      this.source.advance(matcher.end());
-    }
+      // make sure that all brackets have been closed, else throw an error
+      if (!this.brackets.isEmpty()) {
+        String expected = this.brackets.pop().getLeft();
+        throw new ParserException(null, String.format("Unclosed \"%s\"", expected),
+            this.source.getLineNumber(), this.source.getFilename());
+      }
 
-    // trim leading whitespace from this text if we previously
-    // encountered the appropriate whitespace trim character
-    if (this.trimLeadingWhitespaceFromNextData) {
-      this.logger.trace("Left Trimming text");
-      text = StringUtils.ltrim(text);
-      this.trimLeadingWhitespaceFromNextData = false;
-    }
-    Token textToken = this.pushToken(Type.TEXT, text);
-
-    if (match) {
-      this.checkForLeadingWhitespaceTrim(textToken);
-      if (this.syntax.getCommentOpenDelimiter().equals(startDelimiter)) {
-        // we don't actually push any tokens for comments
-        this.lexerStateStack.push(State.COMMENT);
-      } else if (this.syntax.getPrintOpenDelimiter().equals(startDelimiter)) {
-        this.pushToken(Token.Type.PRINT_START);
-        this.lexerStateStack.push(State.PRINT);
-      } else if ((this.syntax.getExecuteOpenDelimiter().equals(startDelimiter))) {
-        // check for verbatim tag
-        Matcher verbatimStartMatcher = this.syntax.getRegexVerbatimStart().matcher(this.source);
-        if (verbatimStartMatcher.lookingAt()) {
-          this.lexVerbatimData(verbatimStartMatcher);
-          this.lexerStateStack.push(State.DATA);
-        } else {
-          this.pushToken(Token.Type.EXECUTE_START);
-          this.lexerStateStack.push(State.EXECUTE);
+      return new TokenStream(this.tokens, this.source.getFilename());
+    }
+
+    private void tokenizeStringInterpolation() {
+      LexerImpl.this.logger.trace("Tokenizing String Interpolation");
+      String lastBracket = this.brackets.peek().getLeft();
+      if (LexerImpl.this.syntax.getInterpolationOpenDelimiter().equals(lastBracket)) {
+        int end = this.matchDelimiter(this.skipSpaces(0),
+            LexerImpl.this.syntax.getInterpolationCloseDelimiter());
+        if (end >= 0) {
+          this.brackets.pop();
+          this.pushToken(Token.Type.STRING_INTERPOLATION_END);
+          this.source.advance(end);
+          this.popState();
+          return;
         }
       }
+      this.tokenizeExpression();
     }
-  }
 
-  /**
-   * Tokenizes between execute delimiters.
-   */
-  private void tokenizeBetweenExecuteDelimiters() {
-    this.logger.trace("Tokenize between execute delimiters");
-    // check for the trailing whitespace trim character
-    this.checkForTrailingWhitespaceTrim();
+    private void tokenizeString() {
+      LexerImpl.this.logger.trace("Tokenizing String");
+      // interpolation
+      String interpolationOpen = LexerImpl.this.syntax.getInterpolationOpenDelimiter();
+      if (this.source.startsWith(interpolationOpen, 0)) {
+        this.brackets.push(new Pair<>(interpolationOpen, this.source.getLineNumber()));
+        this.pushToken(Token.Type.STRING_INTERPOLATION_START);
+        this.source.advance(interpolationOpen.length());
+        this.lexerStateStack.push(State.STRING_INTERPOLATION);
+        return;
+      }
 
-    Matcher matcher = this.syntax.getRegexExecuteClose().matcher(this.source);
+      // regular string start (always full string if single quotes)
+      int end = this.matchNonInterpolatedPart();
+      if (end > 0) {
+        String token = this.source.substring(end);
+        this.source.advance(end);
+        this.pushToken(Token.Type.STRING, token);
+        return;
+      }
 
-    // check if we are at the execute closing delimiter
-    if (this.brackets.isEmpty() && matcher.lookingAt()) {
-      this.pushToken(Token.Type.EXECUTE_END, this.syntax.getExecuteCloseDelimiter());
-      this.source.advance(matcher.end());
+      // end of string (which may have contained interpolation)
+      String expected = this.brackets.pop().getLeft();
+      if (this.source.charAt(0) != '"') {
+        throw new ParserException(null, String.format("Unclosed \"%s\"", expected),
+            this.source.getLineNumber(), this.source.getFilename());
+      }
       this.popState();
-    } else {
-      this.tokenizeExpression();
+      this.source.advance(1);
     }
-  }
 
-  /**
-   * Tokenizes between print delimiters.
-   */
-  private void tokenizeBetweenPrintDelimiters() {
+    /**
+     * The DATA state assumes that we are current NOT in between any pair of meaningful delimiters.
+     * We are currently looking for the next "open" or "start" delimiter, ex. the opening comment
+     * delimiter, or the opening variable delimiter.
+     */
+    private void tokenizeData() {
+      LexerImpl.this.logger.trace("Tokenizing Data");
+      // find the next start delimiter
+      String printOpen = LexerImpl.this.syntax.getPrintOpenDelimiter();
+      String executeOpen = LexerImpl.this.syntax.getExecuteOpenDelimiter();
+      String commentOpen = LexerImpl.this.syntax.getCommentOpenDelimiter();
+      String startDelimiter = null;
+      int start = 0;
+      int length = this.source.length();
+      for (; start < length; start++) {
+        char c = this.source.charAt(start);
+        if (c == printOpen.charAt(0) && this.source.startsWith(printOpen, start)) {
+          startDelimiter = printOpen;
+        } else if (c == executeOpen.charAt(0) && this.source.startsWith(executeOpen, start)) {
+          startDelimiter = executeOpen;
+        } else if (c == commentOpen.charAt(0) && this.source.startsWith(commentOpen, start)) {
+          startDelimiter = commentOpen;
+        } else {
+          continue;
+        }
+        break;
+      }
 
-    // check for the trailing whitespace trim character
-    this.checkForTrailingWhitespaceTrim();
+      // trim leading whitespace from this text if we previously
+      // encountered the appropriate whitespace trim character
+      int textStart = 0;
+      if (this.trimLeadingWhitespaceFromNextData) {
+        LexerImpl.this.logger.trace("Left Trimming text");
+        textStart = this.skipWhitespace(0, start);
+        this.trimLeadingWhitespaceFromNextData = false;
+      }
+      Token text = this.source.token(Type.TEXT, textStart, start);
+
+      // if we didn't find another start delimiter, the text
+      // token goes all the way to the end of the template.
+      if (startDelimiter == null) {
+        LexerImpl.this.logger
+            .trace("Advancing to the end of the template because no start delimiter was found");
+        this.source.advance(this.source.length());
+      } else {
+        LexerImpl.this.logger.trace("Start Deliminter Token string: {}", startDelimiter);
+        // advance to after the start delimiter
+        this.source.advance(start + startDelimiter.length());
+      }
 
-    Matcher matcher = this.syntax.getRegexPrintClose().matcher(this.source);
+      Token textToken = this.pushToken(text);
 
-    // check if we are at the print closing delimiter
-    if (this.brackets.isEmpty() && matcher.lookingAt()) {
-      this.pushToken(Token.Type.PRINT_END, this.syntax.getPrintCloseDelimiter());
-      this.source.advance(matcher.end());
-      this.popState();
-    } else {
-      this.tokenizeExpression();
+      if (startDelimiter != null) {
+        this.checkForLeadingWhitespaceTrim(textToken);
+        if (commentOpen.equals(startDelimiter)) {
+          // we don't actually push any tokens for comments
+          this.lexerStateStack.push(State.COMMENT);
+        } else if (printOpen.equals(startDelimiter)) {
+          this.pushToken(Token.Type.PRINT_START);
+          this.lexerStateStack.push(State.PRINT);
+        } else {
+          // check for verbatim tag
+          int verbatimStartEnd = this.matchVerbatimStart();
+          if (verbatimStartEnd >= 0) {
+            this.lexVerbatimData(verbatimStartEnd);
+            this.lexerStateStack.push(State.DATA);
+          } else {
+            this.pushToken(Token.Type.EXECUTE_START);
+            this.lexerStateStack.push(State.EXECUTE);
+          }
+        }
+      }
     }
-  }
-
-  /**
-   * Tokenizes between comment delimiters.
-   * <p>
-   * Simply find the closing delimiter for the comment and move the cursor to that point.
-   */
-  private void tokenizeComment() {
-
-    // all we need to do is find the end of the comment.
-    Matcher matcher = this.syntax.getRegexCommentClose().matcher(this.source);
 
-    boolean match = matcher.find(0);
-    if (!match) {
-      throw new ParserException(null, "Unclosed comment.", this.source.getLineNumber(),
-          this.source.getFilename());
+    /**
+     * Tokenizes between execute delimiters.
+     */
+    private void tokenizeBetweenExecuteDelimiters() {
+      LexerImpl.this.logger.trace("Tokenize between execute delimiters");
+      // check for the trailing whitespace trim character
+      this.checkForTrailingWhitespaceTrim();
+
+      // check if we are at the execute closing delimiter
+      String executeClose = LexerImpl.this.syntax.getExecuteCloseDelimiter();
+      int end = this.brackets.isEmpty() ? this.matchCloseDelimiter(0, executeClose) : -1;
+      if (end >= 0) {
+        this.pushToken(Token.Type.EXECUTE_END, executeClose);
+        this.source.advance(end);
+        this.popState();
+      } else {
+        this.tokenizeExpression();
+      }
     }
 
-    /*
-     * check if the commented ended with the whitespace trim character by reversing the comment and
-     * performing a regular forward regex search.
+    /**
+     * Tokenizes between print delimiters.
      */
-    String comment = this.source.substring(matcher.start());
-    String reversedComment = new StringBuilder(comment).reverse().toString();
-    Matcher whitespaceTrimMatcher =
-        this.syntax.getRegexLeadingWhitespaceTrim().matcher(reversedComment);
-    if (whitespaceTrimMatcher.lookingAt()) {
-      this.trimLeadingWhitespaceFromNextData = true;
+    private void tokenizeBetweenPrintDelimiters() {
+
+      // check for the trailing whitespace trim character
+      this.checkForTrailingWhitespaceTrim();
+
+      // check if we are at the print closing delimiter
+      String printClose = LexerImpl.this.syntax.getPrintCloseDelimiter();
+      int end = this.brackets.isEmpty() ? this.matchCloseDelimiter(0, printClose) : -1;
+      if (end >= 0) {
+        this.pushToken(Token.Type.PRINT_END, printClose);
+        this.source.advance(end);
+        this.popState();
+      } else {
+        this.tokenizeExpression();
+      }
     }
 
-    // move cursor to end of comment (and closing delimiter)
-    this.source.advance(matcher.end());
-    this.popState();
-  }
-
-  /**
-   * Tokenizing an expression which can be found within both execute and print regions.
-   */
-  private void tokenizeExpression() {
-    this.logger.trace("Tokenizing Expression");
-    String token;
-    this.source.advanceThroughWhitespace();
-    /*
-     * Matcher matcher = REGEX_WHITESPACE.matcher(source); if (matcher.lookingAt()) {
-     * source.advance(matcher.end()); }
+    /**
+     * Tokenizes between comment delimiters.
+     * <p>
+     * Simply find the closing delimiter for the comment and move the cursor to that point.
      */
+    private void tokenizeComment() {
+
+      // all we need to do is find the end of the comment.
+      String commentClose = LexerImpl.this.syntax.getCommentCloseDelimiter();
+      int start = this.source.indexOf(commentClose, 0);
+      if (start < 0) {
+        throw new ParserException(null, "Unclosed comment.", this.source.getLineNumber(),
+            this.source.getFilename());
+      }
 
-    // operators
-    Matcher matcher = this.regexOperators.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.pushToken(Token.Type.OPERATOR, token);
-      this.source.advance(matcher.end());
-      return;
-    }
+      // check if the commented ended with the whitespace trim character
+      int trimStart = start - LexerImpl.this.reversedWhitespaceTrim.length();
+      if (trimStart > 0 && this.source.startsWith(LexerImpl.this.reversedWhitespaceTrim, trimStart)
+          && isSpace(this.source.charAt(trimStart - 1))) {
+        this.trimLeadingWhitespaceFromNextData = true;
+      }
 
-    // names
-    matcher = REGEX_IDENTIFIER.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.pushToken(Token.Type.NAME, token);
-      this.source.advance(matcher.end());
-      return;
+      // move cursor to end of comment (and closing delimiter)
+      int end = start + commentClose.length();
+      this.source.advance(end + this.trimmedNewlineLength(end));
+      this.popState();
     }
 
-    // long
-    matcher = REGEX_LONG.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end() - 1);
-      this.pushToken(Token.Type.LONG, token);
-      this.source.advance(matcher.end());
-      return;
-    }
+    /**
+     * Tokenizing an expression which can be found within both execute and print regions.
+     */
+    private void tokenizeExpression() {
+      LexerImpl.this.logger.trace("Tokenizing Expression");
+      String token;
+      this.source.advanceThroughWhitespace();
+
+      // operators
+      token = LexerImpl.this.operators.match(this.source);
+      if (token != null) {
+        this.pushToken(Token.Type.OPERATOR, token);
+        this.source.advance(token.length());
+        return;
+      }
 
-    // numbers
-    matcher = REGEX_NUMBER.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.pushToken(Token.Type.NUMBER, token);
-      this.source.advance(matcher.end());
-      return;
-    }
+      // names
+      int end = this.matchIdentifier();
+      if (end > 0) {
+        token = this.names.get(this.source, end);
+        this.pushToken(Token.Type.NAME, token);
+        this.source.advance(end);
+        return;
+      }
 
-    // punctuation
-    if (PUNCTUATION.indexOf(this.source.charAt(0)) >= 0) {
-      String character = String.valueOf(this.source.charAt(0));
+      end = this.skipDigits(0);
+      if (end > 0) {
+        // long
+        if (end < this.source.length() && this.source.charAt(end) == 'L') {
+          token = this.source.substring(end);
+          this.pushToken(Token.Type.LONG, token);
+          this.source.advance(end + 1);
+          return;
+        }
 
-      // opening bracket
-      if ("([{".contains(character)) {
-        this.brackets.push(new Pair<>(character, this.source.getLineNumber()));
+        // numbers
+        if (end + 1 < this.source.length() && this.source.charAt(end) == '.'
+            && isDigit(this.source.charAt(end + 1))) {
+          end = this.skipDigits(end + 1);
+        }
+        token = this.source.substring(end);
+        this.pushToken(Token.Type.NUMBER, token);
+        this.source.advance(end);
+        return;
       }
 
-      // closing bracket
-      else if (")]}".contains(character)) {
-        if (this.brackets.isEmpty()) {
-          throw new ParserException(null, "Unexpected \"" + character + "\"",
-              this.source.getLineNumber(), this.source.getFilename());
-        } else {
-          HashMap<String, String> validPairs = new HashMap<>();
-          validPairs.put("(", ")");
-          validPairs.put("[", "]");
-          validPairs.put("{", "}");
-          String lastBracket = this.brackets.pop().getLeft();
-          String expected = validPairs.get(lastBracket);
-          if (!expected.equals(character)) {
-            throw new ParserException(null, "Unclosed \"" + expected + "\"",
+      // punctuation
+      if (PUNCTUATION.indexOf(this.source.charAt(0)) >= 0) {
+        String character = String.valueOf(this.source.charAt(0));
+
+        // opening bracket
+        if ("([{".contains(character)) {
+          this.brackets.push(new Pair<>(character, this.source.getLineNumber()));
+        }
+
+        // closing bracket
+        else if (")]}".contains(character)) {
+          if (this.brackets.isEmpty()) {
+            throw new ParserException(null, "Unexpected \"" + character + "\"",
                 this.source.getLineNumber(), this.source.getFilename());
+          } else {
+            HashMap<String, String> validPairs = new HashMap<>();
+            validPairs.put("(", ")");
+            validPairs.put("[", "]");
+            validPairs.put("{", "}");
+            String lastBracket = this.brackets.pop().getLeft();
+            String expected = validPairs.get(lastBracket);
+            if (!expected.equals(character)) {
+              throw new ParserException(null, "Unclosed \"" + expected + "\"",
+                  this.source.getLineNumber(), this.source.getFilename());
+            }
           }
         }
+
+        this.pushToken(Token.Type.PUNCTUATION, character);
+        this.source.advance(1);
+        return;
       }
 
-      this.pushToken(Token.Type.PUNCTUATION, character);
-      this.source.advance(1);
-      return;
-    }
+      // Plain (non-interpolated) string
+      end = this.matchPlainString();
+      if (end > 0) {
+        token = this.source.substring(end);
+        this.source.advance(end);
+        token = this.unquoteAndUnescape(token);
+        this.pushToken(Token.Type.STRING, token);
+        return;
+      }
 
-    // Plain (non-interpolated) string
-    matcher = REGEX_STRING_PLAIN.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.source.advance(matcher.end());
-      token = this.unquoteAndUnescape(token);
-      this.pushToken(Token.Type.STRING, token);
-      return;
-    }
+      // Interpolated strings
+      if (this.source.startsWith("\"", 0)) {
+        this.brackets.push(new Pair<>("\"", this.source.getLineNumber()));
+        this.lexerStateStack.push(State.STRING);
+        this.source.advance(1);
+        return;
+      }
 
-    // Interpolated strings
-    matcher = REGEX_DOUBLEQUOTE.matcher(this.source);
-    if (matcher.lookingAt()) {
-      this.brackets.push(new Pair<>("\"", this.source.getLineNumber()));
-      this.lexerStateStack.push(State.STRING);
-      this.source.advance(matcher.end());
-      return;
+      // we should have found something and returned by this point
+      throw new ParserException(null,
+          String.format("Unexpected character [%s]", this.source.charAt(0)),
+          this.source.getLineNumber(), this.source.getFilename());
     }
 
-    // we should have found something and returned by this point
-    throw new ParserException(null,
-        String.format("Unexpected character [%s]", this.source.charAt(0)),
-        this.source.getLineNumber(), this.source.getFilename());
-  }
+    /**
+     * This method assumes the provided {@code str} starts with a single or double quote. It
+     * removes the wrapping quotes, and un-escapes any quotes within the string.
+     */
+    private String unquoteAndUnescape(String str) {
+      char quotationType = str.charAt(0);
 
-  /**
-   * This method assumes the provided {@code str} starts with a single or double quote. It removes
-   * the wrapping quotes, and un-escapes any quotes within the string.
-   */
-  private String unquoteAndUnescape(String str) {
-    char quotationType = str.charAt(0);
+      // remove first and last quotation marks
+      str = str.substring(1, str.length() - 1);
 
-    // remove first and last quotation marks
-    str = str.substring(1, str.length() - 1);
+      // remove backslashes used to escape inner quotation marks
+      int index = str.indexOf('\\');
+      if (index < 0) {
+        return str;
+      }
+      StringBuilder unescaped = new StringBuilder(str.length()).append(str, 0, index);
+      for (int i = index; i < str.length(); i++) {
+        char c = str.charAt(i);
+        if (c == '\\' && i + 1 < str.length() && str.charAt(i + 1) == quotationType) {
+          c = quotationType;
+          i++;
+        }
+        unescaped.append(c);
+      }
+      return unescaped.toString();
+    }
+
+    private void checkForLeadingWhitespaceTrim(Token leadingToken) {
+      String whitespaceTrim = LexerImpl.this.syntax.getWhitespaceTrim();
+      int end = whitespaceTrim.length();
+      if (this.source.startsWith(whitespaceTrim, 0) && end < this.source.length()
+          && isSpace(this.source.charAt(end))) {
+        LexerImpl.this.logger.trace("Found Leading Whitespace Trim Character");
+        if (leadingToken != null) {
+          LexerImpl.this.logger.trace("Right trimming leading token: {}", leadingToken);
+          leadingToken.trimTrailingWhitespace();
+        }
+        this.source.advance(this.skipSpaces(end));
+      }
 
-    // remove backslashes used to escape inner quotation marks
-    if (quotationType == '\'') {
-      str = str.replaceAll("\\\\(')", "$1");
-    } else if (quotationType == '"') {
-      str = str.replaceAll("\\\\(\")", "$1");
     }
-    return str;
-  }
-
-  private void checkForLeadingWhitespaceTrim(Token leadingToken) {
-
-    Matcher whitespaceTrimMatcher =
-        this.syntax.getRegexLeadingWhitespaceTrim().matcher(this.source);
 
-    if (whitespaceTrimMatcher.lookingAt()) {
-      this.logger.trace("Found Leading Whitespace Trim Character");
-      if (leadingToken != null) {
-        this.logger.trace("Right trimming leading token: {}", leadingToken);
-        leadingToken.setValue(StringUtils.rtrim(leadingToken.getValue()));
+    private void checkForTrailingWhitespaceTrim() {
+      int index = this.skipSpaces(0);
+      String whitespaceTrim = LexerImpl.this.syntax.getWhitespaceTrim();
+      if (this.source.startsWith(whitespaceTrim, index)) {
+        index += whitespaceTrim.length();
+        if (this.source.startsWith(LexerImpl.this.syntax.getPrintCloseDelimiter(), index)
+            || this.source.startsWith(LexerImpl.this.syntax.getExecuteCloseDelimiter(), index)
+            || this.source.startsWith(LexerImpl.this.syntax.getCommentCloseDelimiter(), index)) {
+          this.trimLeadingWhitespaceFromNextData = true;
+        }
       }
-      this.source.advance(whitespaceTrimMatcher.end());
     }
 
-  }
+    /**
+     * Implementation of the "verbatim" tag
+     */
+    private void lexVerbatimData(int verbatimStartEnd) {
+
+      // move cursor past the opening verbatim tag
+      this.source.advance(verbatimStartEnd);
+
+      // look for the "endverbatim" tag and storing everything between
+      // now and then into a TEXT node
+      String executeOpen = LexerImpl.this.syntax.getExecuteOpenDelimiter();
+      String whitespaceTrim = LexerImpl.this.syntax.getWhitespaceTrim();
+      int start = this.source.indexOf(executeOpen, 0);
+      int end = -1;
+      boolean leadingTrim = false;
+      boolean trailingTrim = false;
+      while (start >= 0) {
+        int index = start + executeOpen.length();
+        if (this.source.startsWith(whitespaceTrim, index)) {
+          end = this.matchEndVerbatim(index + whitespaceTrim.length());
+          leadingTrim = end >= 0;
+        }
+        if (end < 0) {
+          end = this.matchEndVerbatim(index);
+        }
+        if (end >= 0) {
+          trailingTrim = this.closeDelimiterTrimmed;
+          break;
+        }
+        start = this.source.indexOf(executeOpen, start + 1);
+      }
 
-  private void checkForTrailingWhitespaceTrim() {
-    Matcher whitespaceTrimMatcher =
-        this.syntax.getRegexTrailingWhitespaceTrim().matcher(this.source);
+      // check for EOF
+      if (end < 0) {
+        throw new ParserException(null, "Unclosed verbatim tag.", this.source.getLineNumber(),
+            this.source.getFilename());
+      }
 
-    if (whitespaceTrimMatcher.lookingAt()) {
-      this.trimLeadingWhitespaceFromNextData = true;
-    }
-  }
+      // the text following the verbatim start tag is always left trimmed
+      Token verbatimText = this.source.token(Type.TEXT, this.skipWhitespace(0, start), start);
 
-  /**
-   * Implementation of the "verbatim" tag
-   */
-  private void lexVerbatimData(Matcher verbatimStartMatcher) {
+      // check if the verbatim end tag had a leading whitespace trim
+      if (leadingTrim) {
+        verbatimText.trimTrailingWhitespace();
+      }
 
-    // move cursor past the opening verbatim tag
-    this.source.advance(verbatimStartMatcher.end());
+      // check if the verbatim end tag had a trailing whitespace trim
+      if (trailingTrim) {
+        this.trimLeadingWhitespaceFromNextData = true;
+      }
 
-    // look for the "endverbatim" tag and storing everything between
-    // now and then into a TEXT node
-    Matcher verbatimEndMatcher = this.syntax.getRegexVerbatimEnd().matcher(this.source);
+      // move cursor past the verbatim text and end delimiter
+      this.source.advance(end);
 
-    // check for EOF
-    if (!verbatimEndMatcher.find()) {
-      throw new ParserException(null, "Unclosed verbatim tag.", this.source.getLineNumber(),
-          this.source.getFilename());
+      this.pushToken(verbatimText);
     }
-    String verbatimText = this.source.substring(verbatimEndMatcher.start());
 
-    // check if the verbatim start tag has a trailing whitespace trim
-    if (verbatimStartMatcher.group(0) != null) {
-      verbatimText = StringUtils.ltrim(verbatimText);
+    /**
+     * Matches the rest of a verbatim start tag, from right after the execute open delimiter.
+     *
+     * @return The end of the tag, including a trimmed newline, or -1 if there is none
+     */
+    private int matchVerbatimStart() {
+      int index = this.skipSpaces(0);
+      if (!this.source.startsWith(VERBATIM, index)) {
+        return -1;
+      }
+      return this.matchCloseDelimiter(index + VERBATIM.length(),
+          LexerImpl.this.syntax.getExecuteCloseDelimiter());
     }
 
-    // check if the verbatim end tag had a leading whitespace trim
-    if (verbatimEndMatcher.group(1) != null) {
-      verbatimText = StringUtils.rtrim(verbatimText);
+    /**
+     * Matches the rest of a verbatim end tag, from right after the execute open delimiter and its
+     * whitespace trim character if any.
+     *
+     * @return The end of the tag, including a trimmed newline, or -1 if there is none
+     */
+    private int matchEndVerbatim(int index) {
+      index = this.skipSpaces(index);
+      if (!this.source.startsWith(END_VERBATIM, index)) {
+        return -1;
+      }
+      return this.matchCloseDelimiter(index + END_VERBATIM.length(),
+          LexerImpl.this.syntax.getExecuteCloseDelimiter());
     }
 
-    // check if the verbatim end tag had a trailing whitespace trim
-    if (verbatimEndMatcher.group(2) != null) {
-      this.trimLeadingWhitespaceFromNextData = true;
+    /**
+     * Matches a closing delimiter, preceded by whitespace and an optional whitespace trim
+     * character, and followed by a trimmed newline.
+     *
+     * @return The end of the delimiter, including a trimmed newline, or -1 if there is none
+     */
+    private int matchCloseDelimiter(int index, String delimiter) {
+      index = this.skipSpaces(index);
+      String whitespaceTrim = LexerImpl.this.syntax.getWhitespaceTrim();
+      int end = -1;
+      if (this.source.startsWith(whitespaceTrim, index)) {
+        end = this.matchDelimiter(index + whitespaceTrim.length(), delimiter);
+      }
+      this.closeDelimiterTrimmed = end >= 0;
+      if (end < 0) {
+        end = this.matchDelimiter(index, delimiter);
+      }
+      return end < 0 ? -1 : end + this.trimmedNewlineLength(end);
     }
 
-    // move cursor past the verbatim text and end delimiter
-    this.source.advance(verbatimEndMatcher.end());
-
-    this.pushToken(Type.TEXT, verbatimText);
-  }
-
-  /**
-   * Create a Token with a Token Type but without no value onto the list of tokens that we are
-   * maintaining.
-   *
-   * @param type The type of Token we are creating
-   */
-  private Token pushToken(Token.Type type) {
-    Token token = this.pushToken(type, null);
-    return token;
-  }
+    /**
+     * @return The end of the delimiter or -1 if the delimiter is not found at the index
+     */
+    private int matchDelimiter(int index, String delimiter) {
+      return this.source.startsWith(delimiter, index) ? index + delimiter.length() : -1;
+    }
 
-  /**
-   * Create a Token of a certain type and value and push it into the list of tokens that we are
-   * maintaining. `
-   *
-   * @param type The type of token we are creating
-   * @param value The value of the new token
-   */
-  private Token pushToken(Token.Type type, String value) {
-    // ignore empty text tokens
-    if (type.equals(Token.Type.TEXT) && (value == null || "".equals(value))) {
-      this.logger.trace("Skipping empty text token");
-      return null;
+    /**
+     * Returns the length of the newline at an index, if any and if newlines following a tag are
+     * trimmed.
+     */
+    private int trimmedNewlineLength(int index) {
+      if (!LexerImpl.this.syntax.isEnableNewLineTrimming() || index >= this.source.length()) {
+        return 0;
+      }
+      char c = this.source.charAt(index);
+      if ((c == '\r' || c == '\n') && index + 1 < this.source.length()) {
+        char next = this.source.charAt(index + 1);
+        if ((c == '\r' && next == '\n') || (c == '\n' && next == '\r')) {
+          return 2;
+        }
+      }
+      return c == '\r' || c == '\n' || c == '\u0085' || c == '\u2028'
+          || c == '\u2029' ? 1 : 0;
     }
 
-    Token token = new Token(type, value, this.source.getLineNumber());
-    this.tokens.add(token);
-    this.logger.trace("Pushing Token: {}", token);
+    /**
+     * Matches the part of a double quoted string up to the first interpolation or to the closing
+     * quote.
+     *
+     * @return The end of the part
+     */
+    private int matchNonInterpolatedPart() {
+      int length = this.source.length();
+      int index = 0;
+      while (index < length) {
+        char c = this.source.charAt(index);
+        if (c == '\\') {
+          if (index + 1 == length) {
+            break;
+          }
+          index += 2;
+        } else if (c == '#') {
+          if (index + 1 < length && this.source.charAt(index + 1) == '{') {
+            break;
+          }
+          index++;
+        } else if (c == '"') {
+          break;
+        } else {
+          index++;
+        }
+      }
+      return index;
+    }
 
-    return token;
-  }
+    /**
+     * Matches single quoted strings and double quoted strings without interpolation, ignoring
+     * escaped quotation marks.
+     *
+     * @return The end of the string, including the closing quote, or -1 if there is none
+     */
+    private int matchPlainString() {
+      int length = this.source.length();
+      if (length == 0) {
+        return -1;
+      }
+      char quote = this.source.charAt(0);
+      if (quote != '"' && quote != '\'') {
+        return -1;
+      }
+      int index = 1;
+      while (index < length) {
+        char c = this.source.charAt(index);
+        if (c == quote) {
+          return index + 1;
+        } else if (c == '\\') {
+          index += 2;
+        } else if (c == '#' && quote == '"') {
+          // double quoted strings with a hash may be interpolated
+          return -1;
+        } else {
+          index++;
+        }
+      }
+      return -1;
+    }
 
-  /**
-   * Pop state from the stack
-   */
-  private void popState() {
-    this.lexerStateStack.pop();
-  }
+    /**
+     * Matches an identifier, which starts with a letter or an underscore followed by letters,
+     * digits and underscores.
+     *
+     * @return The end of the identifier, or 0 if there is none
+     */
+    private int matchIdentifier() {
+      int length = this.source.length();
+      int index = 0;
+      while (index < length) {
+        int codePoint = this.source.codePointAt(index);
+        if (!(codePoint == '_' || Character.isLetter(codePoint)
+            || (index > 0 && Character.isDigit(codePoint)))) {
+          break;
+        }
+        index += Character.charCount(codePoint);
+      }
+      return index;
+    }
 
-  /**
-   * Retrieves the operators (both unary and binary) from the PebbleEngine and then dynamically
-   * creates one giant regular expression to detect for the existence of one of these operators.
-   */
-  private void buildOperatorRegex() {
+    private int skipDigits(int index) {
+      int length = this.source.length();
+      while (index < length && isDigit(this.source.charAt(index))) {
+        index++;
+      }
+      return index;
+    }
 
-    List<String> operators = new ArrayList<>();
+    private int skipSpaces(int index) {
+      int length = this.source.length();
+      while (index < length && isSpace(this.source.charAt(index))) {
+        index++;
+      }
+      return index;
+    }
 
-    for (UnaryOperator operator : this.unaryOperators) {
-      operators.add(operator.getSymbol());
+    private int skipWhitespace(int index, int end) {
+      while (index < end && Character.isWhitespace(this.source.charAt(index))) {
+        index++;
+      }
+      return index;
     }
 
-    for (BinaryOperator operator : this.binaryOperators) {
-      operators.add(operator.getSymbol());
+    /**
+     * Create a Token with a Token Type but without no value onto the list of tokens that we are
+     * maintaining.
+     *
+     * @param type The type of Token we are creating
+     */
+    private Token pushToken(Token.Type type) {
+      return this.pushToken(type, null);
     }
 
-    /*
-     * Since java's matcher doesn't conform with the posix standard of matching the longest
-     * alternative (it matches the first alternative), we must first sort all of the operators by
-     * length before creating the regex. This is to help match "is not" over "is".
+    /**
+     * Create a Token of a certain type and value and push it into the list of tokens that we are
+     * maintaining. `
+     *
+     * @param type The type of token we are creating
+     * @param value The value of the new token
      */
-    operators.sort(StringLengthComparator.INSTANCE);
+    private Token pushToken(Token.Type type, String value) {
+      // ignore empty text tokens
+      if (type.equals(Token.Type.TEXT) && (value == null || "".equals(value))) {
+        LexerImpl.this.logger.trace("Skipping empty text token");
+        return null;
+      }
 
-    StringBuilder regex = new StringBuilder("^");
+      Token token = new Token(type, value, this.source.getLineNumber());
+      this.tokens.add(token);
+      LexerImpl.this.logger.trace("Pushing Token: {}", token);
 
-    boolean isFirst = true;
-    for (String operator : operators) {
-      if (isFirst) {
-        isFirst = false;
-      } else {
-        regex.append("|");
-      }
-      regex.append(Pattern.quote(operator));
+      return token;
+    }
 
-      /*
-       * If the operator ends in an alpha character we use a negative lookahead assertion to make
-       * sure the next character in the stream is NOT an alpha character. This ensures user can type
-       * "organization" without the "or" being parsed as an operator.
-       */
-      char nextChar = operator.charAt(operator.length() - 1);
-      if (Character.isLetter(nextChar) || Character.getType(nextChar) == Character.LETTER_NUMBER) {
-        regex.append("(?![a-zA-Z0-9_])");
+    /**
+     * Push a text token which has been sliced from the source, at the current line number.
+     *
+     * @param token The text token
+     * @return The token or null if it is empty and has been ignored
+     */
+    private Token pushToken(Token token) {
+      // ignore empty text tokens
+      if (token.getValueLength() == 0) {
+        LexerImpl.this.logger.trace("Skipping empty text token");
+        return null;
       }
+
+      token.setLineNumber(this.source.getLineNumber());
+      this.tokens.add(token);
+      LexerImpl.this.logger.trace("Pushing Token: {}", token);
+
+      return token;
     }
 
-    this.regexOperators = Pattern.compile(regex.toString());
+    /**
+     * Pop state from the stack
+     */
+    private void popState() {
+      this.lexerStateStack.pop();
+    }
   }
 
 }
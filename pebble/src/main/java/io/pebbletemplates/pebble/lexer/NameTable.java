@@ -0,0 +1,61 @@
+/*
+ * This file is part of Pebble. <p> Copyright (c) 2014 by Mitchell Bösecke <p> For the full
+ * copyright and license information, please view the LICENSE file that was distributed with this
+ * source code.
+ */
+package io.pebbletemplates.pebble.lexer;
+
+/**
+ * The names found while tokenizing a template. A name is looked up directly in the source, so a
+ * string is only created, and interned, the first time a name is found.
+ */
+final class NameTable {
+
+  private String[] names = new String[64];
+
+  private int size;
+
+  /**
+   * Returns the name at the beginning of the source.
+   *
+   * @param source The remaining source
+   * @param length The length of the name
+   * @return The interned name
+   */
+  String get(TemplateSource source, int length) {
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+    int mask = this.names.length - 1;
+    int index = hash & mask;
+    String name;
+    while ((name = this.names[index]) != null) {
+      if (name.hashCode() == hash && name.length() == length && source.startsWith(name, 0)) {
+        return name;
+      }
+      index = (index + 1) & mask;
+    }
+    name = source.substring(length).intern();
+    this.names[index] = name;
+    if (++this.size * 2 > this.names.length) {
+      this.rehash();
+    }
+    return name;
+  }
+
+  private void rehash() {
+    String[] names = new String[this.names.length * 2];
+    int mask = names.length - 1;
+    for (String name : this.names) {
+      if (name != null) {
+        int index = name.hashCode() & mask;
+        while (names[index] != null) {
+          index = (index + 1) & mask;
+        }
+        names[index] = name;
+      }
+    }
+    this.names = names;
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of Pebble. <p> Copyright (c) 2014 by Mitchell Bösecke <p> For the full
+ * copyright and license information, please view the LICENSE file that was distributed with this
+ * source code.
+ */
+package io.pebbletemplates.pebble.lexer;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A trie of the symbols of the operators, used by {@link LexerImpl} to find the operator at the
+ * beginning of the remaining source. It is built once and is immutable afterwards.
+ */
+final class OperatorTrie {
+
+  private final Node root = new Node();
+
+  /**
+   * Constructor
+   *
+   * @param symbols The symbols of the operators
+   */
+  OperatorTrie(Collection<String> symbols) {
+    for (String symbol : symbols) {
+      if (symbol.isEmpty()) {
+        continue;
+      }
+      Node node = this.root;
+      for (int i = 0; i < symbol.length(); i++) {
+        node = node.childOrCreate(symbol.charAt(i));
+      }
+      node.symbol = symbol;
+      /*
+       * If the operator ends in an alpha character the next character in the source must NOT be an
+       * alpha character. This ensures user can type "organization" without the "or" being parsed
+       * as an operator.
+       */
+      char lastChar = symbol.charAt(symbol.length() - 1);
+      node.requiresBoundary = Character.isLetter(lastChar)
+          || Character.getType(lastChar) == Character.LETTER_NUMBER;
+    }
+  }
+
+  /**
+   * Returns the longest operator found at the beginning of the source.
+   *
+   * @param source The remaining source
+   * @return The symbol of the operator or null if there is none
+   */
+  String match(TemplateSource source) {
+    String match = null;
+    Node node = this.root;
+    int length = source.length();
+    for (int i = 0; i < length; i++) {
+      node = node.child(source.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.symbol != null && (!node.requiresBoundary || i + 1 == length
+          || !isBoundaryChar(source.charAt(i + 1)))) {
+        match = node.symbol;
+      }
+    }
+    return match;
+  }
+
+  private static boolean isBoundaryChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static final class Node {
+
+    private char[] keys = new char[0];
+
+    private Node[] children = new Node[0];
+
+    private String symbol;
+
+    private boolean requiresBoundary;
+
+    private Node child(char key) {
+      for (int i = 0; i < this.keys.length; i++) {
+        if (this.keys[i] == key) {
+          return this.children[i];
+        }
+      }
+      return null;
+    }
+
+    private Node childOrCreate(char key) {
+      Node child = this.child(key);
+      if (child == null) {
+        child = new Node();
+        this.keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+        this.children = Arrays.copyOf(this.children, this.children.length + 1);
+        this.keys[this.keys.length - 1] = key;
+        this.children[this.children.length - 1] = child;
+      }
+      return child;
+    }
+  }
+}
@@ -1,24 +1,21 @@
 package io.pebbletemplates.pebble.lexer;
 
+import io.pebbletemplates.pebble.utils.ContentReader;
+
 import java.io.IOException;
 import java.io.Reader;
 import java.util.Arrays;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * An implementation of CharSequence that is tuned to be used specifically by {@link LexerImpl}. It
  * is possible to advance through the sequence without allocating a copy and it is possible to
- * perform regex matches from the logical beginning of the remaining un-tokenized source. This class
- * will also standardize newline characters from different architectures.
+ * scan the remaining un-tokenized source from its logical beginning. This class will also
+ * standardize newline characters from different architectures.
  *
  * @author mbosecke
  */
 public class TemplateSource implements CharSequence {
 
-  private final Logger logger = LoggerFactory.getLogger(TemplateSource.class);
-
   /**
    * The characters found within the template.
    */
@@ -57,31 +54,53 @@ public class TemplateSource implements CharSequence {
    * @throws IOException Exceptions thrown from the reader
    */
   public TemplateSource(Reader reader, String filename) throws IOException {
-    this.filename = filename;
-    this.source = new char[DEFAULT_CAPACITY];
-    copyReaderIntoCharArray(reader);
+    this(reader, filename, -1);
   }
 
   /**
-   * Read the contents of the template into the internal char[].
+   * Constructor
+   *
+   * @param reader Reader provided by the Loader
+   * @param filename Filename of the template
+   * @param expectedLength The estimated number of characters of the template or -1 if unknown
+   * @throws IOException Exceptions thrown from the reader
    */
-  private void copyReaderIntoCharArray(Reader reader) throws IOException {
-    char[] buffer = new char[1024 * 4];
-    int amountJustRead;
-    while ((amountJustRead = reader.read(buffer)) != -1) {
-
-      ensureCapacity(size + amountJustRead);
-      append(buffer, amountJustRead);
+  public TemplateSource(Reader reader, String filename, int expectedLength) throws IOException {
+    this.filename = filename;
+    if (reader instanceof ContentReader && ((ContentReader) reader).getPosition() == 0) {
+      // the whole template was decoded at once, there is no need to copy it
+      ContentReader content = (ContentReader) reader;
+      this.source = content.getBuffer();
+      this.size = content.getLength();
+      content.close();
+      return;
     }
-    reader.close();
+    this.source = new char[expectedLength >= 0 ? expectedLength : DEFAULT_CAPACITY];
+    copyReaderIntoCharArray(reader);
   }
 
   /**
-   * Append characters to the internal array.
+   * Read the contents of the template straight into the internal char[].
    */
-  private void append(char[] characters, int amount) {
-    System.arraycopy(characters, 0, source, size, amount);
-    size += amount;
+  private void copyReaderIntoCharArray(Reader reader) throws IOException {
+    while (true) {
+      if (size == source.length) {
+        // the array is full, which is expected when the length was known up front
+        int character = reader.read();
+        if (character == -1) {
+          break;
+        }
+        ensureCapacity(size + 1);
+        source[size++] = (char) character;
+        continue;
+      }
+      int amountJustRead = reader.read(source, size, source.length - size);
+      if (amountJustRead == -1) {
+        break;
+      }
+      size += amountJustRead;
+    }
+    reader.close();
   }
 
   /**
@@ -115,16 +134,10 @@ public class TemplateSource implements CharSequence {
    * @param amount Amount of characters to advance by
    */
   public void advance(int amount) {
-	logger.trace("Advancing amount: {}", amount);
-    int index = 0;
-    while (index < amount) {
-      int sizeOfNewline = advanceThroughNewline(index);
-
-      if (sizeOfNewline > 0) {
-        index += sizeOfNewline;
-      } else {
-        index++;
-      }
+    int index = this.offset;
+    int end = this.offset + amount;
+    while (index < end) {
+      index += this.advanceThroughNewline(index);
     }
 
     this.size -= amount;
@@ -132,53 +145,115 @@ public class TemplateSource implements CharSequence {
   }
 
   public void advanceThroughWhitespace() {
-    int index = 0;
-    while (Character.isWhitespace(this.charAt(index))) {
-      int sizeOfNewline = advanceThroughNewline(index);
-      if (sizeOfNewline > 0) {
-        index += sizeOfNewline;
-      } else {
-        index++;
-      }
+    int index = this.offset;
+    int end = this.offset + this.size;
+    while (index < end && Character.isWhitespace(this.source[index])) {
+      index += this.advanceThroughNewline(index);
     }
-    logger.trace("Advanced through {} characters of whitespace.", index);
-    this.size -= index;
-    this.offset += index;
+    this.size -= index - this.offset;
+    this.offset = index;
   }
 
   /**
-   * Advances through possible newline character and returns how many characters were used to
-   * represent the newline (windows uses two characters to represent one newline).
+   * Advances through the character at an absolute index, which may be a newline, and returns how
+   * many characters have been advanced through (windows uses two characters to represent one
+   * newline).
    *
-   * @param index The index of the potential newline character
+   * @param index The absolute index of the character
    */
   private int advanceThroughNewline(int index) {
-    char character = this.charAt(index);
-    int numOfCharacters = 0;
+    char character = this.source[index];
 
-    // windows newline
-    if ('\r' == character && '\n' == this.charAt(index + 1)) {
+    if (character > '\r' && character < '\u0085') {
+      return 1;
+    }
 
+    // windows newline
+    if ('\r' == character && index + 1 < this.offset + this.size
+        && '\n' == this.source[index + 1]) {
       this.lineNumber++;
-      numOfCharacters = 2;
+      return 2;
 
       // various other newline characters
     } else if ('\n' == character || '\r' == character || '\u0085' == character
         || '\u2028' == character
         || '\u2029' == character) {
-
       this.lineNumber++;
-      numOfCharacters = 1;
     }
-    return numOfCharacters;
+    return 1;
+  }
+
+  /**
+   * Checks whether the remaining source contains a string at an index.
+   *
+   * @param string The string to look for
+   * @param index The index, relative to the remaining source
+   * @return Whether the string is found at the index
+   */
+  public boolean startsWith(String string, int index) {
+    int length = string.length();
+    if (index < 0 || index + length > this.size) {
+      return false;
+    }
+    int start = this.offset + index;
+    for (int i = 0; i < length; i++) {
+      if (this.source[start + i] != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the first occurrence of a string in the remaining source.
+   *
+   * @param string The string to look for
+   * @param fromIndex The index to start looking from, relative to the remaining source
+   * @return The index of the string, relative to the remaining source, or -1 if it is not found
+   */
+  public int indexOf(String string, int fromIndex) {
+    if (string.isEmpty()) {
+      return fromIndex <= this.size ? fromIndex : -1;
+    }
+    char first = string.charAt(0);
+    int last = this.size - string.length();
+    for (int i = Math.max(fromIndex, 0); i <= last; i++) {
+      if (this.source[this.offset + i] == first && this.startsWith(string, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the code point at an index of the remaining source, combining surrogate pairs.
+   *
+   * @param index The index, relative to the remaining source
+   * @return The code point
+   */
+  public int codePointAt(int index) {
+    return Character.codePointAt(this.source, this.offset + index, this.offset + this.size);
   }
 
   public String substring(int start, int end) {
-    return new String(Arrays.copyOfRange(source, this.offset + start, this.offset + end));
+    return new String(source, this.offset + start, end - start);
   }
 
   public String substring(int end) {
-    return new String(Arrays.copyOfRange(source, offset, offset + end));
+    return new String(source, offset, end);
+  }
+
+  /**
+   * Creates a token whose value is a slice of the remaining source, the characters are only
+   * copied into a string if the value of the token is asked for.
+   *
+   * @param type The type of the token
+   * @param start The index of the first character, relative to the remaining source
+   * @param end The index after the last character, relative to the remaining source
+   * @return The token
+   */
+  Token token(Token.Type type, int start, int end) {
+    return new Token(type, this.source, this.offset + start, end - start, this.lineNumber);
   }
 
   @Override
@@ -193,11 +268,11 @@ public class TemplateSource implements CharSequence {
 
   @Override
   public CharSequence subSequence(int start, int end) {
-    return new String(Arrays.copyOfRange(source, this.offset + start, this.offset + end));
+    return this.substring(start, end);
   }
 
   public String toString() {
-    return new String(Arrays.copyOfRange(source, offset, offset + size));
+    return new String(source, offset, size);
   }
 
   public int getLineNumber() {
@@ -8,12 +8,24 @@
  */
 package io.pebbletemplates.pebble.lexer;
 
+import io.pebbletemplates.pebble.utils.StringUtils;
+
 import java.util.Arrays;
 
 public class Token {
 
   private String value;
 
+  /**
+   * The characters of the value when it is a slice of the template source, in which case the
+   * value is only created when it is asked for.
+   */
+  private char[] chars;
+
+  private int offset;
+
+  private int length;
+
   private Type type;
 
   private int lineNumber;
@@ -28,6 +40,14 @@ public class Token {
     this.lineNumber = lineNumber;
   }
 
+  Token(Type type, char[] chars, int offset, int length, int lineNumber) {
+    this.type = type;
+    this.chars = chars;
+    this.offset = offset;
+    this.length = length;
+    this.lineNumber = lineNumber;
+  }
+
   public boolean test(Type type) {
     return this.test(type, new String[0]);
   }
@@ -35,17 +55,64 @@ public class Token {
   public boolean test(Type type, String... values) {
     boolean test = true;
     if (values.length > 0) {
-      test = Arrays.asList(values).contains(this.value);
+      test = Arrays.asList(values).contains(this.getValue());
     }
     return test && this.type.equals(type);
   }
 
   public String getValue() {
+    if (this.value == null && this.chars != null) {
+      this.value = new String(this.chars, this.offset, this.length);
+    }
     return this.value;
   }
 
   public void setValue(String value) {
     this.value = value;
+    this.chars = null;
+  }
+
+  /**
+   * Returns the array holding the characters of the value, which may be shared with other tokens
+   * and must not be modified. The value starts at {@link #getValueOffset()} in this array.
+   *
+   * @return The array holding the value or null if the token has no value
+   */
+  public char[] getValueChars() {
+    if (this.chars == null && this.value != null) {
+      this.chars = this.value.toCharArray();
+      this.offset = 0;
+      this.length = this.chars.length;
+    }
+    return this.chars;
+  }
+
+  public int getValueOffset() {
+    this.getValueChars();
+    return this.offset;
+  }
+
+  public int getValueLength() {
+    this.getValueChars();
+    return this.length;
+  }
+
+  /**
+   * Removes the trailing whitespace from the value.
+   */
+  void trimTrailingWhitespace() {
+    if (this.chars == null) {
+      this.value = StringUtils.rtrim(this.value);
+      return;
+    }
+    int end = this.offset + this.length;
+    while (end > this.offset && Character.isWhitespace(this.chars[end - 1])) {
+      end--;
+    }
+    if (end - this.offset != this.length) {
+      this.length = end - this.offset;
+      this.value = null;
+    }
   }
 
   public Type getType() {
@@ -66,7 +133,7 @@ public class Token {
 
   @Override
   public String toString() {
-    return "Token [value=" + value + ", type=" + type + ", lineNumber=" + lineNumber + "]";
+    return "Token [value=" + this.getValue() + ", type=" + type + ", lineNumber=" + lineNumber + "]";
   }
 
 }
@@ -1,15 +1,15 @@
 package io.pebbletemplates.pebble.loader;
 
 import io.pebbletemplates.pebble.error.LoaderException;
+import io.pebbletemplates.pebble.utils.ContentReader;
 import io.pebbletemplates.pebble.utils.PathUtils;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,9 +38,6 @@ public abstract class AbstractServletLoader implements Loader<String> {
   @Override
   public Reader getReader(String templateName) {
 
-    InputStreamReader isr = null;
-    Reader reader = null;
-
     InputStream is = null;
     String location = this.getLocation(templateName);
 
@@ -53,12 +50,10 @@ public abstract class AbstractServletLoader implements Loader<String> {
     }
 
     try {
-      isr = new InputStreamReader(is, this.charset);
-      reader = new BufferedReader(isr);
-    } catch (UnsupportedEncodingException e) {
+      return ContentReader.read(is, -1, Charset.forName(this.charset), -1);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new LoaderException(e, "Could not read template \"" + location + "\"");
     }
-
-    return reader;
   }
 
   private String getLocation(String templateName) {
@@ -9,16 +9,27 @@
 package io.pebbletemplates.pebble.loader;
 
 import io.pebbletemplates.pebble.error.LoaderException;
+import io.pebbletemplates.pebble.utils.ContentReader;
 import io.pebbletemplates.pebble.utils.PathUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
 
 /**
  * Uses a classloader to find templates located on the classpath.
@@ -61,11 +72,10 @@ public class ClasspathLoader implements Loader<String> {
     }
 
     try {
-      return new BufferedReader(new InputStreamReader(is, this.charset));
-    } catch (UnsupportedEncodingException e) {
+      return ContentReader.read(is, -1, Charset.forName(this.charset), -1);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new LoaderException(e, "Could not read template \"" + location + "\"");
     }
-
-    return null;
   }
 
   private String getLocation(String templateName) {
@@ -129,4 +139,58 @@ public class ClasspathLoader implements Loader<String> {
   public boolean resourceExists(String templateName) {
     return this.rcl.getResource(this.getLocation(templateName)) != null;
   }
+
+  /**
+   * Lists the templates found below the prefix, in directories and in jar files of the classpath.
+   */
+  @Override
+  public Collection<String> listTemplateNames() {
+    // without a prefix the templates could be anywhere on the classpath
+    if (this.getPrefix() == null) {
+      return Collections.emptyList();
+    }
+    String directory = this.getPrefix();
+    if (!directory.endsWith(Character.toString(this.expectedSeparator))) {
+      directory += this.expectedSeparator;
+    }
+    Set<String> names = new LinkedHashSet<>();
+    try {
+      Enumeration<URL> urls = this.rcl.getResources(directory);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if ("file".equals(url.getProtocol())) {
+          FileLoader.listFiles(Paths.get(url.toURI()), this.getSuffix(), names);
+          continue;
+        }
+        URLConnection connection = url.openConnection();
+        if (connection instanceof JarURLConnection) {
+          this.listJarEntries((JarURLConnection) connection, names);
+        } else {
+          logger.debug("Can not list the templates in {}.", url);
+        }
+      }
+    } catch (IOException | URISyntaxException e) {
+      throw new LoaderException(e, "Could not list the templates in \"" + directory + "\"");
+    }
+    return names;
+  }
+
+  private void listJarEntries(JarURLConnection connection, Collection<String> names)
+      throws IOException {
+    String directory = connection.getEntryName();
+    Enumeration<JarEntry> entries = connection.getJarFile().entries();
+    while (entries.hasMoreElements()) {
+      JarEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (entry.isDirectory() || !name.startsWith(directory)) {
+        continue;
+      }
+      name = name.substring(directory.length());
+      if (this.getSuffix() == null) {
+        names.add(name);
+      } else if (name.endsWith(this.getSuffix())) {
+        names.add(name.substring(0, name.length() - this.getSuffix().length()));
+      }
+    }
+  }
 }
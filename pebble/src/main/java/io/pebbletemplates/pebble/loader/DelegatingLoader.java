@@ -12,8 +12,14 @@ import io.pebbletemplates.pebble.error.LoaderException;
 
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This loader will delegate control to a list of children loaders. This is the default
@@ -24,6 +30,8 @@ import java.util.List;
  */
 public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
 
+  private static final int MAX_RESOLUTIONS = 4096;
+
   private String prefix;
 
   private String suffix;
@@ -37,6 +45,17 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
    */
   private final List<Loader<?>> loaders;
 
+  /**
+   * The index of the loader which found each template, or -1 for the templates no loader found.
+   */
+  private final ConcurrentMap<String, Resolution> resolutions = new ConcurrentHashMap<>();
+
+  /**
+   * How long, in nanoseconds, the loader which found a template is asked first, and a template
+   * which was not found is reported as missing, without asking the other children loaders again.
+   */
+  private volatile long resolutionTtl = TimeUnit.SECONDS.toNanos(1);
+
   /**
    * Constructor provided with a list of children loaders.
    *
@@ -49,28 +68,153 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
 
   @Override
   public Reader getReader(DelegatingLoaderCacheKey cacheKey) {
-
-    Reader reader = null;
+    String templateName = cacheKey.getTemplateName();
+    Resolution resolution = this.validResolution(templateName);
+    if (resolution != null) {
+      if (resolution.isMissing()) {
+        throw notFound(templateName);
+      }
+      Reader reader = this.tryGetReader(resolution.index, cacheKey);
+      if (reader != null) {
+        return reader;
+      }
+    }
 
     final int size = this.loaders.size();
     for (int i = 0; i < size; i++) {
       Loader<?> loader = this.loaders.get(i);
-      Object delegatingKey = cacheKey.getDelegatingCacheKeys().get(i);
-      try {
-        reader = this.getReaderInner(loader, delegatingKey);
-        if (reader != null) {
-          break;
-        }
-      } catch (LoaderException e) {
-        // do nothing
+      // asking whether the template exists is cheaper than an exception
+      if (reportsMissingTemplates(loader) && !loader.resourceExists(templateName)) {
+        continue;
       }
+      Reader reader = this.tryGetReader(i, cacheKey);
+      if (reader != null) {
+        this.resolved(templateName, i);
+        return reader;
+      }
+    }
+    this.resolved(templateName, -1);
+    throw notFound(templateName);
+  }
+
+  private Reader tryGetReader(int index, DelegatingLoaderCacheKey cacheKey) {
+    try {
+      return this.getReaderInner(this.loaders.get(index),
+          cacheKey.getDelegatingCacheKeys().get(index));
+    } catch (LoaderException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Whether a loader is one of the bundled loaders, which find exactly the templates they report
+   * as existing. Other loaders may find templates they do not report as existing, so they are
+   * always asked for the template itself.
+   */
+  private static boolean reportsMissingTemplates(Loader<?> loader) {
+    return loader instanceof ClasspathLoader || loader instanceof FileLoader
+        || loader instanceof MemoryLoader || loader instanceof VersionedMemoryLoader
+        || loader instanceof AbstractServletLoader;
+  }
+
+  private static LoaderException notFound(String templateName) {
+    return new LoaderException(null, "Could not find template \"" + templateName + "\"");
+  }
+
+  /**
+   * Returns which loader found a template, or that none did, unless this has expired.
+   */
+  private Resolution validResolution(String templateName) {
+    Resolution resolution = this.resolutions.get(templateName);
+    if (resolution != null && resolution.isExpired()) {
+      this.resolutions.remove(templateName, resolution);
+      return null;
+    }
+    return resolution;
+  }
+
+  /**
+   * Remembers which loader found a template, or that none did if the index is negative.
+   */
+  private void resolved(String templateName, int index) {
+    long ttl = this.resolutionTtl;
+    if (ttl <= 0) {
+      this.resolutions.remove(templateName);
+      return;
+    }
+    if (this.resolutions.size() >= MAX_RESOLUTIONS) {
+      // names of missing templates may come from anywhere, so the map must not grow forever
+      this.resolutions.clear();
+    }
+    this.resolutions.put(templateName, new Resolution(index, System.nanoTime() + ttl));
+  }
+
+  /**
+   * Sets how long the loader which found a template is asked for it directly, and a template which
+   * was not found is reported as missing, without asking the other children loaders again. Once
+   * this has expired the loaders are asked in order again, so that a template added to a loader
+   * coming first takes over. Zero disables the caching of the resolutions. The default is one
+   * second.
+   *
+   * @param duration The duration
+   * @param unit The unit of the duration
+   */
+  public void setResolutionTtl(long duration, TimeUnit unit) {
+    this.resolutionTtl = unit.toNanos(duration);
+    this.invalidateResolutions();
+  }
+
+  /**
+   * Forgets which loader found a template, or that none did.
+   *
+   * @param templateName The name of the template
+   */
+  public void invalidateResolution(String templateName) {
+    this.resolutions.remove(templateName);
+  }
+
+  /**
+   * Forgets which loaders found the templates, and which templates were not found.
+   */
+  public void invalidateResolutions() {
+    this.resolutions.clear();
+  }
+
+  @Override
+  public Collection<String> listTemplateNames() {
+    Set<String> names = new LinkedHashSet<>();
+    for (Loader<?> loader : this.loaders) {
+      names.addAll(loader.listTemplateNames());
     }
-    if (reader == null) {
-      throw new LoaderException(null,
-          "Could not find template \"" + cacheKey.getTemplateName() + "\"");
+    return names;
+  }
+
+  @Override
+  public int estimateLength(DelegatingLoaderCacheKey cacheKey) {
+    Resolution resolution = this.validResolution(cacheKey.getTemplateName());
+    if (resolution != null && resolution.index >= 0) {
+      return this.estimateLengthInner(this.loaders.get(resolution.index),
+          cacheKey.getDelegatingCacheKeys().get(resolution.index));
+    }
+    final int size = this.loaders.size();
+    for (int i = 0; i < size; i++) {
+      int length = this.estimateLengthInner(this.loaders.get(i),
+          cacheKey.getDelegatingCacheKeys().get(i));
+      if (length >= 0) {
+        return length;
+      }
     }
+    return -1;
+  }
+
+  private <T> int estimateLengthInner(Loader<T> delegatingLoader, Object cacheKey) {
+
+    // This unchecked cast is ok, because we ensure that the type of the
+    // cache key corresponds to the loader when we create the key.
+    @SuppressWarnings("unchecked")
+    T castedKey = (T) cacheKey;
 
-    return reader;
+    return delegatingLoader.estimateLength(castedKey);
   }
 
   private <T> Reader getReaderInner(Loader<T> delegatingLoader, Object cacheKey) {
@@ -93,6 +237,7 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
     for (Loader<?> loader : this.loaders) {
       loader.setSuffix(suffix);
     }
+    this.invalidateResolutions();
   }
 
   public String getPrefix() {
@@ -105,6 +250,7 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
     for (Loader<?> loader : this.loaders) {
       loader.setPrefix(prefix);
     }
+    this.invalidateResolutions();
   }
 
   public String getCharset() {
@@ -117,6 +263,7 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
     for (Loader<?> loader : this.loaders) {
       loader.setCharset(charset);
     }
+    this.invalidateResolutions();
   }
 
   @Override
@@ -146,11 +293,43 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
 
   @Override
   public boolean resourceExists(String templateName) {
-    for (Loader<?> loader : this.loaders) {
-      if (loader.resourceExists(templateName)) {
+    Resolution resolution = this.validResolution(templateName);
+    if (resolution != null) {
+      if (resolution.isMissing()) {
+        return false;
+      }
+      if (this.loaders.get(resolution.index).resourceExists(templateName)) {
+        return true;
+      }
+    }
+    final int size = this.loaders.size();
+    for (int i = 0; i < size; i++) {
+      if (this.loaders.get(i).resourceExists(templateName)) {
+        this.resolved(templateName, i);
         return true;
       }
     }
+    this.resolved(templateName, -1);
     return false;
   }
+
+  private static final class Resolution {
+
+    private final int index;
+
+    private final long expiry;
+
+    private Resolution(int index, long expiry) {
+      this.index = index;
+      this.expiry = expiry;
+    }
+
+    private boolean isMissing() {
+      return this.index < 0;
+    }
+
+    private boolean isExpired() {
+      return System.nanoTime() - this.expiry >= 0;
+    }
+  }
 }
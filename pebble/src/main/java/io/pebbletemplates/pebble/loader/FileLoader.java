@@ -9,24 +9,36 @@
 package io.pebbletemplates.pebble.loader;
 
 import io.pebbletemplates.pebble.error.LoaderException;
+import io.pebbletemplates.pebble.utils.ContentReader;
 import io.pebbletemplates.pebble.utils.PathUtils;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.io.Reader;
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This loader searches for a file located anywhere on the filesystem. It uses java.io.File to
  * perform the lookup.
  *
+ * <p>
+ * An engine using this loader checks the size and the modification time of a cached template
+ * before using it, and compiles it again if the file changed. A {@link WatchingFileLoader} spares
+ * these checks while it watches the files.
+ *
  * @author mbosecke
  */
 public class FileLoader implements Loader<String> {
@@ -41,27 +53,124 @@ public class FileLoader implements Loader<String> {
 
   @Override
   public Reader getReader(String templateName) {
-    // try to load File
-    InputStream is = null;
-    File file = this.getFile(templateName);
-    if (file.exists() && file.isFile()) {
-      try {
-        is = new FileInputStream(file);
-      } catch (FileNotFoundException e) {
+    // read the whole file at once, its size is known up front
+    byte[] bytes = null;
+    long lastModified = -1;
+    Path file = this.getFile(templateName).toPath();
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      if (attributes.isRegularFile()) {
+        lastModified = attributes.lastModifiedTime().toMillis();
+        bytes = Files.readAllBytes(file);
       }
+    } catch (IOException e) {
     }
 
-    if (is == null) {
+    if (bytes == null) {
       throw new LoaderException(null,
           "Could not find template \"" + templateName + "\"");
     }
 
     try {
-      return new BufferedReader(new InputStreamReader(is, this.charset));
-    } catch (UnsupportedEncodingException e) {
+      return ContentReader.decode(bytes, bytes.length, Charset.forName(this.charset),
+          lastModified);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new LoaderException(e, "Could not decode template \"" + templateName + "\"");
+    }
+  }
+
+  /**
+   * Returns the time a template was last modified.
+   *
+   * @param templateName The name of the template
+   * @return The time in milliseconds since the epoch or -1 if the template does not exist
+   */
+  public long getLastModified(String templateName) {
+    BasicFileAttributes attributes = this.getAttributes(templateName);
+    return attributes == null ? -1 : attributes.lastModifiedTime().toMillis();
+  }
+
+  /**
+   * Returns the size of a template.
+   *
+   * @param templateName The name of the template
+   * @return The number of bytes of the template or -1 if the template does not exist
+   */
+  public long getSize(String templateName) {
+    BasicFileAttributes attributes = this.getAttributes(templateName);
+    return attributes == null ? -1 : attributes.size();
+  }
+
+  /**
+   * Tells whether a template changed since it was read, judging from its size and the time it was
+   * last modified, which are both read at once.
+   *
+   * @param templateName The name of the template
+   * @param size The size of the template when it was read, see {@link ContentReader#getSize()}
+   * @param lastModified The time the template was last modified when it was read, see {@link
+   * ContentReader#getLastModified()}
+   * @return Whether the template was modified, or deleted
+   */
+  public boolean isModified(String templateName, long size, long lastModified) {
+    BasicFileAttributes attributes = this.getAttributes(templateName);
+    return attributes == null || attributes.size() != size
+        || attributes.lastModifiedTime().toMillis() != lastModified;
+  }
+
+  private BasicFileAttributes getAttributes(String templateName) {
+    try {
+      BasicFileAttributes attributes = Files
+          .readAttributes(this.getFile(templateName).toPath(), BasicFileAttributes.class);
+      return attributes.isRegularFile() ? attributes : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public Collection<String> listTemplateNames() {
+    // without a prefix the templates could be anywhere on the filesystem
+    if (this.getPrefix() == null) {
+      return Collections.emptyList();
+    }
+    List<String> names = new ArrayList<>();
+    try {
+      listFiles(Paths.get(this.getPrefix()), this.getSuffix(), names);
+    } catch (IOException e) {
+      throw new LoaderException(e, "Could not list the templates in \"" + this.getPrefix() + "\"");
+    }
+    return names;
+  }
+
+  /**
+   * Adds the names of the files found below a directory, relative to the directory and without
+   * the suffix, to a collection.
+   */
+  static void listFiles(Path directory, String suffix, Collection<String> names)
+      throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(directory)) {
+      Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+      while (iterator.hasNext()) {
+        String name = directory.relativize(iterator.next()).toString()
+            .replace(File.separatorChar, '/');
+        if (suffix == null) {
+          names.add(name);
+        } else if (name.endsWith(suffix)) {
+          names.add(name.substring(0, name.length() - suffix.length()));
+        }
+      }
     }
+  }
 
-    return null;
+  @Override
+  public int estimateLength(String templateName) {
+    // a character takes at least one byte in the usual charsets
+    File file = this.getFile(templateName);
+    long length = file.isFile() ? file.length() : -1;
+    return length > Integer.MAX_VALUE ? -1 : (int) length;
   }
 
   private File getFile(String templateName) {
@@ -11,6 +11,8 @@ package io.pebbletemplates.pebble.loader;
 import io.pebbletemplates.pebble.PebbleEngine;
 
 import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Interface used to find templates for Pebble. Different implementations can use different
@@ -29,6 +31,18 @@ public interface Loader<T> {
    */
   Reader getReader(T cacheKey);
 
+  /**
+   * An estimate of the number of characters the reader returned by {@link #getReader(Object)}
+   * will provide. It is only used to size the buffer the template is read into, so it does not
+   * need to be exact.
+   *
+   * @param cacheKey the cache key of the template.
+   * @return The estimated length or -1 if it is not known
+   */
+  default int estimateLength(T cacheKey) {
+    return -1;
+  }
+
   /**
    * A method for end users to change the charset used by the loader.
    *
@@ -103,4 +117,14 @@ public interface Loader<T> {
   T createCacheKey(String templateName);
 
   boolean resourceExists(String templateName);
+
+  /**
+   * Lists the names of the templates this loader is able to find, for example to compile them
+   * ahead of time. Loaders which can not enumerate their templates return an empty collection.
+   *
+   * @return The names of the templates
+   */
+  default Collection<String> listTemplateNames() {
+    return Collections.emptyList();
+  }
 }
\ No newline at end of file
@@ -5,7 +5,10 @@ import io.pebbletemplates.pebble.error.LoaderException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MemoryLoader implements Loader<String> {
     private final List<TemplateDefinition> templateDefinitions = new ArrayList<>();
@@ -27,6 +30,25 @@ public class MemoryLoader implements Loader<String> {
         return new StringReader(content);
     }
 
+    @Override
+    public int estimateLength(String templateName) {
+        for (TemplateDefinition templateDefinition : this.templateDefinitions) {
+            if (templateDefinition.templateName.equals(templateName)) {
+                return templateDefinition.content.length();
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Collection<String> listTemplateNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (TemplateDefinition templateDefinition : this.templateDefinitions) {
+            names.add(templateDefinition.templateName);
+        }
+        return names;
+    }
+
     public void addTemplate(String templateName, String content) {
         if (templateName == null) {
             throw new IllegalArgumentException("templateName cannot be null");
@@ -23,6 +23,11 @@ public class StringLoader implements Loader<String> {
     return new StringReader(templateName);
   }
 
+  @Override
+  public int estimateLength(String templateName) {
+    return templateName.length();
+  }
+
   @Override
   public void setPrefix(String prefix) {
 
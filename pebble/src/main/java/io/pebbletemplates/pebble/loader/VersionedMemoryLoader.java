@@ -0,0 +1,202 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.loader;
+
+import io.pebbletemplates.pebble.error.LoaderException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe loader for templates kept in memory, e.g. templates edited by users and stored in a
+ * database. Each template has a version, such as an etag, which is part of its cache key.
+ * Publishing a new version of a template replaces it atomically, without blocking the threads
+ * reading templates, and the listeners are notified with the key of the replaced version so that it
+ * can be evicted from the caches.
+ *
+ * <p>
+ * An engine built with this loader registers {@link
+ * io.pebbletemplates.pebble.PebbleEngine#invalidateCacheKey(Object)} as a listener, which evicts
+ * the previous version of the template and the templates depending on it.
+ */
+public class VersionedMemoryLoader implements Loader<VersionedMemoryLoaderCacheKey> {
+
+  private static final Logger logger = LoggerFactory.getLogger(VersionedMemoryLoader.class);
+
+  private final ConcurrentMap<String, Version> templates = new ConcurrentHashMap<>();
+
+  private final List<Consumer<VersionedMemoryLoaderCacheKey>> listeners =
+      new CopyOnWriteArrayList<>();
+
+  private final AtomicLong versions = new AtomicLong();
+
+  /**
+   * Publishes a template, or a new version of it, under a version generated by the loader.
+   *
+   * @param templateName The name of the template
+   * @param content The content of the template
+   * @return The version of the template
+   */
+  public String putTemplate(String templateName, String content) {
+    String version = Long.toString(this.versions.incrementAndGet());
+    this.putTemplate(templateName, version, content);
+    return version;
+  }
+
+  /**
+   * Publishes a template, or a new version of it. A template published again with the version it
+   * already has is left as it is.
+   *
+   * @param templateName The name of the template
+   * @param version The version of the template, e.g. an etag
+   * @param content The content of the template
+   */
+  public void putTemplate(String templateName, String version, String content) {
+    if (templateName == null) {
+      throw new IllegalArgumentException("templateName cannot be null");
+    }
+    if (version == null) {
+      throw new IllegalArgumentException("version cannot be null");
+    }
+    if (content == null) {
+      throw new IllegalArgumentException("content cannot be null");
+    }
+    Version next = new Version(version, content);
+    Version previous;
+    do {
+      previous = this.templates.get(templateName);
+      if (previous != null && previous.version.equals(version)) {
+        return;
+      }
+    } while (previous == null ? this.templates.putIfAbsent(templateName, next) != null
+        : !this.templates.replace(templateName, previous, next));
+    this.replaced(templateName, previous);
+  }
+
+  /**
+   * Removes a template.
+   *
+   * @param templateName The name of the template
+   * @return Whether the template existed
+   */
+  public boolean removeTemplate(String templateName) {
+    Version previous = this.templates.remove(templateName);
+    if (previous == null) {
+      return false;
+    }
+    this.replaced(templateName, previous);
+    return true;
+  }
+
+  /**
+   * Returns the current version of a template.
+   *
+   * @param templateName The name of the template
+   * @return The version or null if there is no such template
+   */
+  public String getVersion(String templateName) {
+    Version current = this.templates.get(templateName);
+    return current == null ? null : current.version;
+  }
+
+  /**
+   * Adds a listener called with the cache key of each template version which was replaced or
+   * removed. The key of a template which did not exist before has no version.
+   *
+   * @param listener The listener
+   */
+  public void addListener(Consumer<VersionedMemoryLoaderCacheKey> listener) {
+    this.listeners.add(listener);
+  }
+
+  private void replaced(String templateName, Version previous) {
+    VersionedMemoryLoaderCacheKey key = new VersionedMemoryLoaderCacheKey(templateName,
+        previous == null ? null : previous.version);
+    for (Consumer<VersionedMemoryLoaderCacheKey> listener : this.listeners) {
+      try {
+        listener.accept(key);
+      } catch (RuntimeException e) {
+        logger.warn("Could not notify the replacement of template {}", key, e);
+      }
+    }
+  }
+
+  @Override
+  public Reader getReader(VersionedMemoryLoaderCacheKey cacheKey) {
+    // a version replaced in the meantime is read as the current one
+    Version current = this.templates.get(cacheKey.getTemplateName());
+    if (current == null) {
+      throw new LoaderException(null,
+          "Could not find template \"" + cacheKey.getTemplateName() + "\"");
+    }
+    return new StringReader(current.content);
+  }
+
+  @Override
+  public int estimateLength(VersionedMemoryLoaderCacheKey cacheKey) {
+    Version current = this.templates.get(cacheKey.getTemplateName());
+    return current == null ? -1 : current.content.length();
+  }
+
+  @Override
+  public Collection<String> listTemplateNames() {
+    return Collections.unmodifiableSet(this.templates.keySet());
+  }
+
+  @Override
+  public void setSuffix(String suffix) {
+  }
+
+  @Override
+  public void setPrefix(String prefix) {
+  }
+
+  @Override
+  public void setCharset(String charset) {
+  }
+
+  @Override
+  public String resolveRelativePath(String relativePath, String anchorPath) {
+    return relativePath; // hierarchy is flat
+  }
+
+  @Override
+  public VersionedMemoryLoaderCacheKey createCacheKey(String templateName) {
+    return new VersionedMemoryLoaderCacheKey(templateName, this.getVersion(templateName));
+  }
+
+  @Override
+  public boolean resourceExists(String templateName) {
+    return this.templates.containsKey(templateName);
+  }
+
+  private static final class Version {
+
+    private final String version;
+
+    private final String content;
+
+    private Version(String version, String content) {
+      this.version = version;
+      this.content = content;
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.loader;
+
+/**
+ * The cache key of {@link VersionedMemoryLoader}, made of the name of a template and of its
+ * version. A new version of a template therefore never hits the compiled previous version.
+ */
+public final class VersionedMemoryLoaderCacheKey {
+
+  private final String templateName;
+
+  private final String version;
+
+  VersionedMemoryLoaderCacheKey(String templateName, String version) {
+    this.templateName = templateName;
+    this.version = version;
+  }
+
+  public String getTemplateName() {
+    return this.templateName;
+  }
+
+  /**
+   * Returns the version of the template or null if the template did not exist when the key was
+   * created.
+   *
+   * @return The version
+   */
+  public String getVersion() {
+    return this.version;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.templateName.hashCode()
+        + (this.version == null ? 0 : this.version.hashCode());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof VersionedMemoryLoaderCacheKey)) {
+      return false;
+    }
+    VersionedMemoryLoaderCacheKey other = (VersionedMemoryLoaderCacheKey) obj;
+    return this.templateName.equals(other.templateName)
+        && (this.version == null ? other.version == null : this.version.equals(other.version));
+  }
+
+  @Override
+  public String toString() {
+    return this.templateName + "@" + this.version;
+  }
+
+}
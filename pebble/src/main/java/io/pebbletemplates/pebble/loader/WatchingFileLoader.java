@@ -0,0 +1,193 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.loader;
+
+import io.pebbletemplates.pebble.error.LoaderException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A {@link FileLoader} which watches the directory given as prefix, and its subdirectories, for
+ * changes. Whenever a template file is created, modified or deleted the listeners are notified with
+ * the name of the template, so that only this template and the templates depending on it have to
+ * be compiled again.
+ *
+ * <p>
+ * An engine built with this loader registers
+ * {@link io.pebbletemplates.pebble.PebbleEngine#invalidateTemplate(String)} as a listener, which
+ * keeps the template cache active while the templates are edited. The directory is watched by a
+ * daemon thread which is started with the first listener and stopped by {@link #close()}.
+ */
+public class WatchingFileLoader extends FileLoader implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(WatchingFileLoader.class);
+
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * The watched directories by their registration.
+   */
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+  private Path root;
+
+  private volatile WatchService watchService;
+
+  /**
+   * Adds a listener called with the name of each template whose file changed. The directory is
+   * watched from the first call on.
+   *
+   * @param listener The listener
+   */
+  public synchronized void addListener(Consumer<String> listener) {
+    this.listeners.add(listener);
+    if (this.watchService == null) {
+      this.start();
+    }
+  }
+
+  private void start() {
+    if (this.getPrefix() == null) {
+      throw new LoaderException(null, "A prefix is required to watch the templates");
+    }
+    this.root = Paths.get(this.getPrefix()).toAbsolutePath().normalize();
+    try {
+      this.watchService = this.root.getFileSystem().newWatchService();
+      this.register(this.root, this.watchService);
+    } catch (IOException e) {
+      throw new LoaderException(e, "Could not watch the templates in \"" + this.root + "\"");
+    }
+    WatchService watchService = this.watchService;
+    Thread thread = new Thread(() -> this.watch(watchService), "pebble-template-watcher");
+    thread.setDaemon(true);
+    thread.start();
+    logger.debug("Watching the templates in {}", this.root);
+  }
+
+  /**
+   * Registers a directory and its subdirectories.
+   */
+  private void register(Path directory, WatchService watchService) throws IOException {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      Iterator<Path> iterator = paths.filter(Files::isDirectory).iterator();
+      while (iterator.hasNext()) {
+        Path path = iterator.next();
+        WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.directories.put(key, path);
+      }
+    }
+  }
+
+  private void watch(WatchService watchService) {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path directory = this.directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            logger.debug("Missed changes in {}, reloading all the templates", this.root);
+            for (String name : this.listTemplateNames()) {
+              this.notifyListeners(name);
+            }
+          } else if (directory != null) {
+            this.changed(directory.resolve((Path) event.context()), watchService);
+          }
+        }
+        if (!key.reset()) {
+          this.directories.remove(key);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      logger.debug("Stopped watching the templates in {}", this.root);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void changed(Path path, WatchService watchService) {
+    if (Files.isDirectory(path)) {
+      // the files of a new directory were created before it was registered
+      try {
+        this.register(path, watchService);
+        for (String name : this.listTemplateNames()) {
+          if (this.root.resolve(name + (this.getSuffix() == null ? "" : this.getSuffix()))
+              .startsWith(path)) {
+            this.notifyListeners(name);
+          }
+        }
+      } catch (IOException e) {
+        logger.warn("Could not watch the templates in {}", path, e);
+      }
+      return;
+    }
+    String name = this.root.relativize(path).toString().replace(File.separatorChar, '/');
+    if (this.getSuffix() != null) {
+      if (!name.endsWith(this.getSuffix())) {
+        return;
+      }
+      name = name.substring(0, name.length() - this.getSuffix().length());
+    }
+    this.notifyListeners(name);
+  }
+
+  private void notifyListeners(String templateName) {
+    logger.debug("Template {} changed", templateName);
+    for (Consumer<String> listener : this.listeners) {
+      try {
+        listener.accept(templateName);
+      } catch (RuntimeException e) {
+        logger.warn("Could not notify a change of template {}", templateName, e);
+      }
+    }
+  }
+
+  /**
+   * Tells whether the directory is being watched, which is the case from the first listener on
+   * until the loader is closed.
+   *
+   * @return Whether the changes of the templates are notified
+   */
+  public boolean isWatching() {
+    return this.watchService != null;
+  }
+
+  /**
+   * Stops watching the directory.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.watchService != null) {
+      this.watchService.close();
+      this.watchService = null;
+      this.directories.clear();
+    }
+  }
+
+}
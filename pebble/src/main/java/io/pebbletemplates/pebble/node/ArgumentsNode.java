@@ -9,14 +9,17 @@
 package io.pebbletemplates.pebble.node;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.BoundArguments;
 import io.pebbletemplates.pebble.extension.NamedArguments;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class ArgumentsNode implements Node {
 
@@ -26,6 +29,8 @@ public class ArgumentsNode implements Node {
 
   private final int lineNumber;
 
+  private volatile Binding binding;
+
   public ArgumentsNode(List<PositionalArgumentNode> positionalArgs,
       List<NamedArgumentNode> namedArgs,
       int lineNumber) {
@@ -59,40 +64,51 @@ public class ArgumentsNode implements Node {
    */
   public Map<String, Object> getArgumentMap(PebbleTemplateImpl self, EvaluationContextImpl context,
                                             NamedArguments invocableWithNamedArguments) {
-    Map<String, Object> result = new HashMap<>();
+    return this.getBoundArguments(self, context, invocableWithNamedArguments);
+  }
+
+  /**
+   * Evaluates the arguments and binds them by the position of their name in the argument names of
+   * the filter/function/test/macro. Un-named varargs are bound to the names "0", "1", etc. The
+   * positions of the names are only computed again when the argument names change.
+   *
+   * @param self The template implementation
+   * @param context The evaluation context
+   * @param invocableWithNamedArguments The named arguments object
+   * @return Returns the bound arguments
+   */
+  public BoundArguments getBoundArguments(PebbleTemplateImpl self, EvaluationContextImpl context,
+      NamedArguments invocableWithNamedArguments) {
     List<String> argumentNames = invocableWithNamedArguments.getArgumentNames();
+    Binding binding = this.getBinding(argumentNames);
+    BoundArguments result = new BoundArguments(binding.names);
 
     if (argumentNames == null) {
 
       /* Some functions such as min and max use un-named varags */
-      if (this.positionalArgs != null && !this.positionalArgs.isEmpty()) {
-        for (int i = 0; i < this.positionalArgs.size(); i++) {
-          result.put(String.valueOf(i),
-              this.positionalArgs.get(i).getValueExpression().evaluate(self, context));
-        }
+      for (int i = 0; i < binding.names.size(); i++) {
+        result.set(i, this.positionalArgs.get(i).getValueExpression().evaluate(self, context));
       }
     } else {
 
       if (this.positionalArgs != null) {
-        int nameIndex = 0;
-
-        for (PositionalArgumentNode arg: this.positionalArgs) {
-          if (argumentNames.size() <= nameIndex) {
-            throw new PebbleException(null, "The argument at position " + (nameIndex + 1)
-                + " is not allowed. Only " + argumentNames.size() + " argument(s) are allowed.",
+        for (int i = 0; i < this.positionalArgs.size(); i++) {
+          if (binding.names.size() <= i) {
+            throw new PebbleException(null, "The argument at position " + (i + 1)
+                + " is not allowed. Only " + binding.names.size() + " argument(s) are allowed.",
                 this.lineNumber, self.getName());
           }
 
-          result
-              .put(argumentNames.get(nameIndex), arg.getValueExpression().evaluate(self, context));
-          nameIndex++;
+          result.set(i, this.positionalArgs.get(i).getValueExpression().evaluate(self, context));
         }
       }
 
       if (this.namedArgs != null) {
-        for (NamedArgumentNode arg: this.namedArgs) {
+        for (int i = 0; i < this.namedArgs.size(); i++) {
+          NamedArgumentNode arg = this.namedArgs.get(i);
           // check if user used an incorrect name
-          if (!argumentNames.contains(arg.getName())) {
+          int index = binding.namedArgumentIndexes[i];
+          if (index < 0) {
             throw new PebbleException(null,
                 "The following named argument does not exist: " + arg.getName(),
                 this.lineNumber, self.getName());
@@ -100,7 +116,7 @@ public class ArgumentsNode implements Node {
           Object value =
               arg.getValueExpression() == null ? null : arg.getValueExpression().evaluate(self,
                   context);
-          result.put(arg.getName(), value);
+          result.set(index, value);
         }
       }
     }
@@ -108,6 +124,56 @@ public class ArgumentsNode implements Node {
     return result;
   }
 
+  private Binding getBinding(List<String> argumentNames) {
+    Binding binding = this.binding;
+    if (binding == null || (binding.argumentNames != argumentNames
+        && !Objects.equals(binding.names, argumentNames))) {
+      binding = new Binding(argumentNames);
+      this.binding = binding;
+    }
+    return binding;
+  }
+
+  /**
+   * The positions of the arguments among the argument names of an invocable.
+   */
+  private final class Binding {
+
+    /**
+     * The argument names of the invocable, only used to detect that they changed.
+     */
+    private final List<String> argumentNames;
+
+    private final List<String> names;
+
+    /**
+     * The position of the name of each named argument, or -1 if there is no such name.
+     */
+    private final int[] namedArgumentIndexes;
+
+    private Binding(List<String> argumentNames) {
+      this.argumentNames = argumentNames;
+      if (argumentNames == null) {
+        int size = ArgumentsNode.this.positionalArgs == null ? 0
+            : ArgumentsNode.this.positionalArgs.size();
+        List<String> names = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          names.add(String.valueOf(i));
+        }
+        this.names = Collections.unmodifiableList(names);
+        this.namedArgumentIndexes = new int[0];
+      } else {
+        this.names = Collections.unmodifiableList(new ArrayList<>(argumentNames));
+        int size = ArgumentsNode.this.namedArgs == null ? 0 : ArgumentsNode.this.namedArgs.size();
+        this.namedArgumentIndexes = new int[size];
+        for (int i = 0; i < size; i++) {
+          this.namedArgumentIndexes[i] = this.names
+              .indexOf(ArgumentsNode.this.namedArgs.get(i).getName());
+        }
+      }
+    }
+  }
+
   @Override
   public String toString() {
     return this.positionalArgs.toString();
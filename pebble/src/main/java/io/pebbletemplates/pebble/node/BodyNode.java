@@ -8,6 +8,7 @@
  */
 package io.pebbletemplates.pebble.node;
 
+import io.pebbletemplates.pebble.compiler.CompiledBody;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
@@ -19,7 +20,7 @@ import java.util.List;
 
 public class BodyNode extends AbstractRenderableNode {
 
-  private final List<RenderableNode> children;
+  private List<RenderableNode> children;
 
   /**
    * When a template extends a parent template there are very few nodes in the child that should
@@ -27,6 +28,11 @@ public class BodyNode extends AbstractRenderableNode {
    */
   private boolean onlyRenderInheritanceSafeNodes = false;
 
+  /**
+   * The compiled form of this body, if the template has been compiled.
+   */
+  private volatile CompiledBody compiledBody;
+
   public BodyNode(int lineNumber, List<RenderableNode> children) {
     super(lineNumber);
     this.children = children;
@@ -35,6 +41,12 @@ public class BodyNode extends AbstractRenderableNode {
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException {
+    CompiledBody compiled = this.compiledBody;
+    if (compiled != null
+        && !(this.onlyRenderInheritanceSafeNodes && context.getHierarchy().getParent() != null)) {
+      compiled.render(self, writer, context);
+      return;
+    }
     for (RenderableNode child: this.children) {
       if (this.onlyRenderInheritanceSafeNodes && context.getHierarchy().getParent() != null) {
         if (!nodesToRenderInChild.contains(child.getClass())) {
@@ -54,6 +66,10 @@ public class BodyNode extends AbstractRenderableNode {
     return this.children;
   }
 
+  public void setChildren(List<RenderableNode> children) {
+    this.children = children;
+  }
+
   public boolean isOnlyRenderInheritanceSafeNodes() {
     return this.onlyRenderInheritanceSafeNodes;
   }
@@ -62,6 +78,14 @@ public class BodyNode extends AbstractRenderableNode {
     this.onlyRenderInheritanceSafeNodes = onlyRenderInheritanceSafeNodes;
   }
 
+  public CompiledBody getCompiledBody() {
+    return this.compiledBody;
+  }
+
+  public void setCompiledBody(CompiledBody compiledBody) {
+    this.compiledBody = compiledBody;
+  }
+
   private static List<Class<? extends Node>> nodesToRenderInChild = new ArrayList<>();
 
   static {
@@ -12,13 +12,13 @@ import io.pebbletemplates.pebble.cache.CacheKey;
 import io.pebbletemplates.pebble.cache.PebbleCache;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.node.expression.Expression;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.LimitedSizeWriter;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.concurrent.CompletionException;
 
@@ -67,9 +67,14 @@ public class CacheNode extends AbstractRenderableNode {
 
   private String render(final PebbleTemplateImpl self, final EvaluationContextImpl context)
       throws IOException {
-    Writer tempWriter = LimitedSizeWriter.from(new StringWriter(), context);
-    CacheNode.this.body.render(self, tempWriter, context);
+    ChunkedWriter buffer = new ChunkedWriter(context.getEvaluationOptions().getBufferPool());
+    try {
+      Writer tempWriter = LimitedSizeWriter.from(buffer, context);
+      CacheNode.this.body.render(self, tempWriter, context);
 
-    return tempWriter.toString();
+      return buffer.toString();
+    } finally {
+      buffer.close();
+    }
   }
 }
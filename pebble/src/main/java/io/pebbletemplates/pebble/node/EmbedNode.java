@@ -60,4 +60,8 @@ public class EmbedNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public Expression<?> getIncludeExpression() {
+    return this.includeExpression;
+  }
+
 }
@@ -16,10 +16,13 @@ import io.pebbletemplates.pebble.node.fornode.LazyRevIndex;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.template.ScopeChain;
+import io.pebbletemplates.pebble.template.SlotLayout;
+import io.pebbletemplates.pebble.template.SlottedScope;
 
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Map;
@@ -39,6 +42,16 @@ public class ForNode extends AbstractRenderableNode {
 
   private final BodyNode elseBody;
 
+  /**
+   * The variables stored in the slots of the scope of every iteration; at least the iteration
+   * variable and "loop".
+   */
+  private SlotLayout slotLayout;
+
+  private int variableSlot;
+
+  private int loopSlot;
+
   public ForNode(int lineNumber, String variableName, Expression<?> iterableExpression,
       BodyNode body,
       BodyNode elseBody) {
@@ -47,6 +60,7 @@ public class ForNode extends AbstractRenderableNode {
     this.iterableExpression = iterableExpression;
     this.body = body;
     this.elseBody = elseBody;
+    this.setSlotLayout(new SlotLayout(Arrays.asList(variableName, "loop")));
   }
 
   public static class LoopVariables {
@@ -104,7 +118,8 @@ public class ForNode extends AbstractRenderableNode {
     if (iterator.hasNext()) {
 
       ScopeChain scopeChain = context.getScopeChain();
-      scopeChain.pushScope();
+      SlottedScope scope = new SlottedScope(this.slotLayout, false);
+      scopeChain.pushScope(scope);
 
       LazyLength length = new LazyLength(iterableEvaluation);
 
@@ -134,8 +149,8 @@ public class ForNode extends AbstractRenderableNode {
 
         loop.revindex = new LazyRevIndex(index, length);
         loop.index = index++;
-        scopeChain.put("loop", loop);
-        scopeChain.put(this.variableName, iterator.next());
+        scope.setSlot(this.loopSlot, loop);
+        scope.setSlot(this.variableSlot, iterator.next());
 
         // last iteration
         if (!iterator.hasNext()) {
@@ -174,6 +189,22 @@ public class ForNode extends AbstractRenderableNode {
     return this.elseBody;
   }
 
+  public SlotLayout getSlotLayout() {
+    return this.slotLayout;
+  }
+
+  /**
+   * Sets the layout of the scope of every iteration, which must contain the iteration variable and
+   * "loop".
+   *
+   * @param slotLayout The layout
+   */
+  public void setSlotLayout(SlotLayout slotLayout) {
+    this.slotLayout = slotLayout;
+    this.variableSlot = slotLayout.indexOf(this.variableName);
+    this.loopSlot = slotLayout.indexOf("loop");
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   private Iterable<Object> toIterable(final Object obj) {
 
@@ -39,4 +39,8 @@ public class FromNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public Expression<?> getFromExpression() {
+    return this.fromExpression;
+  }
+
 }
@@ -9,17 +9,20 @@
 package io.pebbletemplates.pebble.node;
 
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.node.expression.Expression;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.Macro;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.template.ScopeChain;
+import io.pebbletemplates.pebble.template.SlotLayout;
+import io.pebbletemplates.pebble.template.SlottedScope;
 import io.pebbletemplates.pebble.utils.LimitedSizeWriter;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -31,10 +34,26 @@ public class MacroNode extends AbstractRenderableNode {
 
   private final BodyNode body;
 
+  private final List<String> argumentNames;
+
+  /**
+   * The variables stored in the slots of the scope holding the default arguments; at least the
+   * names of the arguments.
+   */
+  private SlotLayout slotLayout;
+
+  private int[] argumentSlots;
+
   public MacroNode(String name, ArgumentsNode args, BodyNode body) {
     this.name = name;
     this.args = args;
     this.body = body;
+    List<String> argumentNames = new ArrayList<>();
+    for (NamedArgumentNode arg: args.getNamedArgs()) {
+      argumentNames.add(arg.getName());
+    }
+    this.argumentNames = Collections.unmodifiableList(argumentNames);
+    this.setSlotLayout(new SlotLayout(this.argumentNames));
   }
 
   @Override
@@ -52,11 +71,7 @@ public class MacroNode extends AbstractRenderableNode {
 
       @Override
       public List<String> getArgumentNames() {
-        List<String> names = new ArrayList<>();
-        for (NamedArgumentNode arg: MacroNode.this.getArgs().getNamedArgs()) {
-          names.add(arg.getName());
-        }
-        return names;
+        return MacroNode.this.argumentNames;
       }
 
       @Override
@@ -67,37 +82,43 @@ public class MacroNode extends AbstractRenderableNode {
       @Override
       public String call(PebbleTemplateImpl self, EvaluationContextImpl context,
           Map<String, Object> macroArgs) {
-        Writer writer = LimitedSizeWriter.from(new StringWriter(), context);
+        ChunkedWriter buffer = new ChunkedWriter(context.getEvaluationOptions().getBufferPool());
+        Writer writer = LimitedSizeWriter.from(buffer, context);
         ScopeChain scopeChain = context.getScopeChain();
 
         // scope for default arguments
-        scopeChain.pushLocalScope();
-        
-        // global vars provided by extensions
-        context.getExtensionRegistry().getGlobalVariables().forEach(scopeChain::put);
-        
-        for (NamedArgumentNode arg: MacroNode.this.getArgs().getNamedArgs()) {
-          Expression<?> valueExpression = arg.getValueExpression();
-          if (valueExpression == null) {
-            scopeChain.put(arg.getName(), null);
-          } else {
-            scopeChain.put(arg.getName(), arg.getValueExpression().evaluate(self, context));
+        SlottedScope defaults = new SlottedScope(MacroNode.this.slotLayout, true);
+        scopeChain.pushScope(defaults);
+        try {
+          // global vars provided by extensions
+          context.getExtensionRegistry().getGlobalVariables().forEach(defaults::put);
+
+          List<NamedArgumentNode> namedArgs = MacroNode.this.getArgs().getNamedArgs();
+          for (int i = 0; i < namedArgs.size(); i++) {
+            Expression<?> valueExpression = namedArgs.get(i).getValueExpression();
+            if (valueExpression == null) {
+              defaults.setSlot(MacroNode.this.argumentSlots[i], null);
+            } else {
+              defaults.setSlot(MacroNode.this.argumentSlots[i],
+                  valueExpression.evaluate(self, context));
+            }
           }
-        }
 
-        // scope for user provided arguments
-        scopeChain.pushScope(macroArgs);
-
-        try {
-          MacroNode.this.getBody().render(self, writer, context);
-        } catch (IOException e) {
-          throw new RuntimeException("Could not evaluate macro [" + MacroNode.this.name + "]", e);
+          // scope for user provided arguments
+          scopeChain.pushScope(macroArgs);
+          try {
+            MacroNode.this.getBody().render(self, writer, context);
+            return buffer.toString();
+          } catch (IOException e) {
+            throw new RuntimeException("Could not evaluate macro [" + MacroNode.this.name + "]",
+                e);
+          } finally {
+            scopeChain.popScope(); // user arguments
+          }
+        } finally {
+          scopeChain.popScope(); // default arguments
+          buffer.close();
         }
-
-        scopeChain.popScope(); // user arguments
-        scopeChain.popScope(); // default arguments
-
-        return writer.toString();
       }
 
     };
@@ -115,4 +136,24 @@ public class MacroNode extends AbstractRenderableNode {
     return this.name;
   }
 
+  public SlotLayout getSlotLayout() {
+    return this.slotLayout;
+  }
+
+  /**
+   * Sets the layout of the scope holding the default arguments, which must contain the names of
+   * the arguments.
+   *
+   * @param slotLayout The layout
+   */
+  public void setSlotLayout(SlotLayout slotLayout) {
+    List<NamedArgumentNode> namedArgs = this.args.getNamedArgs();
+    int[] slots = new int[namedArgs.size()];
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = slotLayout.indexOf(namedArgs.get(i).getName());
+    }
+    this.slotLayout = slotLayout;
+    this.argumentSlots = slots;
+  }
+
 }
@@ -9,11 +9,11 @@
 package io.pebbletemplates.pebble.node;
 
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.FutureWriter;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -66,14 +66,15 @@ public class ParallelNode extends AbstractRenderableNode {
 
       final EvaluationContextImpl contextCopy = context.threadSafeCopy(self);
 
-      final StringWriter newStringWriter = new StringWriter();
-      final Writer newFutureWriter = new FutureWriter(newStringWriter);
+      final ChunkedWriter newChunkedWriter = new ChunkedWriter(
+          context.getEvaluationOptions().getBufferPool());
+      final Writer newFutureWriter = new FutureWriter(newChunkedWriter);
 
-      Future<String> future = es.submit(() -> {
+      // the buffer is written to the parent writer as it is, and given back by the FutureWriter
+      Future<ChunkedWriter> future = es.submit(() -> {
         this.body.render(self, newFutureWriter, contextCopy);
         newFutureWriter.flush();
-        newFutureWriter.close();
-        return newStringWriter.toString();
+        return newChunkedWriter;
       });
       ((FutureWriter) writer).enqueue(future);
     }
@@ -11,14 +11,17 @@ package io.pebbletemplates.pebble.node;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.node.expression.Expression;
+import io.pebbletemplates.pebble.node.expression.PrimitiveExpression;
 import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
 import io.pebbletemplates.pebble.extension.writer.StringWriterSpecializedAdapter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+import io.pebbletemplates.pebble.utils.NumberChars;
 import io.pebbletemplates.pebble.utils.StringUtils;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 
 public class PrintNode extends AbstractRenderableNode {
@@ -34,12 +37,58 @@ public class PrintNode extends AbstractRenderableNode {
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException,
           PebbleException {
-    Object var = this.expression.evaluate(self, context);
+    print(this.expression, self, context, writer);
+  }
+
+  /**
+   * Evaluates an expression and writes its value the same way a print tag does. An expression
+   * producing primitives writes them itself to a specialized writer, without boxing them.
+   *
+   * @param expression The expression to print
+   * @param self The template being evaluated
+   * @param context The evaluation context
+   * @param writer The writer to print to
+   * @throws IOException Thrown from the writer object
+   */
+  public static void print(Expression<?> expression, PebbleTemplateImpl self,
+      EvaluationContextImpl context, Writer writer) throws IOException {
+    if (expression instanceof PrimitiveExpression) {
+      if (writer instanceof SpecializedWriter) {
+        try {
+          ((PrimitiveExpression) expression).print(self, context, (SpecializedWriter) writer);
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+        return;
+      } else if (writer instanceof StringWriter) {
+        ((PrimitiveExpression) expression).print(self, context,
+            new StringWriterSpecializedAdapter((StringWriter) writer));
+        return;
+      }
+    }
+    print(expression.evaluate(self, context), writer);
+  }
+
+  /**
+   * Writes an evaluated value the same way a print tag does, making use of the specialized
+   * writers when possible. Null values are ignored.
+   *
+   * @param var The value to print
+   * @param writer The writer to print to
+   * @throws IOException Thrown from the writer object
+   */
+  public static void print(Object var, Writer writer) throws IOException {
     if (var != null) {
       if (writer instanceof StringWriter) {
         new StringWriterSpecializedAdapter((StringWriter) writer).write(var);
       } else if (writer instanceof SpecializedWriter) {
-        ((SpecializedWriter) writer).write(var);
+        try {
+          ((SpecializedWriter) writer).write(var);
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+      } else if (var instanceof Number) {
+        NumberChars.write((Number) var, writer);
       } else {
         writer.write(StringUtils.toString(var));
       }
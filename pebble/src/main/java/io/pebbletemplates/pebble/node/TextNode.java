@@ -11,9 +11,12 @@ package io.pebbletemplates.pebble.node;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+import io.pebbletemplates.pebble.utils.EncodingWriter;
+import io.pebbletemplates.pebble.utils.EncodingWriter.EncodedText;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 
 /**
  * Represents static text in a template.
@@ -24,22 +27,54 @@ public class TextNode extends AbstractRenderableNode {
 
   /**
    * Most Writers will convert strings to char[] so we might as well store it as a char[] to begin
-   * with; small performance optimization.
+   * with; small performance optimization. The array may be shared with the other text nodes of the
+   * template, the text starts at the offset.
    */
   private final char[] data;
 
+  private final int offset;
+
+  private final int length;
+
+  /**
+   * The text encoded with the charset of the last {@link EncodingWriter} it was rendered to.
+   */
+  private volatile EncodedText encoded;
+
   public TextNode(String text, int lineNumber) {
     super(lineNumber);
 
     int length = text.length();
     this.data = new char[text.length()];
     text.getChars(0, length, this.data, 0);
+    this.offset = 0;
+    this.length = length;
+  }
+
+  /**
+   * Creates a text node sharing an array of characters, which must not be modified afterwards.
+   *
+   * @param data The array holding the text
+   * @param offset The index of the first character of the text
+   * @param length The number of characters of the text
+   * @param lineNumber The line number of the text
+   */
+  public TextNode(char[] data, int offset, int length, int lineNumber) {
+    super(lineNumber);
+    this.data = data;
+    this.offset = offset;
+    this.length = length;
   }
 
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException {
-    writer.write(this.data);
+    if (writer instanceof EncodingWriter) {
+      this.encoded = ((EncodingWriter) writer)
+          .writeText(this.data, this.offset, this.length, this.encoded);
+    } else {
+      writer.write(this.data, this.offset, this.length);
+    }
   }
 
   @Override
@@ -47,8 +82,16 @@ public class TextNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  /**
+   * Returns the characters of the text, copied out of the shared array if needed.
+   *
+   * @return The characters of the text
+   */
   public char[] getData() {
-    return this.data;
+    if (this.offset == 0 && this.length == this.data.length) {
+      return this.data;
+    }
+    return Arrays.copyOfRange(this.data, this.offset, this.offset + this.length);
   }
 
 }
@@ -9,11 +9,14 @@
 package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.OperatorUtils;
 
-public class AddExpression extends BinaryExpression<Object> {
+import java.io.UncheckedIOException;
+
+public class AddExpression extends BinaryExpression<Object> implements PrimitiveExpression {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
@@ -26,4 +29,19 @@ public class AddExpression extends BinaryExpression<Object> {
           self.getName());
     }
   }
+
+  @Override
+  public void print(PebbleTemplateImpl self, EvaluationContextImpl context,
+      SpecializedWriter writer) {
+    try {
+      OperatorUtils.add(this.getLeftExpression().evaluate(self, context),
+          this.getRightExpression().evaluate(self, context), writer);
+    } catch (UncheckedIOException ex) {
+      // thrown from the writer
+      throw ex;
+    } catch (Exception ex) {
+      throw new PebbleException(ex, "Could not perform addition", this.getLineNumber(),
+          self.getName());
+    }
+  }
 }
@@ -10,13 +10,12 @@ package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 
 public class BlockFunctionExpression implements Expression<String> {
 
@@ -31,15 +30,17 @@ public class BlockFunctionExpression implements Expression<String> {
 
   @Override
   public String evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    Writer writer = new StringWriter();
     String blockName = (String) this.blockNameExpression.evaluate(self, context);
+    ChunkedWriter writer = new ChunkedWriter(context.getEvaluationOptions().getBufferPool());
     try {
       self.block(writer, context, blockName, false);
+      return writer.toString();
     } catch (IOException e) {
       throw new PebbleException(e, "Could not render block [" + blockName + "]",
           this.getLineNumber(), self.getName());
+    } finally {
+      writer.close();
     }
-    return writer.toString();
   }
 
   @Override
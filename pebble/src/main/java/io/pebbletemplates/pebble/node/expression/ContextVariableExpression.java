@@ -13,6 +13,7 @@ import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.template.ScopeChain;
+import io.pebbletemplates.pebble.template.SlotLayout;
 
 public class ContextVariableExpression implements Expression<Object> {
 
@@ -20,6 +21,15 @@ public class ContextVariableExpression implements Expression<Object> {
 
   private final int lineNumber;
 
+  /**
+   * The slot this variable has been resolved to at parse time, if any.
+   */
+  private SlotLayout slotLayout;
+
+  private int slotDepth;
+
+  private int slot;
+
   public ContextVariableExpression(String name, int lineNumber) {
     this.name = name;
     this.lineNumber = lineNumber;
@@ -34,10 +44,29 @@ public class ContextVariableExpression implements Expression<Object> {
     return this.name;
   }
 
+  /**
+   * Resolves this variable to a slot of a scope which will be found a number of scopes up the scope
+   * chain when this expression is evaluated.
+   *
+   * @param slotLayout The layout of the scope
+   * @param slotDepth The position of the scope in the scope chain, 0 being the current scope
+   * @param slot The slot of the variable
+   */
+  public void resolveSlot(SlotLayout slotLayout, int slotDepth, int slot) {
+    this.slotLayout = slotLayout;
+    this.slotDepth = slotDepth;
+    this.slot = slot;
+  }
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     ScopeChain scopeChain = context.getScopeChain();
-    Object result = scopeChain.get(this.name);
+    Object result;
+    if (this.slotLayout != null) {
+      result = scopeChain.get(this.name, this.slotLayout, this.slotDepth, this.slot);
+    } else {
+      result = scopeChain.get(this.name);
+    }
     if (result == null && context.isStrictVariables() && !scopeChain.containsKey(this.name)) {
       throw new RootAttributeNotFoundException(null, String.format(
           "Root attribute [%s] does not exist or can not be accessed and strict variables is set to true.",
@@ -8,6 +8,7 @@
  */
 package io.pebbletemplates.pebble.node.expression;
 
+import io.pebbletemplates.pebble.extension.BoundArguments;
 import io.pebbletemplates.pebble.extension.Filter;
 import io.pebbletemplates.pebble.extension.core.DefaultFilter;
 import io.pebbletemplates.pebble.error.AttributeNotFoundException;
@@ -18,7 +19,6 @@ import io.pebbletemplates.pebble.node.ArgumentsNode;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
-import java.util.Map;
 
 public class FilterExpression extends BinaryExpression<Object> {
 
@@ -34,29 +34,15 @@ public class FilterExpression extends BinaryExpression<Object> {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-
-    FilterInvocationExpression filterInvocation = (FilterInvocationExpression) this
-        .getRightExpression();
-    ArgumentsNode args = filterInvocation.getArgs();
-    String filterName = filterInvocation.getFilterName();
-
-    if (this.filter == null) {
-      this.filter = context.getExtensionRegistry().getFilter(filterInvocation.getFilterName());
-    }
-
-    if (this.filter == null) {
-      throw new PebbleException(null, String.format("Filter [%s] does not exist.", filterName),
-          this.getLineNumber(), self.getName());
-    }
-
-    Map<String, Object> namedArguments = args.getArgumentMap(self, context, this.filter);
+    Filter filter = this.getFilter(self, context);
+    BoundArguments namedArguments = this.getBoundArguments(filter, self, context);
 
     // This check is not nice, because we use instanceof. However this is
     // the only filter which should not fail in strict mode, when the variable
     // is not set, because this method should exactly test this. Hence a
     // generic solution to allow other tests to reuse this feature make no sense
     Object input;
-    if (this.filter instanceof DefaultFilter) {
+    if (filter instanceof DefaultFilter) {
       try {
         input = this.getLeftExpression().evaluate(self, context);
       } catch (AttributeNotFoundException ex) {
@@ -66,10 +52,60 @@ public class FilterExpression extends BinaryExpression<Object> {
       input = this.getLeftExpression().evaluate(self, context);
     }
 
-    if (input instanceof SafeString && !(this.filter instanceof EscapeFilter)) {
+    return this.apply(filter, input, namedArguments, self, context);
+  }
+
+  /**
+   * Applies the filter to its input, which is the value of the left expression evaluated
+   * beforehand. Compiled templates evaluate the input of filters themselves, which is only done
+   * for the filters other than the default filter whose arguments are literals.
+   *
+   * @param input The value of the left expression
+   * @param self The template being evaluated
+   * @param context The evaluation context
+   * @return The filtered value
+   */
+  public Object applyFilter(Object input, PebbleTemplateImpl self,
+      EvaluationContextImpl context) {
+    Filter filter = this.getFilter(self, context);
+    return this.apply(filter, input, this.getBoundArguments(filter, self, context), self,
+        context);
+  }
+
+  private Filter getFilter(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    if (this.filter == null) {
+      this.filter = context.getExtensionRegistry().getFilter(this.getFilterName());
+    }
+
+    if (this.filter == null) {
+      throw new PebbleException(null,
+          String.format("Filter [%s] does not exist.", this.getFilterName()),
+          this.getLineNumber(), self.getName());
+    }
+    return this.filter;
+  }
+
+  private BoundArguments getBoundArguments(Filter filter, PebbleTemplateImpl self,
+      EvaluationContextImpl context) {
+    ArgumentsNode args = ((FilterInvocationExpression) this.getRightExpression()).getArgs();
+    return args.getBoundArguments(self, context, filter);
+  }
+
+  private Object apply(Filter filter, Object input, BoundArguments namedArguments,
+      PebbleTemplateImpl self, EvaluationContextImpl context) {
+    if (input instanceof SafeString && !(filter instanceof EscapeFilter)) {
       input = input.toString();
     }
 
-    return this.filter.apply(input, namedArguments, self, context, this.getLineNumber());
+    return filter.apply(input, namedArguments, self, context, this.getLineNumber());
+  }
+
+  /**
+   * Returns the name of the filter.
+   *
+   * @return The name of the filter
+   */
+  public String getFilterName() {
+    return ((FilterInvocationExpression) this.getRightExpression()).getFilterName();
   }
 }
@@ -8,13 +8,13 @@
  */
 package io.pebbletemplates.pebble.node.expression;
 
+import io.pebbletemplates.pebble.extension.BoundArguments;
 import io.pebbletemplates.pebble.extension.Function;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
-import java.util.Map;
 
 public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
@@ -24,6 +24,17 @@ public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
   private final int lineNumber;
 
+  /**
+   * Whether the function has been looked up, it is bound to this call site on the first evaluation
+   * since the functions of an engine never change.
+   */
+  private volatile boolean bound = false;
+
+  /**
+   * The function or null if a macro is called.
+   */
+  private Function function;
+
   public FunctionOrMacroInvocationExpression(String functionName, ArgumentsNode arguments,
       int lineNumber) {
     this.functionName = functionName;
@@ -33,7 +44,11 @@ public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    Function function = context.getExtensionRegistry().getFunction(this.functionName);
+    if (!this.bound) {
+      this.function = context.getExtensionRegistry().getFunction(this.functionName);
+      this.bound = true;
+    }
+    Function function = this.function;
     if (function != null) {
       return this.applyFunction(self, context, function, this.args);
     }
@@ -42,7 +57,7 @@ public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
   private Object applyFunction(PebbleTemplateImpl self, EvaluationContextImpl context,
       Function function, ArgumentsNode args) {
-    Map<String, Object> namedArguments = args.getArgumentMap(self, context, function);
+    BoundArguments namedArguments = args.getBoundArguments(self, context, function);
     return function.execute(namedArguments, self, context, this.getLineNumber());
   }
 
@@ -12,6 +12,7 @@ import io.pebbletemplates.pebble.error.AttributeNotFoundException;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.error.RootAttributeNotFoundException;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.attributes.AttributeCallSiteCache;
 import io.pebbletemplates.pebble.attributes.AttributeResolver;
 import io.pebbletemplates.pebble.attributes.ResolvedAttribute;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
@@ -39,6 +40,12 @@ public class GetAttributeExpression implements Expression<Object> {
 
   private final int lineNumber;
 
+  /**
+   * Caches the members used to get the attribute, only when its name is constant and it has no
+   * arguments.
+   */
+  private final AttributeCallSiteCache callSiteCache;
+
   public GetAttributeExpression(Expression<?> node, Expression<?> attributeNameExpression,
       String filename,
       int lineNumber) {
@@ -54,12 +61,33 @@ public class GetAttributeExpression implements Expression<Object> {
     this.args = args;
     this.filename = filename;
     this.lineNumber = lineNumber;
+    if (attributeNameExpression.getClass() == LiteralStringExpression.class
+        && (args == null || args.getPositionalArgs().isEmpty())) {
+      this.callSiteCache = new AttributeCallSiteCache(
+          ((LiteralStringExpression) attributeNameExpression).getValue());
+    } else {
+      this.callSiteCache = null;
+    }
   }
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context)
       throws PebbleException {
-    final Object object = this.node.evaluate(self, context);
+    return this.getAttribute(this.node.evaluate(self, context), self, context);
+  }
+
+  /**
+   * Gets the attribute of an object, which is the value of the node of this expression evaluated
+   * beforehand. Compiled templates evaluate the nodes of attribute chains themselves.
+   *
+   * @param object The value of the node
+   * @param self The template being evaluated
+   * @param context The evaluation context
+   * @return The value of the attribute
+   * @throws PebbleException If the attribute can not be found in strict mode
+   */
+  public Object getAttribute(Object object, PebbleTemplateImpl self,
+      EvaluationContextImpl context) throws PebbleException {
     final Object attributeNameValue = this.attributeNameExpression.evaluate(self, context);
     final String attributeName = String.valueOf(attributeNameValue);
     final Object[] argumentValues = this.getArgumentValues(self, context);
@@ -77,12 +105,24 @@ public class GetAttributeExpression implements Expression<Object> {
       }
     }
 
-    for (AttributeResolver attributeResolver : context.getExtensionRegistry()
-        .getAttributeResolver()) {
+    if (object != null && this.callSiteCache != null) {
+      Object value = this.callSiteCache
+          .get(object, argumentValues, this.filename, this.lineNumber);
+      if (value != AttributeCallSiteCache.MISS) {
+        return value;
+      }
+    }
+
+    List<AttributeResolver> attributeResolvers = context.getExtensionRegistry()
+        .getAttributeResolver();
+    for (AttributeResolver attributeResolver : attributeResolvers) {
       ResolvedAttribute resolvedAttribute = attributeResolver
           .resolve(object, attributeNameValue, argumentValues, this.args, context, this.filename,
               this.lineNumber);
       if (resolvedAttribute != null) {
+        if (object != null && this.callSiteCache != null) {
+          this.callSiteCache.update(object, attributeResolvers);
+        }
         return resolvedAttribute.evaluatedValue;
       }
     }
@@ -9,11 +9,14 @@
 package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.OperatorUtils;
 
-public class MultiplyExpression extends BinaryExpression<Object> {
+import java.io.UncheckedIOException;
+
+public class MultiplyExpression extends BinaryExpression<Object> implements PrimitiveExpression {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
@@ -25,4 +28,19 @@ public class MultiplyExpression extends BinaryExpression<Object> {
           .getName());
     }
   }
+
+  @Override
+  public void print(PebbleTemplateImpl self, EvaluationContextImpl context,
+      SpecializedWriter writer) {
+    try {
+      OperatorUtils.multiply(this.getLeftExpression().evaluate(self, context),
+          this.getRightExpression().evaluate(self, context), writer);
+    } catch (UncheckedIOException ex) {
+      // thrown from the writer
+      throw ex;
+    } catch (Exception ex) {
+      throw new PebbleException(ex, "Could not perform multiplication", this.getLineNumber(), self
+          .getName());
+    }
+  }
 }
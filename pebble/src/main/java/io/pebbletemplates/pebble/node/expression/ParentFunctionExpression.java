@@ -10,13 +10,12 @@ package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.NodeVisitor;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.Hierarchy;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
 
 public class ParentFunctionExpression implements Expression<String> {
 
@@ -31,7 +30,7 @@ public class ParentFunctionExpression implements Expression<String> {
 
   @Override
   public String evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    Writer writer = new StringWriter();
+    ChunkedWriter writer = new ChunkedWriter(context.getEvaluationOptions().getBufferPool());
     try {
       Hierarchy hierarchy = context.getHierarchy();
       if (hierarchy.getParent() == null) {
@@ -45,12 +44,14 @@ public class ParentFunctionExpression implements Expression<String> {
       hierarchy.ascend();
       parent.block(writer, context, this.blockName, true);
       hierarchy.descend();
+      return writer.toString();
     } catch (IOException e) {
       throw new PebbleException(e, "Could not render block [" + this.blockName + "]",
           this.getLineNumber(),
           self.getName());
+    } finally {
+      writer.close();
     }
-    return writer.toString();
   }
 
   @Override
@@ -10,6 +10,7 @@ package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.AttributeNotFoundException;
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.BoundArguments;
 import io.pebbletemplates.pebble.extension.Test;
 import io.pebbletemplates.pebble.extension.core.DefinedTest;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
@@ -17,8 +18,6 @@ import io.pebbletemplates.pebble.node.TestInvocationExpression;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 
-import java.util.Map;
-
 public class PositiveTestExpression extends BinaryExpression<Object> {
 
   private Test cachedTest;
@@ -41,7 +40,7 @@ public class PositiveTestExpression extends BinaryExpression<Object> {
     }
     Test test = this.cachedTest;
 
-    Map<String, Object> namedArguments = args.getArgumentMap(self, context, test);
+    BoundArguments namedArguments = args.getBoundArguments(self, context, test);
 
     // This check is not nice, because we use instanceof. However this is
     // the only test which should not fail in strict mode, when the variable
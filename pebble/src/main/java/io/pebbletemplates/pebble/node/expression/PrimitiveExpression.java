@@ -0,0 +1,31 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.node.expression;
+
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
+import io.pebbletemplates.pebble.template.EvaluationContextImpl;
+import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
+
+/**
+ * An expression which usually evaluates to a primitive number, such as an arithmetic operation. A
+ * print tag writing to a {@link SpecializedWriter} lets the expression write its value itself, so
+ * that the number is not boxed.
+ */
+public interface PrimitiveExpression {
+
+  /**
+   * Evaluates the expression and writes its value, like a print tag would write the value returned
+   * by {@link Expression#evaluate(PebbleTemplateImpl, EvaluationContextImpl)}.
+   *
+   * @param self The template being evaluated
+   * @param context The evaluation context
+   * @param writer The writer
+   */
+  void print(PebbleTemplateImpl self, EvaluationContextImpl context, SpecializedWriter writer);
+}
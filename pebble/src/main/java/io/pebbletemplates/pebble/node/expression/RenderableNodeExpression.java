@@ -9,13 +9,13 @@
 package io.pebbletemplates.pebble.node.expression;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.node.RenderableNode;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.LimitedSizeWriter;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 
 /**
@@ -37,14 +37,17 @@ public class RenderableNodeExpression extends UnaryExpression {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    Writer writer = LimitedSizeWriter.from(new StringWriter(), context);
+    ChunkedWriter buffer = new ChunkedWriter(context.getEvaluationOptions().getBufferPool());
+    Writer writer = LimitedSizeWriter.from(buffer, context);
     try {
       this.node.render(self, writer, context);
+      return buffer.toString();
     } catch (IOException e) {
       throw new PebbleException(e, "Error occurred while rendering node", this.getLineNumber(),
           self.getName());
+    } finally {
+      buffer.close();
     }
-    return writer.toString();
   }
 
   public RenderableNode getNode() {
@@ -8,15 +8,22 @@
  */
 package io.pebbletemplates.pebble.node.expression;
 
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
 import io.pebbletemplates.pebble.template.EvaluationContextImpl;
 import io.pebbletemplates.pebble.template.PebbleTemplateImpl;
 import io.pebbletemplates.pebble.utils.OperatorUtils;
 
-public class UnaryPlusExpression extends UnaryExpression {
+public class UnaryPlusExpression extends UnaryExpression implements PrimitiveExpression {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     return OperatorUtils.unaryPlus(this.getChildExpression().evaluate(self, context));
   }
 
+  @Override
+  public void print(PebbleTemplateImpl self, EvaluationContextImpl context,
+      SpecializedWriter writer) {
+    OperatorUtils.unaryPlus(this.getChildExpression().evaluate(self, context), writer);
+  }
+
 }
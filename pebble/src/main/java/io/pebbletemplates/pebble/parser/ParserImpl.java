@@ -128,7 +128,8 @@ public class ParserImpl implements Parser {
            * than convert it to a text Node.
            */
           token = this.stream.current();
-          nodes.add(new TextNode(token.getValue(), token.getLineNumber()));
+          nodes.add(new TextNode(token.getValueChars(), token.getValueOffset(),
+              token.getValueLength(), token.getLineNumber()));
           this.stream.next();
           break;
 
@@ -1,6 +1,8 @@
 package io.pebbletemplates.pebble.template;
 
 import io.pebbletemplates.pebble.attributes.methodaccess.MethodAccessValidator;
+import io.pebbletemplates.pebble.extension.writer.BufferPool;
+import io.pebbletemplates.pebble.extension.writer.ThreadLocalBufferPool;
 
 /**
  * Evaluation options.
@@ -19,10 +21,21 @@ public class EvaluationOptions {
    */
   private final MethodAccessValidator methodAccessValidator;
 
+  /**
+   * Pool of the buffers the intermediate output is rendered into
+   */
+  private final BufferPool bufferPool;
+
   public EvaluationOptions(boolean greedyMatchMethod,
       MethodAccessValidator methodAccessValidator) {
+    this(greedyMatchMethod, methodAccessValidator, new ThreadLocalBufferPool());
+  }
+
+  public EvaluationOptions(boolean greedyMatchMethod,
+      MethodAccessValidator methodAccessValidator, BufferPool bufferPool) {
     this.greedyMatchMethod = greedyMatchMethod;
     this.methodAccessValidator = methodAccessValidator;
+    this.bufferPool = bufferPool;
   }
 
   public boolean isGreedyMatchMethod() {
@@ -32,4 +45,8 @@ public class EvaluationOptions {
   public MethodAccessValidator getMethodAccessValidator() {
     return this.methodAccessValidator;
   }
+
+  public BufferPool getBufferPool() {
+    return this.bufferPool;
+  }
 }
@@ -9,9 +9,14 @@
 package io.pebbletemplates.pebble.template;
 
 import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.utils.ChannelWriter;
+import io.pebbletemplates.pebble.utils.EncodingWriter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Map;
 
@@ -60,6 +65,117 @@ public interface PebbleTemplate {
    */
   void evaluate(Writer writer, Map<String, Object> context, Locale locale) throws IOException;
 
+  /**
+   * Evaluate the template without any provided variables into a stream. The static text of the
+   * template is encoded only once and then written as bytes, only the dynamic output is encoded as
+   * the template is evaluated.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset of the results.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset) throws IOException {
+    this.evaluate(new EncodingWriter(out, charset));
+  }
+
+  /**
+   * Evaluate the template with a particular locale but without any provided variables into a
+   * stream, see {@link #evaluate(OutputStream, Charset)}.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset of the results.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset, Locale locale) throws IOException {
+    this.evaluate(new EncodingWriter(out, charset), locale);
+  }
+
+  /**
+   * Evaluate the template with a set of variables and the default locale provided by the {@link
+   * PebbleEngine} into a stream, see {@link #evaluate(OutputStream, Charset)}.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset of the results.
+   * @param context The variables used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset, Map<String, Object> context)
+      throws IOException {
+    this.evaluate(new EncodingWriter(out, charset), context);
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables into a stream, see
+   * {@link #evaluate(OutputStream, Charset)}.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset of the results.
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset, Map<String, Object> context,
+      Locale locale) throws IOException {
+    this.evaluate(new EncodingWriter(out, charset), context, locale);
+  }
+
+  /**
+   * Evaluate the template without any provided variables into a channel. The static text of the
+   * template is encoded only once and then written along with the dynamic output without being
+   * copied, using a gathering write if the channel supports it.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset of the results.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(WritableByteChannel channel, Charset charset) throws IOException {
+    this.evaluate(new ChannelWriter(channel, charset));
+  }
+
+  /**
+   * Evaluate the template with a particular locale but without any provided variables into a
+   * channel, see {@link #evaluate(WritableByteChannel, Charset)}.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset of the results.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(WritableByteChannel channel, Charset charset, Locale locale)
+      throws IOException {
+    this.evaluate(new ChannelWriter(channel, charset), locale);
+  }
+
+  /**
+   * Evaluate the template with a set of variables and the default locale provided by the {@link
+   * PebbleEngine} into a channel, see {@link #evaluate(WritableByteChannel, Charset)}.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset of the results.
+   * @param context The variables used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(WritableByteChannel channel, Charset charset,
+      Map<String, Object> context) throws IOException {
+    this.evaluate(new ChannelWriter(channel, charset), context);
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables into a channel, see
+   * {@link #evaluate(WritableByteChannel, Charset)}.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset of the results.
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(WritableByteChannel channel, Charset charset,
+      Map<String, Object> context, Locale locale) throws IOException {
+    this.evaluate(new ChannelWriter(channel, charset), context, locale);
+  }
+
   /**
    * Evaluate the template but only render the contents of a specific block.
    *
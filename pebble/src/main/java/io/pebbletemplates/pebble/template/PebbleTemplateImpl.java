@@ -9,6 +9,7 @@
 package io.pebbletemplates.pebble.template;
 
 import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.compiler.TemplateCompiler;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.escaper.SafeString;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
@@ -25,10 +26,13 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The actual implementation of a PebbleTemplate
@@ -64,6 +68,27 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    */
   private final String name;
 
+  /**
+   * The names of the templates referenced by a literal name in an import, from, include, embed or
+   * extends tag of this template.
+   */
+  private final Set<String> linkedTemplateNames;
+
+  /**
+   * The templates with a linked name, loaded the first time they are used. A link is dropped once
+   * the engine invalidates templates, see {@link PebbleEngine#getInvalidationCount()}, and the
+   * template is then looked up again in the template cache.
+   */
+  private final Map<String, LinkedTemplate> linkedTemplates;
+
+  /**
+   * Number of evaluations of this template, used to find out when it is hot enough to be compiled.
+   * It is updated without synchronization, an approximate count is all that is needed.
+   */
+  private int evaluationCount;
+
+  private volatile boolean compiled;
+
   /**
    * Constructor
    *
@@ -72,9 +97,16 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @param name The name of the template
    */
   public PebbleTemplateImpl(PebbleEngine engine, RenderableNode root, String name) {
+    this(engine, root, name, ConcurrentHashMap.newKeySet(), new ConcurrentHashMap<>());
+  }
+
+  private PebbleTemplateImpl(PebbleEngine engine, RenderableNode root, String name,
+      Set<String> linkedTemplateNames, Map<String, LinkedTemplate> linkedTemplates) {
     this.engine = engine;
     this.rootNode = root;
     this.name = name;
+    this.linkedTemplateNames = linkedTemplateNames;
+    this.linkedTemplates = linkedTemplates;
   }
 
   public void evaluate(Writer writer) throws IOException {
@@ -150,6 +182,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @throws IOException Thrown from the writer object
    */
   private void evaluate(Writer writer, EvaluationContextImpl context) throws IOException {
+    this.compileIfHot();
     if (context.getExecutorService() != null) {
       writer = new FutureWriter(writer);
     }
@@ -170,6 +203,23 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     writer.flush();
   }
 
+  /**
+   * Compiles the template once it has been evaluated as many times as the compilation threshold
+   * of the engine.
+   */
+  private void compileIfHot() {
+    int threshold = this.engine.getCompilationThreshold();
+    if (threshold < 0 || this.compiled || this.evaluationCount++ < threshold) {
+      return;
+    }
+    synchronized (this) {
+      if (!this.compiled) {
+        TemplateCompiler.compile(this, this.rootNode, this.engine.getExtensionRegistry());
+        this.compiled = true;
+      }
+    }
+  }
+
   /**
    * Initializes the evaluation context with settings from the engine.
    *
@@ -203,7 +253,8 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @return A new template instance with the same data
    */
   private PebbleTemplateImpl shallowCopy() {
-    PebbleTemplateImpl copy = new PebbleTemplateImpl(engine, rootNode, name);
+    PebbleTemplateImpl copy = new PebbleTemplateImpl(engine, rootNode, name,
+        this.linkedTemplateNames, this.linkedTemplates);
     copy.blocks.putAll(this.blocks);
     copy.macros.putAll(this.macros);
 
@@ -217,8 +268,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @param name The template name
    */
   public void importTemplate(EvaluationContextImpl context, String name) {
-    context.getImportedTemplates()
-        .add((PebbleTemplateImpl) this.engine.getTemplate(this.resolveRelativePath(name)));
+    context.getImportedTemplates().add(this.getTemplate(name));
   }
 
   /**
@@ -229,8 +279,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @param alias The template alias
    */
   public void importNamedTemplate(EvaluationContextImpl context, String name, String alias) {
-    context.addNamedImportedTemplates(alias,
-        (PebbleTemplateImpl) this.engine.getTemplate(this.resolveRelativePath(name)));
+    context.addNamedImportedTemplates(alias, this.getTemplate(name));
   }
 
   /**
@@ -240,8 +289,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    * @param namedMacros named macros
    */
   public void importNamedMacrosFromTemplate(String name, List<Pair<String, String>> namedMacros) {
-    PebbleTemplateImpl templateImpl = (PebbleTemplateImpl) this.engine
-        .getTemplate(this.resolveRelativePath(name));
+    PebbleTemplateImpl templateImpl = this.getTemplate(name);
     for (Pair<String, String> pair : namedMacros) {
       Macro m = templateImpl.macros.get(pair.getRight());
 
@@ -276,8 +324,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    */
   public void includeTemplate(Writer writer, EvaluationContextImpl context, String name,
       Map<?, ?> additionalVariables) throws IOException {
-    PebbleTemplateImpl template = (PebbleTemplateImpl) this.engine
-        .getTemplate(this.resolveRelativePath(name));
+    PebbleTemplateImpl template = this.getTemplate(name);
     EvaluationContextImpl newContext = context.shallowCopyWithoutInheritanceChain(template);
     ScopeChain scopeChain = newContext.getScopeChain();
     scopeChain.pushScope();
@@ -316,8 +363,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     // make a shallow copy of the template so we can safely modify its blocks without affecting other templates in the
     // template cache. Include and extend will use the same object from the cache, so we need to make sure embeds do not
     // impact those other tags or change anything in the cache.
-    final PebbleTemplateImpl embeddedTemplate =
-            ((PebbleTemplateImpl) this.engine.getTemplate(embeddedTemplateName)).shallowCopy();
+    final PebbleTemplateImpl embeddedTemplate = this.getTemplate(name).shallowCopy();
 
     // push a child scope based on the current scope
     context.scopedShallowWithoutInheritanceChain(embeddedTemplate, additionalVariables, (newContext) -> {
@@ -350,6 +396,49 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     });
   }
 
+  /**
+   * Links a template name used by a tag of this template, so that the template is only looked up
+   * once, until the engine invalidates templates. Only literal names should be linked, any other
+   * name is looked up every time.
+   *
+   * @param name The template name, as written in the tag
+   */
+  public void linkTemplateName(String name) {
+    this.linkedTemplateNames.add(name);
+  }
+
+  /**
+   * Returns the names of the templates referenced by a literal name in the tags of this template,
+   * resolved against the name of this template.
+   *
+   * @return The names of the referenced templates
+   */
+  public Set<String> getReferencedTemplateNames() {
+    Set<String> names = new LinkedHashSet<>();
+    for (String name : this.linkedTemplateNames) {
+      names.add(this.resolveRelativePath(name));
+    }
+    return names;
+  }
+
+  /**
+   * Returns a template referenced by this template.
+   */
+  private PebbleTemplateImpl getTemplate(String name) {
+    if (name != null && this.linkedTemplateNames.contains(name)) {
+      int invalidationCount = this.engine.getInvalidationCount();
+      LinkedTemplate link = this.linkedTemplates.get(name);
+      if (link == null || link.invalidationCount != invalidationCount) {
+        link = new LinkedTemplate(
+            (PebbleTemplateImpl) this.engine.getTemplate(this.resolveRelativePath(name)),
+            invalidationCount);
+        this.linkedTemplates.put(name, link);
+      }
+      return link.template;
+    }
+    return (PebbleTemplateImpl) this.engine.getTemplate(this.resolveRelativePath(name));
+  }
+
   /**
    * Checks if a macro exists
    *
@@ -522,8 +611,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
 
   public void setParent(EvaluationContextImpl context, String parentName) {
     context.getHierarchy()
-        .pushAncestor(
-            (PebbleTemplateImpl) this.engine.getTemplate(this.resolveRelativePath(parentName)));
+        .pushAncestor(this.getTemplate(parentName));
   }
 
   /**
@@ -546,4 +634,19 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     public void close() {
     }
   }
+
+  /**
+   * A linked template, along with the number of invalidations of the engine when it was looked up.
+   */
+  private static final class LinkedTemplate {
+
+    private final PebbleTemplateImpl template;
+
+    private final int invalidationCount;
+
+    private LinkedTemplate(PebbleTemplateImpl template, int invalidationCount) {
+      this.template = template;
+      this.invalidationCount = invalidationCount;
+    }
+  }
 }
@@ -71,6 +71,15 @@ public class ScopeChain {
     this.stack.push(scope);
   }
 
+  /**
+   * Adds a scope to the scope chain
+   *
+   * @param scope The scope to add
+   */
+  public void pushScope(Scope scope) {
+    this.stack.push(scope);
+  }
+
   /**
    * Adds a new local scope to the scope chain
    */
@@ -140,6 +149,47 @@ public class ScopeChain {
     return null;
   }
 
+  /**
+   * Retrieves a variable which has been resolved at parse time to a slot of a {@link SlottedScope}
+   * a number of scopes up the chain. The result is always the same as the one of {@link
+   * #get(String)}, it is just found without hashing the name whenever the scopes match what was
+   * expected at parse time.
+   *
+   * @param key The name of the variable
+   * @param layout The layout of the scope the variable was resolved to
+   * @param depth The position of that scope in the chain, 0 being the current scope
+   * @param slot The slot of the variable in that scope
+   * @return The value of the variable
+   */
+  public Object get(String key, SlotLayout layout, int depth, int slot) {
+    Scope scope;
+    if (depth == 0) {
+      scope = this.stack.peek();
+    } else {
+      Iterator<Scope> iterator = this.stack.iterator();
+      for (int i = 0; i < depth; i++) {
+        scope = iterator.next();
+        if (scope.isLocal()) {
+          return this.get(key);
+        } else if (scope.containsKey(key)) {
+          return scope.get(key);
+        }
+        if (!iterator.hasNext()) {
+          return null;
+        }
+      }
+      scope = iterator.next();
+    }
+
+    if (scope instanceof SlottedScope && ((SlottedScope) scope).getLayout() == layout) {
+      Object value = ((SlottedScope) scope).getSlot(slot);
+      if (value != SlottedScope.UNSET) {
+        return value;
+      }
+    }
+    return this.get(key);
+  }
+
   /**
    * This method checks if the given {@code key} does exists within the scope chain.
    *
@@ -0,0 +1,80 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.template;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * The names of the variables that are stored in the numbered slots of a {@link SlottedScope}. A
+ * layout is computed once when the template is parsed, for example the loop variables of a "for"
+ * tag, and is shared by every scope that is created for it.
+ */
+public final class SlotLayout {
+
+  private final String[] names;
+
+  /**
+   * Constructor
+   *
+   * @param names The names of the variables, duplicates are ignored
+   */
+  public SlotLayout(Collection<String> names) {
+    LinkedHashSet<String> unique = new LinkedHashSet<>();
+    for (String name : names) {
+      unique.add(name.intern());
+    }
+    this.names = unique.toArray(new String[0]);
+  }
+
+  /**
+   * Returns the slot of a variable.
+   *
+   * @param name The name of the variable
+   * @return The slot or -1 if the variable has no slot in this layout
+   */
+  public int indexOf(String name) {
+    for (int i = 0; i < this.names.length; i++) {
+      if (this.names[i] == name) {
+        return i;
+      }
+    }
+    for (int i = 0; i < this.names.length; i++) {
+      if (this.names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the name of the variable stored in a slot.
+   *
+   * @param slot The slot
+   * @return The name of the variable
+   */
+  public String getName(int slot) {
+    return this.names[slot];
+  }
+
+  /**
+   * Returns the number of slots.
+   *
+   * @return The number of slots
+   */
+  public int size() {
+    return this.names.length;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(this.names);
+  }
+}
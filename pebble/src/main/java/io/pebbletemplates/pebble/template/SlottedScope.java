@@ -0,0 +1,127 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.template;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A scope which stores the variables known at parse time in an array of slots as described by a
+ * {@link SlotLayout}. Any other variable is stored in the backing map of the scope, so that from
+ * the outside it behaves exactly like any other scope.
+ */
+public class SlottedScope extends Scope {
+
+  /**
+   * Marks a slot whose variable has not been assigned yet.
+   */
+  static final Object UNSET = new Object();
+
+  private final SlotLayout layout;
+
+  private final Object[] slots;
+
+  /**
+   * Constructor
+   *
+   * @param layout The layout of the slots
+   * @param local Whether this scope is local or not
+   */
+  public SlottedScope(SlotLayout layout, boolean local) {
+    super(new HashMap<>(), local);
+    this.layout = layout;
+    this.slots = new Object[layout.size()];
+    Arrays.fill(this.slots, UNSET);
+  }
+
+  private SlottedScope(SlotLayout layout, Object[] slots, Map<String, Object> backingMap,
+      boolean local) {
+    super(backingMap, local);
+    this.layout = layout;
+    this.slots = slots;
+  }
+
+  @Override
+  public Scope shallowCopy() {
+    Map<String, Object> backingMapCopy = new HashMap<>();
+    for (String key : super.getKeys()) {
+      backingMapCopy.put(key, super.get(key));
+    }
+    return new SlottedScope(this.layout, this.slots.clone(), backingMapCopy, this.isLocal());
+  }
+
+  /**
+   * Assigns a variable by its slot.
+   *
+   * @param slot The slot of the variable
+   * @param value The value of the variable
+   */
+  public void setSlot(int slot, Object value) {
+    this.slots[slot] = value;
+  }
+
+  /**
+   * Returns the value of a slot, which is {@link #UNSET} if the variable has not been assigned.
+   */
+  Object getSlot(int slot) {
+    return this.slots[slot];
+  }
+
+  /**
+   * Returns the layout of the slots of this scope.
+   *
+   * @return The layout
+   */
+  public SlotLayout getLayout() {
+    return this.layout;
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    int slot = this.layout.indexOf(key);
+    if (slot >= 0) {
+      this.slots[slot] = value;
+    } else {
+      super.put(key, value);
+    }
+  }
+
+  @Override
+  public Object get(String key) {
+    int slot = this.layout.indexOf(key);
+    if (slot >= 0) {
+      Object value = this.slots[slot];
+      return value == UNSET ? null : value;
+    }
+    return super.get(key);
+  }
+
+  @Override
+  public boolean containsKey(String key) {
+    int slot = this.layout.indexOf(key);
+    if (slot >= 0) {
+      return this.slots[slot] != UNSET;
+    }
+    return super.containsKey(key);
+  }
+
+  @Override
+  public Set<String> getKeys() {
+    Set<String> keys = new HashSet<>(super.getKeys());
+    for (int i = 0; i < this.slots.length; i++) {
+      if (this.slots[i] != UNSET) {
+        keys.add(this.layout.getName(i));
+      }
+    }
+    return keys;
+  }
+}
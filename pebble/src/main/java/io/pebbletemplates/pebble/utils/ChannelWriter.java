@@ -0,0 +1,149 @@
+package io.pebbletemplates.pebble.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An {@link EncodingWriter} which writes the output of a template to a channel. The static text of
+ * the templates is not copied at all: it is queued as read-only buffers sharing the encoded text,
+ * in between the buffers holding the dynamic output, and all of them are written at once with a
+ * gathering write when the writer is flushed.
+ *
+ * <p>
+ * The dynamic output written in between two static texts is queued as a slice of the buffer
+ * receiving it, which keeps receiving the next dynamic output until it is nearly full. The channel
+ * must be in blocking mode. The buffers of the dynamic output are reused once they were written, a
+ * writer should therefore be used for a whole response.
+ */
+public class ChannelWriter extends EncodingWriter {
+
+  /**
+   * The number of buffers written at once at most, beyond which they are written before the
+   * writer is flushed.
+   */
+  private static final int MAX_SEGMENTS = 256;
+
+  /**
+   * The room a buffer of the dynamic output must have left to keep receiving output once a part
+   * of it was queued.
+   */
+  private static final int MIN_REMAINING = 1024;
+
+  private final WritableByteChannel channel;
+
+  /**
+   * The buffers to write, in order.
+   */
+  private final List<ByteBuffer> segments = new ArrayList<>();
+
+  /**
+   * The buffers of the dynamic output among the segments.
+   */
+  private final List<ByteBuffer> usedBuffers = new ArrayList<>();
+
+  private final Deque<ByteBuffer> spareBuffers = new ArrayDeque<>();
+
+  /**
+   * The buffer receiving the dynamic output, once it was drained.
+   */
+  private ByteBuffer current;
+
+  /**
+   * The index in the current buffer of the output which was not queued yet.
+   */
+  private int start;
+
+  /**
+   * Constructor
+   *
+   * @param channel The channel the output is written to, which is typically a {@link
+   * GatheringByteChannel}
+   * @param charset The charset of the output
+   */
+  public ChannelWriter(WritableByteChannel channel, Charset charset) {
+    super(charset, ByteBuffer.allocate(BYTE_BUFFER_SIZE));
+    this.channel = channel;
+  }
+
+  @Override
+  protected void writeEncoded(EncodedText text) throws IOException {
+    this.drain();
+    this.add(text.asByteBuffer());
+  }
+
+  @Override
+  protected ByteBuffer drain(ByteBuffer buffer) throws IOException {
+    if (buffer != this.current) {
+      this.current = buffer;
+      this.start = 0;
+    }
+    int position = buffer.position();
+    if (position > this.start) {
+      ByteBuffer segment = buffer.duplicate();
+      segment.position(this.start);
+      segment.limit(position);
+      this.start = position;
+      this.add(segment.slice());
+    }
+    if (buffer.remaining() >= MIN_REMAINING) {
+      return buffer;
+    }
+    this.usedBuffers.add(buffer);
+    ByteBuffer next = this.spareBuffers.poll();
+    this.current = next != null ? next : ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    this.start = 0;
+    return this.current;
+  }
+
+  private void add(ByteBuffer segment) throws IOException {
+    this.segments.add(segment);
+    if (this.segments.size() >= MAX_SEGMENTS) {
+      this.writeSegments();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    super.flush();
+    this.writeSegments();
+  }
+
+  private void writeSegments() throws IOException {
+    ByteBuffer[] buffers = this.segments.toArray(new ByteBuffer[0]);
+    if (this.channel instanceof GatheringByteChannel) {
+      GatheringByteChannel gatheringChannel = (GatheringByteChannel) this.channel;
+      int offset = 0;
+      while (offset < buffers.length) {
+        gatheringChannel.write(buffers, offset, buffers.length - offset);
+        while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+          offset++;
+        }
+      }
+    } else {
+      for (ByteBuffer buffer : buffers) {
+        while (buffer.hasRemaining()) {
+          this.channel.write(buffer);
+        }
+      }
+    }
+    this.segments.clear();
+    for (ByteBuffer buffer : this.usedBuffers) {
+      buffer.clear();
+      this.spareBuffers.add(buffer);
+    }
+    this.usedBuffers.clear();
+    if (this.current != null && this.current.position() == this.start) {
+      // all of its output was written
+      this.current.clear();
+      this.start = 0;
+    }
+  }
+
+}
@@ -0,0 +1,174 @@
+package io.pebbletemplates.pebble.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * A Reader over the whole content of a template, which was read as bytes and decoded in a single
+ * pass. The lexer uses the decoded characters as they are instead of copying them, and the loader
+ * can tell the size and the last modification time of the template, e.g. to find out whether a
+ * compiled template is still up to date.
+ */
+public final class ContentReader extends Reader {
+
+  private final char[] buffer;
+
+  private final int length;
+
+  private final long size;
+
+  private final long lastModified;
+
+  private int position;
+
+  private ContentReader(char[] buffer, int length, long size, long lastModified) {
+    this.buffer = buffer;
+    this.length = length;
+    this.size = size;
+    this.lastModified = lastModified;
+  }
+
+  /**
+   * Decodes the content of a template. Malformed input is replaced like {@link
+   * java.io.InputStreamReader} does.
+   *
+   * @param bytes The content of the template
+   * @param size The number of bytes of the content
+   * @param charset The charset of the content
+   * @param lastModified The time the template was last modified in milliseconds since the epoch,
+   * or -1 if unknown
+   * @return The reader
+   * @throws IOException If the content can not be decoded
+   */
+  public static ContentReader decode(byte[] bytes, int size, Charset charset, long lastModified)
+      throws IOException {
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // the decoded content can not be longer, so it is decoded without growing the buffer
+    char[] chars = new char[(int) Math.ceil(size * (double) decoder.maxCharsPerByte())];
+    CharBuffer out = CharBuffer.wrap(chars);
+    CoderResult result = decoder.decode(ByteBuffer.wrap(bytes, 0, size), out, true);
+    if (result.isUnderflow()) {
+      result = decoder.flush(out);
+    }
+    if (!result.isUnderflow()) {
+      result.throwException();
+    }
+    return new ContentReader(chars, out.position(), size, lastModified);
+  }
+
+  /**
+   * Reads a stream entirely and decodes its content.
+   *
+   * @param in The stream, which is closed afterwards
+   * @param expectedSize The number of bytes of the content or -1 if unknown
+   * @param charset The charset of the content
+   * @param lastModified The time the template was last modified in milliseconds since the epoch,
+   * or -1 if unknown
+   * @return The reader
+   * @throws IOException If the stream can not be read or decoded
+   */
+  public static ContentReader read(InputStream in, int expectedSize, Charset charset,
+      long lastModified) throws IOException {
+    try {
+      byte[] bytes = new byte[expectedSize >= 0 ? expectedSize : Math.max(in.available(), 1024)];
+      int size = 0;
+      while (true) {
+        if (size == bytes.length) {
+          int b = in.read();
+          if (b == -1) {
+            break;
+          }
+          bytes = Arrays.copyOf(bytes, bytes.length << 1);
+          bytes[size++] = (byte) b;
+        }
+        int read = in.read(bytes, size, bytes.length - size);
+        if (read == -1) {
+          break;
+        }
+        size += read;
+      }
+      return decode(bytes, size, charset, lastModified);
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Returns the array holding the decoded characters, which may be longer than the content.
+   *
+   * @return The characters
+   */
+  public char[] getBuffer() {
+    return this.buffer;
+  }
+
+  /**
+   * Returns the number of decoded characters.
+   *
+   * @return The number of characters
+   */
+  public int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Returns the number of characters already read.
+   *
+   * @return The position of the reader
+   */
+  public int getPosition() {
+    return this.position;
+  }
+
+  /**
+   * Returns the number of bytes of the content.
+   *
+   * @return The size of the template
+   */
+  public long getSize() {
+    return this.size;
+  }
+
+  /**
+   * Returns the time the template was last modified.
+   *
+   * @return The time in milliseconds since the epoch or -1 if unknown
+   */
+  public long getLastModified() {
+    return this.lastModified;
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    if (this.position == this.length) {
+      return -1;
+    }
+    int count = Math.min(len, this.length - this.position);
+    System.arraycopy(this.buffer, this.position, cbuf, off, count);
+    this.position += count;
+    return count;
+  }
+
+  @Override
+  public int read() {
+    return this.position == this.length ? -1 : this.buffer[this.position++];
+  }
+
+  @Override
+  public void close() {
+  }
+
+}
@@ -0,0 +1,390 @@
+package io.pebbletemplates.pebble.utils;
+
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A Writer which encodes the output of a template into an OutputStream. The dynamic output is
+ * encoded as it is written, like {@link java.io.OutputStreamWriter} does, while the static text of
+ * the templates is encoded only once per charset and then written as bytes, see {@link
+ * #writeText(char[], int, int, EncodedText)}.
+ *
+ * <p>
+ * The numbers are formatted directly into the buffer of the characters waiting to be encoded,
+ * which is encoded first when they do not fit in it. As the methods of {@link SpecializedWriter}
+ * do not throw an {@link IOException}, the failures of the stream are thrown from them as an
+ * {@link UncheckedIOException}.
+ *
+ * <p>
+ * Flushing this writer flushes the stream, closing it does not close the stream. Subclasses may
+ * write the encoded output elsewhere, see {@link ChannelWriter}.
+ */
+public class EncodingWriter extends Writer implements SpecializedWriter {
+
+  private static final int CHAR_BUFFER_SIZE = 1024;
+
+  static final int BYTE_BUFFER_SIZE = 8192;
+
+  private final OutputStream out;
+
+  private final Charset charset;
+
+  private final CharsetEncoder encoder;
+
+  /**
+   * Whether text encoded on its own can be written in between the encoded output, which is not
+   * the case with charsets starting with a byte order mark.
+   */
+  private final boolean encodesTextSeparately;
+
+  private CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+  /**
+   * The encoded output which was not written yet.
+   */
+  private ByteBuffer bytes;
+
+  /**
+   * Whether the encoder was used since it was last reset.
+   */
+  private boolean encoding;
+
+  /**
+   * Constructor
+   *
+   * @param out The stream the encoded output is written to
+   * @param charset The charset of the output
+   */
+  public EncodingWriter(OutputStream out, Charset charset) {
+    this(out, charset, ByteBuffer.allocate(BYTE_BUFFER_SIZE));
+  }
+
+  /**
+   * Constructor for subclasses which write the encoded output themselves, by overriding {@link
+   * #drain(ByteBuffer)} and {@link #writeEncoded(EncodedText)}.
+   *
+   * @param charset The charset of the output
+   * @param buffer The buffer receiving the encoded output
+   */
+  protected EncodingWriter(Charset charset, ByteBuffer buffer) {
+    this(null, charset, buffer);
+  }
+
+  private EncodingWriter(OutputStream out, Charset charset, ByteBuffer buffer) {
+    this.out = out;
+    this.bytes = buffer;
+    this.charset = charset;
+    this.encoder = newEncoder(charset);
+    this.encodesTextSeparately = encode(charset, "").length == 0
+        && encode(charset, "aa").length == 2 * encode(charset, "a").length;
+  }
+
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  /**
+   * Writes static text. The first time the text is written with a charset it is encoded, and the
+   * returned encoded text is given back the next times so that the text is simply copied.
+   *
+   * @param data The array holding the text
+   * @param offset The index of the first character of the text
+   * @param length The number of characters of the text
+   * @param encoded The encoded text returned the last time this text was written, or null
+   * @return The encoded text to give back the next time
+   * @throws IOException If the stream can not be written to
+   */
+  public EncodedText writeText(char[] data, int offset, int length, EncodedText encoded)
+      throws IOException {
+    if (!this.encodesTextSeparately) {
+      this.write(data, offset, length);
+      return encoded;
+    }
+    if (encoded == null || !encoded.charset.equals(this.charset)) {
+      encoded = new EncodedText(this.charset,
+          encode(this.charset, CharBuffer.wrap(data, offset, length)));
+    }
+    // the characters written so far are encoded completely first
+    this.encode(true);
+    this.writeEncoded(encoded);
+    return encoded;
+  }
+
+  /**
+   * Writes static text encoded beforehand, after the output written before.
+   *
+   * @param text The encoded text
+   * @throws IOException If the output can not be written
+   */
+  protected void writeEncoded(EncodedText text) throws IOException {
+    if (text.bytes.length <= this.bytes.remaining()) {
+      this.bytes.put(text.bytes);
+    } else {
+      this.drain();
+      this.out.write(text.bytes);
+    }
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    while (len > 0) {
+      int count = Math.min(len, this.chars.remaining());
+      this.chars.put(cbuf, off, count);
+      off += count;
+      len -= count;
+      if (!this.chars.hasRemaining()) {
+        this.encode(false);
+      }
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    while (len > 0) {
+      int count = Math.min(len, this.chars.remaining());
+      int position = this.chars.position();
+      str.getChars(off, off + count, this.chars.array(), this.chars.arrayOffset() + position);
+      this.chars.position(position + count);
+      off += count;
+      len -= count;
+      if (!this.chars.hasRemaining()) {
+        this.encode(false);
+      }
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    if (!this.chars.hasRemaining()) {
+      this.encode(false);
+    }
+    this.chars.put((char) c);
+  }
+
+  @Override
+  public void writeSpecialized(int i) {
+    this.writeSpecialized((long) i);
+  }
+
+  @Override
+  public void writeSpecialized(long l) {
+    CharBuffer chars = this.reserve(NumberChars.MAX_LENGTH);
+    int offset = chars.arrayOffset();
+    chars.position(NumberChars.getChars(l, chars.array(), offset + chars.position()) - offset);
+  }
+
+  @Override
+  public void writeSpecialized(double d) {
+    CharBuffer chars = this.reserve(NumberChars.MAX_LENGTH);
+    int offset = chars.arrayOffset();
+    int end = NumberChars.getChars(d, chars.array(), offset + chars.position());
+    if (end < 0) {
+      this.append(Double.toString(d));
+    } else {
+      chars.position(end - offset);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(float f) {
+    CharBuffer chars = this.reserve(NumberChars.MAX_LENGTH);
+    int offset = chars.arrayOffset();
+    int end = NumberChars.getChars(f, chars.array(), offset + chars.position());
+    if (end < 0) {
+      this.append(Float.toString(f));
+    } else {
+      chars.position(end - offset);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(short s) {
+    this.writeSpecialized((long) s);
+  }
+
+  @Override
+  public void writeSpecialized(byte b) {
+    this.writeSpecialized((long) b);
+  }
+
+  @Override
+  public void writeSpecialized(BigDecimal bd) {
+    CharBuffer chars = this.reserve(NumberChars.MAX_LENGTH);
+    int offset = chars.arrayOffset();
+    int end = NumberChars.getChars(bd, chars.array(), offset + chars.position());
+    if (end < 0) {
+      this.append(bd.toPlainString());
+    } else {
+      chars.position(end - offset);
+    }
+  }
+
+  @Override
+  public void writeSpecialized(char c) {
+    this.reserve(1).put(c);
+  }
+
+  @Override
+  public void writeSpecialized(String s) {
+    try {
+      this.write(s);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns the buffer of the characters, after making room for the given number of characters
+   * in it. The buffered characters are encoded first, and the buffer only grows for a string
+   * longer than it.
+   */
+  private CharBuffer reserve(int length) {
+    if (this.chars.remaining() < length) {
+      try {
+        this.encode(false);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    if (this.chars.remaining() < length) {
+      CharBuffer grown = CharBuffer.allocate(
+          Math.max(this.chars.capacity() << 1, this.chars.position() + length));
+      this.chars.flip();
+      this.chars = grown.put(this.chars);
+    }
+    return this.chars;
+  }
+
+  /**
+   * Appends a string to the buffer of the characters.
+   */
+  private void append(String str) {
+    this.reserve(str.length()).put(str);
+  }
+
+  /**
+   * Encodes the buffered characters. At the end of the input a dangling high surrogate is encoded
+   * as malformed, and the encoder is reset.
+   */
+  private void encode(boolean endOfInput) throws IOException {
+    if (this.chars.position() == 0 && !(endOfInput && this.encoding)) {
+      return;
+    }
+    this.chars.flip();
+    while (this.encoder.encode(this.chars, this.bytes, endOfInput).isOverflow()) {
+      this.drain();
+    }
+    if (endOfInput) {
+      while (this.encoder.flush(this.bytes).isOverflow()) {
+        this.drain();
+      }
+      this.encoder.reset();
+    }
+    this.encoding = !endOfInput;
+    this.chars.compact();
+  }
+
+  /**
+   * Writes the encoded output held by the buffer, if any.
+   *
+   * @throws IOException If the output can not be written
+   */
+  protected final void drain() throws IOException {
+    if (this.bytes.position() > 0) {
+      this.bytes = this.drain(this.bytes);
+    }
+  }
+
+  /**
+   * Writes the encoded output held by a buffer, from its beginning to its position.
+   *
+   * @param buffer The buffer
+   * @return The empty buffer which receives the next encoded output
+   * @throws IOException If the output can not be written
+   */
+  protected ByteBuffer drain(ByteBuffer buffer) throws IOException {
+    this.out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+    buffer.clear();
+    return buffer;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    this.encode(true);
+    this.drain();
+    if (this.out != null) {
+      this.out.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.flush();
+  }
+
+  private static CharsetEncoder newEncoder(Charset charset) {
+    return charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  private static byte[] encode(Charset charset, String text) {
+    return encode(charset, CharBuffer.wrap(text));
+  }
+
+  private static byte[] encode(Charset charset, CharBuffer text) {
+    CharsetEncoder encoder = newEncoder(charset);
+    ByteBuffer buffer = ByteBuffer.allocate(
+        (int) Math.ceil(text.remaining() * (double) encoder.maxBytesPerChar()) + 16);
+    CoderResult result = encoder.encode(text, buffer, true);
+    if (result.isUnderflow()) {
+      result = encoder.flush(buffer);
+    }
+    if (!result.isUnderflow()) {
+      throw new IllegalStateException("Could not encode text: " + result);
+    }
+    byte[] encoded = new byte[buffer.position()];
+    buffer.flip();
+    buffer.get(encoded);
+    return encoded;
+  }
+
+  /**
+   * Static text encoded with a charset.
+   */
+  public static final class EncodedText {
+
+    private final Charset charset;
+
+    private final byte[] bytes;
+
+    private final ByteBuffer buffer;
+
+    private EncodedText(Charset charset, byte[] bytes) {
+      this.charset = charset;
+      this.bytes = bytes;
+      this.buffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only buffer sharing the encoded text.
+     *
+     * @return The buffer
+     */
+    public ByteBuffer asByteBuffer() {
+      return this.buffer.duplicate();
+    }
+  }
+
+}
@@ -8,6 +8,8 @@
  */
 package io.pebbletemplates.pebble.utils;
 
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
+
 import java.io.IOException;
 import java.io.Writer;
 import java.util.LinkedList;
@@ -18,7 +20,7 @@ import java.util.concurrent.TimeUnit;
 /**
  * A Writer that will wrap around the user-provided writer if the user also provided an
  * ExecutorService to the main PebbleEngine. A FutureWriter is capable of handling Futures that will
- * return a string.
+ * return a string, or a {@link ChunkedWriter} whose content is written and which is then closed.
  *
  * It is not thread safe but that is okay. Each thread will have its own writer, provided by the
  * "parallel" node; i.e. they will never share writers.
@@ -27,7 +29,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class FutureWriter extends Writer {
 
-  private final LinkedList<Future<String>> orderedFutures = new LinkedList<>();
+  private final LinkedList<Future<?>> orderedFutures = new LinkedList<>();
 
   private final Writer internalWriter;
 
@@ -37,7 +39,7 @@ public class FutureWriter extends Writer {
     this.internalWriter = writer;
   }
 
-  public void enqueue(Future<String> future) throws IOException {
+  public void enqueue(Future<?> future) throws IOException {
     if (this.closed) {
       throw new IOException("Writer is closed");
     }
@@ -91,10 +93,16 @@ public class FutureWriter extends Writer {
 
   @Override
   public void flush() throws IOException {
-    for (Future<String> future: this.orderedFutures) {
+    for (Future<?> future: this.orderedFutures) {
       try {
-        String result = future.get();
-        this.internalWriter.write(result);
+        Object result = future.get();
+        if (result instanceof ChunkedWriter) {
+          ChunkedWriter buffer = (ChunkedWriter) result;
+          buffer.writeTo(this.internalWriter);
+          buffer.close();
+        } else {
+          this.internalWriter.write((String) result);
+        }
         this.internalWriter.flush();
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
@@ -0,0 +1,240 @@
+package io.pebbletemplates.pebble.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * Formats numbers directly into a {@code char[]}, the same way {@link String#valueOf(long)},
+ * {@link String#valueOf(double)} and {@link BigDecimal#toPlainString()} do, so that a writer can
+ * print a number without allocating a String.
+ *
+ * <p>
+ * Integers are always formatted here. Doubles and floats are formatted here only when they hold an
+ * integer value below 10^7, which is printed as the integer followed by ".0", and BigDecimals only
+ * when their unscaled value fits in a long and their scale is between 0 and 20; the other values
+ * are left to the JDK, whose output the formatting methods do not try to reproduce.
+ */
+public final class NumberChars {
+
+  /**
+   * The number of characters a number formatted here holds at most.
+   */
+  public static final int MAX_LENGTH = 40;
+
+  private static final int MAX_BIG_DECIMAL_SCALE = 20;
+
+  private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
+  private static final long[] POWERS_OF_TEN = new long[19];
+
+  static {
+    long power = 1;
+    for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = power;
+      power *= 10;
+    }
+  }
+
+  private NumberChars() {
+  }
+
+  /**
+   * Returns the number of characters of a long.
+   *
+   * @param value The value
+   * @return The number of characters, including the sign
+   */
+  public static int length(long value) {
+    int sign = 1;
+    if (value >= 0) {
+      sign = 0;
+      value = -value;
+    }
+    long bound = -10;
+    for (int i = 1; i < 19; i++) {
+      if (value > bound) {
+        return i + sign;
+      }
+      bound *= 10;
+    }
+    return 19 + sign;
+  }
+
+  /**
+   * Formats a long.
+   *
+   * @param value The value
+   * @param buffer The buffer, with room for {@link #length(long)} characters from the offset
+   * @param offset The index of the first character
+   * @return The index following the last character
+   */
+  public static int getChars(long value, char[] buffer, int offset) {
+    int end = offset + length(value);
+    if (value < 0) {
+      buffer[offset] = '-';
+    } else {
+      // the digits are computed from the negative value, which also covers Long.MIN_VALUE
+      value = -value;
+    }
+    int position = end;
+    do {
+      long quotient = value / 10;
+      buffer[--position] = (char) ('0' + (quotient * 10 - value));
+      value = quotient;
+    } while (value != 0);
+    return end;
+  }
+
+  /**
+   * Formats a double holding an integer value below 10^7.
+   *
+   * @param value The value
+   * @param buffer The buffer, with room for {@link #MAX_LENGTH} characters from the offset
+   * @param offset The index of the first character
+   * @return The index following the last character, or -1 if the value has to be formatted with
+   * {@link Double#toString(double)}
+   */
+  public static int getChars(double value, char[] buffer, int offset) {
+    if (!isFormatted(value)) {
+      return -1;
+    }
+    int end = getChars((long) value, buffer, offset);
+    buffer[end] = '.';
+    buffer[end + 1] = '0';
+    return end + 2;
+  }
+
+  /**
+   * Formats a float holding an integer value below 10^7.
+   *
+   * @param value The value
+   * @param buffer The buffer, with room for {@link #MAX_LENGTH} characters from the offset
+   * @param offset The index of the first character
+   * @return The index following the last character, or -1 if the value has to be formatted with
+   * {@link Float#toString(float)}
+   */
+  public static int getChars(float value, char[] buffer, int offset) {
+    return getChars((double) value, buffer, offset);
+  }
+
+  /**
+   * Formats a BigDecimal like {@link BigDecimal#toPlainString()}, if its unscaled value fits in a
+   * long and its scale is between 0 and 20.
+   *
+   * @param value The value
+   * @param buffer The buffer, with room for {@link #MAX_LENGTH} characters from the offset
+   * @param offset The index of the first character
+   * @return The index following the last character, or -1 if the value has to be formatted with
+   * {@link BigDecimal#toPlainString()}
+   */
+  public static int getChars(BigDecimal value, char[] buffer, int offset) {
+    if (!isFormatted(value)) {
+      return -1;
+    }
+    int scale = value.scale();
+    if (scale == 0) {
+      return getChars(value.longValue(), buffer, offset);
+    }
+    long unscaled = value.unscaledValue().longValue();
+    int position = offset;
+    if (unscaled < 0) {
+      buffer[position++] = '-';
+      unscaled = -unscaled;
+    }
+    int digits = length(unscaled);
+    if (digits > scale) {
+      // the integer part is followed by the fraction
+      int end = getChars(unscaled, buffer, position + 1);
+      int point = end - scale;
+      System.arraycopy(buffer, position + 1, buffer, position, point - position - 1);
+      buffer[point - 1] = '.';
+      return end;
+    }
+    buffer[position++] = '0';
+    buffer[position++] = '.';
+    for (int i = digits; i < scale; i++) {
+      buffer[position++] = '0';
+    }
+    return getChars(unscaled, buffer, position);
+  }
+
+  /**
+   * Writes a number to a writer the way a print tag does. The numbers formatted here are written
+   * character by character, without allocating anything.
+   *
+   * @param value The number
+   * @param writer The writer
+   * @throws IOException Thrown from the writer
+   */
+  public static void write(Number value, Writer writer) throws IOException {
+    if (value instanceof Integer || value instanceof Long || value instanceof Short
+        || value instanceof Byte) {
+      write(value.longValue(), writer);
+    } else if ((value instanceof Double || value instanceof Float)
+        && isFormatted(value.doubleValue())) {
+      write((long) value.doubleValue(), writer);
+      writer.write('.');
+      writer.write('0');
+    } else if (value instanceof BigDecimal && isFormatted((BigDecimal) value)) {
+      write((BigDecimal) value, writer);
+    } else {
+      writer.write(StringUtils.toString(value));
+    }
+  }
+
+  private static boolean isFormatted(double value) {
+    return value > -1e7 && value < 1e7 && value == (long) value
+        && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS;
+  }
+
+  private static boolean isFormatted(BigDecimal value) {
+    return value.scale() >= 0 && value.scale() <= MAX_BIG_DECIMAL_SCALE
+        && value.precision() <= 18;
+  }
+
+  private static void write(long value, Writer writer) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      writer.write("-9223372036854775808");
+      return;
+    }
+    if (value < 0) {
+      writer.write('-');
+      value = -value;
+    }
+    writeDigits(value, length(value), writer);
+  }
+
+  private static void write(BigDecimal value, Writer writer) throws IOException {
+    int scale = value.scale();
+    long unscaled = value.unscaledValue().longValue();
+    if (unscaled < 0) {
+      writer.write('-');
+      unscaled = -unscaled;
+    }
+    int digits = length(unscaled);
+    if (scale == 0) {
+      writeDigits(unscaled, digits, writer);
+    } else if (digits > scale) {
+      writeDigits(unscaled / POWERS_OF_TEN[scale], digits - scale, writer);
+      writer.write('.');
+      writeDigits(unscaled % POWERS_OF_TEN[scale], scale, writer);
+    } else {
+      writer.write('0');
+      writer.write('.');
+      for (int i = digits; i < scale; i++) {
+        writer.write('0');
+      }
+      writeDigits(unscaled, digits, writer);
+    }
+  }
+
+  /**
+   * Writes the given number of digits of a positive value, the first ones being zeros if needed.
+   */
+  private static void writeDigits(long value, int count, Writer writer) throws IOException {
+    for (int i = count - 1; i >= 0; i--) {
+      writer.write((char) ('0' + value / POWERS_OF_TEN[i] % 10));
+    }
+  }
+}
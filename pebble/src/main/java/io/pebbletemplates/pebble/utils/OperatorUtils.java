@@ -9,6 +9,7 @@
 package io.pebbletemplates.pebble.utils;
 
 import io.pebbletemplates.pebble.extension.escaper.SafeString;
+import io.pebbletemplates.pebble.extension.writer.SpecializedWriter;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
@@ -106,6 +107,42 @@ public class OperatorUtils {
     return multiply(-1, op1);
   }
 
+  /**
+   * Writes the result of {@link #add(Object, Object)}, without boxing it when both operands are
+   * primitive wrappers. The same goes for the following methods.
+   *
+   * @param op1 The first operand
+   * @param op2 The second operand
+   * @param writer The writer the result is written to
+   */
+  public static void add(Object op1, Object op2, SpecializedWriter writer) {
+    writeOperation(op1, op2, Operation.ADD, writer);
+  }
+
+  public static void subtract(Object op1, Object op2, SpecializedWriter writer) {
+    writeOperation(op1, op2, Operation.SUBTRACT, writer);
+  }
+
+  public static void multiply(Object op1, Object op2, SpecializedWriter writer) {
+    writeOperation(op1, op2, Operation.MULTIPLICATION, writer);
+  }
+
+  public static void divide(Object op1, Object op2, SpecializedWriter writer) {
+    writeOperation(op1, op2, Operation.DIVISION, writer);
+  }
+
+  public static void mod(Object op1, Object op2, SpecializedWriter writer) {
+    writeOperation(op1, op2, Operation.MODULUS, writer);
+  }
+
+  public static void unaryPlus(Object op1, SpecializedWriter writer) {
+    multiply(1, op1, writer);
+  }
+
+  public static void unaryMinus(Object op1, SpecializedWriter writer) {
+    multiply(-1, op1, writer);
+  }
+
   private static Object concatenateStrings(String op1, String op2) {
     return op1 + op2;
   }
@@ -172,6 +209,53 @@ public class OperatorUtils {
     return integerOperation(num1.intValue(), num2.intValue(), operation);
   }
 
+  /**
+   * Writes the result of an operation, applying the same conversions as {@link
+   * #wideningConversionBinaryOperation(Object, Object, Operation)}.
+   */
+  private static void writeOperation(Object op1, Object op2, Operation operation,
+      SpecializedWriter writer) {
+    if (!isPrimitiveWrapper(op1) || !isPrimitiveWrapper(op2)) {
+      writer.write(operation(op1, op2, operation));
+      return;
+    }
+
+    Number num1 = (Number) op1;
+    Number num2 = (Number) op2;
+
+    if (num1 instanceof Double || num2 instanceof Double) {
+      writer.writeSpecialized(doubleOperation(num1.doubleValue(), num2.doubleValue(), operation));
+    } else if (num1 instanceof Float || num2 instanceof Float) {
+      writer.writeSpecialized(floatOperation(num1.floatValue(), num2.floatValue(), operation));
+    } else if (num1 instanceof Long || num2 instanceof Long) {
+      writer.writeSpecialized(longOperation(num1.longValue(), num2.longValue(), operation));
+    } else {
+      writer.writeSpecialized(integerOperation(num1.intValue(), num2.intValue(), operation));
+    }
+  }
+
+  private static boolean isPrimitiveWrapper(Object op) {
+    return op instanceof Integer || op instanceof Long || op instanceof Double
+        || op instanceof Float || op instanceof Short || op instanceof Byte;
+  }
+
+  private static Object operation(Object op1, Object op2, Operation operation) {
+    switch (operation) {
+      case ADD:
+        return add(op1, op2);
+      case SUBTRACT:
+        return subtract(op1, op2);
+      case MULTIPLICATION:
+        return multiply(op1, op2);
+      case DIVISION:
+        return divide(op1, op2);
+      case MODULUS:
+        return mod(op1, op2);
+      default:
+        throw new RuntimeException("Bug in OperatorUtils in pebble library");
+    }
+  }
+
   private static boolean wideningConversionBinaryComparison(Object op1, Object op2,
       Comparison comparison) {
     if (op1 == null || op2 == null) {
@@ -244,7 +328,7 @@ public class OperatorUtils {
     }
   }
 
-  private static Float floatOperation(Float op1, Float op2, Operation operation) {
+  private static float floatOperation(float op1, float op2, Operation operation) {
     switch (operation) {
       case ADD:
         return op1 + op2;
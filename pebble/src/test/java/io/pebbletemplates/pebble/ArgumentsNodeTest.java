@@ -1,16 +1,25 @@
 package io.pebbletemplates.pebble;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.AbstractExtension;
+import io.pebbletemplates.pebble.extension.BoundArguments;
+import io.pebbletemplates.pebble.extension.Filter;
 import io.pebbletemplates.pebble.loader.StringLoader;
 import io.pebbletemplates.pebble.node.ArgumentsNode;
+import io.pebbletemplates.pebble.template.EvaluationContext;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import org.junit.jupiter.api.Test;
 
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -39,4 +48,52 @@ class ArgumentsNodeTest {
       assertEquals((Integer) 1, e.getLineNumber());
     }
   }
+
+  @Test
+  void testArgumentsAreBoundByPosition() throws Exception {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .extension(new AbstractExtension() {
+          @Override
+          public Map<String, Filter> getFilters() {
+            return Collections.singletonMap("bound", new BoundFilter());
+          }
+        }).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{{ 'a' | bound }} {{ 'b' | bound(1) }} {{ 'c' | bound(suffix='!', count=2) }}");
+    Writer writer = new StringWriter();
+    for (int i = 0; i < 2; i++) {
+      writer = new StringWriter();
+      template.evaluate(writer);
+    }
+    assertEquals("a{} b1{count=1} c2!{count=2, suffix=!}", writer.toString());
+
+    PebbleTemplate invalid = pebble.getTemplate("{{ 'a' | bound(other=1) }}");
+    PebbleException exception = assertThrows(PebbleException.class,
+        () -> invalid.evaluate(new StringWriter()));
+    assertEquals("The following named argument does not exist: other",
+        exception.getPebbleMessage());
+  }
+
+  private static class BoundFilter implements Filter {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return Arrays.asList("count", "suffix");
+    }
+
+    @Override
+    public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      throw new IllegalStateException("the bound arguments are used");
+    }
+
+    @Override
+    public Object apply(Object input, BoundArguments args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      String count = args.isSet(0) ? String.valueOf(args.get(0)) : "";
+      String suffix = args.isSet(1) ? String.valueOf(args.get(1)) : "";
+      return input + count + suffix + args;
+    }
+  }
 }
@@ -8,25 +8,37 @@
  */
 package io.pebbletemplates.pebble;
 
+import io.pebbletemplates.pebble.cache.template.ConcurrentMapTemplateCache;
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.loader.MemoryLoader;
+import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.loader.VersionedMemoryLoader;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class CacheTest {
 
@@ -182,4 +194,135 @@ class CacheTest {
     }
   }
 
+  @Test
+  void testConcurrentCompilationsOfATemplateAreMerged() throws Exception {
+    ConcurrentMapTemplateCache cache = new ConcurrentMapTemplateCache();
+    PebbleTemplate template = new PebbleEngine.Builder().loader(new StringLoader()).build()
+        .getTemplate("a");
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger compilations = new AtomicInteger();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<PebbleTemplate>> results = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(() -> cache.computeIfAbsent("slow", key -> {
+          compilations.incrementAndGet();
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          return template;
+        })));
+      }
+      started.await();
+
+      // other templates are not blocked by the one being compiled
+      assertSame(template, cache.computeIfAbsent("other", key -> template));
+
+      release.countDown();
+      for (Future<PebbleTemplate> result : results) {
+        assertSame(template, result.get());
+      }
+      assertEquals(1, compilations.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testGetTemplateAsyncLoadsReferencedTemplates() throws Exception {
+    AtomicInteger reads = new AtomicInteger();
+    MemoryLoader loader = new MemoryLoader() {
+      @Override
+      public Reader getReader(String templateName) {
+        if (!"missing".equals(templateName)) {
+          reads.incrementAndGet();
+        }
+        return super.getReader(templateName);
+      }
+    };
+    loader.addTemplate("page", "{% extends 'layout' %}{% block body %}{% include 'missing' %}"
+        + "{% endblock %}");
+    loader.addTemplate("layout", "{% import 'macros' %}{% block body %}{% endblock %}"
+        + "{% include 'page' %}");
+    loader.addTemplate("macros", "{% macro hello() %}hello{% endmacro %}");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PebbleEngine engine = new PebbleEngine.Builder().loader(loader)
+          .templateLoadingExecutor(executor).build();
+      PebbleTemplate page = engine.getTemplateAsync("page").get(10, TimeUnit.SECONDS);
+
+      assertEquals(3, reads.get());
+      assertSame(page, engine.getTemplate("page"));
+      engine.getTemplate("layout");
+      engine.getTemplate("macros");
+      assertEquals(3, reads.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+
+  @Test
+  void testInvalidateTemplateInvalidatesItsDependents() {
+    Map<String, String> templates = new HashMap<>();
+    templates.put("page", "{% extends 'layout' %}{% block body %}page{% endblock %}");
+    templates.put("layout", "[{% include 'header' %}{% block body %}{% endblock %}]");
+    templates.put("header", "header");
+    templates.put("other", "other");
+    MemoryLoader loader = new MemoryLoader() {
+      @Override
+      public Reader getReader(String templateName) {
+        return new StringReader(templates.get(templateName));
+      }
+    };
+
+    PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+    assertEquals("[headerpage]", this.render(engine.getTemplate("page")));
+    PebbleTemplate other = engine.getTemplate("other");
+
+    templates.put("header", "new header");
+    assertEquals("[headerpage]", this.render(engine.getTemplate("page")));
+    engine.invalidateTemplate("header");
+
+    assertEquals("[new headerpage]", this.render(engine.getTemplate("page")));
+    assertSame(other, engine.getTemplate("other"));
+  }
+
+  @Test
+  void testVersionedMemoryLoaderEvictsPreviousVersions() {
+    VersionedMemoryLoader loader = new VersionedMemoryLoader();
+    loader.putTemplate("page", "[{% include 'header' %}]");
+    loader.putTemplate("header", "v1", "header");
+    loader.putTemplate("other", "other");
+
+    PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+    PebbleTemplate page = engine.getTemplate("page");
+    assertEquals("[header]", this.render(page));
+    PebbleTemplate other = engine.getTemplate("other");
+
+    loader.putTemplate("header", "v1", "ignored");
+    assertSame(page, engine.getTemplate("page"));
+
+    loader.putTemplate("header", "v2", "new header");
+    assertEquals("v2", loader.getVersion("header"));
+    assertEquals("[new header]", this.render(engine.getTemplate("page")));
+    assertSame(other, engine.getTemplate("other"));
+  }
+
+  private String render(PebbleTemplate template) {
+    StringWriter writer = new StringWriter();
+    try {
+      template.evaluate(writer);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    return writer.toString();
+  }
+
 }
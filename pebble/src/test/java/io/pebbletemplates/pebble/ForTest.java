@@ -54,6 +54,36 @@ class ForTest {
     assertEquals("AlexBob", writer.toString());
   }
 
+  @Test
+  void testLoopVariablesAndSetVariablesScoping() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).strictVariables(false).build();
+
+    String source = "{{ i }}{% set total = 0 %}{% for i in [1, 2] %}{% for j in [3] %}"
+        + "{% set total = total + i * j %}{% set inner = j %}{{ i }}{{ j }}{% endfor %}"
+        + "[{{ inner }}]{% endfor %}{{ i }}={{ total }}";
+    PebbleTemplate template = pebble.getTemplate(source);
+    Map<String, Object> context = new HashMap<>();
+    context.put("i", "outer");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("outer13[]23[]outer=9", writer.toString());
+  }
+
+  @Test
+  void testLoopVariableInBlockRenderedOutsideOfLoop() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).strictVariables(false).build();
+
+    String source = "{% for i in [1] %}{% block b %}[{{ i }}]{% endblock %}{% endfor %}{{ block('b') }}";
+    PebbleTemplate template = pebble.getTemplate(source);
+    Map<String, Object> context = new HashMap<>();
+    context.put("i", "outer");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("[1][outer]", writer.toString());
+  }
+
   @Test
   void testInvalidIdentifierName() {
     PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).strictVariables(false).build();
@@ -60,6 +60,37 @@ class GetAttributeTest {
     template.evaluate(writer, context);
   }
 
+  @Test
+  void testAttributeOfDifferentClassesAtSameCallSite() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+
+    PebbleTemplate template = pebble
+        .getTemplate("{% for object in objects %}[{{ object.name }}]{% endfor %}");
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "Map");
+    List<Object> objects = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      objects.add(new SimpleObject());
+      objects.add(map);
+      objects.add(new SimpleObject5());
+      objects.add(new SimpleObject7());
+      objects.add(new SimpleObject8());
+      objects.add(new Person());
+      objects.add(new CustomizableObject("Custom" + i));
+    }
+    Map<String, Object> context = new HashMap<>();
+    context.put("objects", objects);
+
+    String expected = "[Steve][Map][Steve][][true][Name][Custom0]"
+        + "[Steve][Map][Steve][][true][Name][Custom1]";
+    for (int i = 0; i < 2; i++) {
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals(expected, writer.toString());
+    }
+  }
+
   @Test
   void testMultiLayerAttributeNesting() throws PebbleException, IOException {
     PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
@@ -124,6 +155,30 @@ class GetAttributeTest {
     assertEquals("", writer.toString());
   }
 
+  @Test
+  void testNonExistingAttributeIsMissingOnEveryEvaluation() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+    PebbleEngine strictPebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+
+    String source = "[{{ object.nonExisting }}][{{ object.name }}]";
+    PebbleTemplate template = pebble.getTemplate(source);
+    PebbleTemplate strictTemplate = strictPebble.getTemplate(source);
+
+    Map<String, Object> context = new HashMap<>();
+    context.put("object", new SimpleObject());
+
+    for (int i = 0; i < 2; i++) {
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals("[][Steve]", writer.toString());
+
+      assertThrows(AttributeNotFoundException.class,
+          () -> strictTemplate.evaluate(new StringWriter(), context));
+    }
+  }
+
   @Test
   void testNonExistingMapAttributeWithStrictVariables() throws PebbleException, IOException {
     assertThrows(AttributeNotFoundException.class, () -> {
@@ -12,19 +12,34 @@ import io.pebbletemplates.pebble.error.LoaderException;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.loader.*;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
+import io.pebbletemplates.pebble.utils.ContentReader;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class LoaderTest {
 
@@ -69,6 +84,26 @@ class LoaderTest {
 
   }
 
+  @Test
+  void testListTemplateNames() throws URISyntaxException {
+    Loader<?> classpathLoader = new ClasspathLoader();
+    classpathLoader.setPrefix("templates/loader");
+    classpathLoader.setSuffix(".peb");
+    assertEquals(Collections.singletonList("template.loaderTest"),
+        new ArrayList<>(classpathLoader.listTemplateNames()));
+
+    Loader<?> fileLoader = new FileLoader();
+    fileLoader.setPrefix(new File(this.getClass().getResource("/templates/cache").toURI())
+        .getPath());
+    fileLoader.setSuffix(".peb");
+    List<String> names = new ArrayList<>(fileLoader.listTemplateNames());
+    Collections.sort(names);
+    assertEquals(Arrays.asList("cache1/template.cache", "cache2/template.cache",
+        "template.cacheChild", "template.cacheParent"), names);
+
+    assertEquals(Collections.emptyList(), new ArrayList<>(new FileLoader().listTemplateNames()));
+  }
+
   @Test
   void testFileLoader() throws PebbleException, IOException, URISyntaxException {
     Loader<?> loader = new FileLoader();
@@ -82,6 +117,177 @@ class LoaderTest {
 
   }
 
+  @Test
+  void testDelegatingLoaderRemembersResolutions() throws IOException {
+    AtomicInteger probes = new AtomicInteger();
+    MemoryLoader first = new MemoryLoader() {
+      @Override
+      public boolean resourceExists(String templateName) {
+        probes.incrementAndGet();
+        return super.resourceExists(templateName);
+      }
+    };
+    first.addTemplate("a", "A");
+    MemoryLoader second = new MemoryLoader();
+    second.addTemplate("b", "B");
+    DelegatingLoader loader = new DelegatingLoader(Arrays.asList(first, second));
+    loader.setResolutionTtl(1, TimeUnit.HOURS);
+
+    DelegatingLoaderCacheKey key = loader.createCacheKey("b");
+    assertEquals('B', loader.getReader(key).read());
+    assertEquals(1, probes.get());
+    assertEquals('B', loader.getReader(key).read());
+    assertTrue(loader.resourceExists("b"));
+    assertEquals(1, probes.get());
+
+    assertFalse(loader.resourceExists("missing"));
+    assertThrows(LoaderException.class, () -> loader.getReader(loader.createCacheKey("missing")));
+    assertEquals(2, probes.get());
+
+    first.addTemplate("missing", "found");
+    loader.invalidateResolution("missing");
+    assertTrue(loader.resourceExists("missing"));
+    assertEquals('f', loader.getReader(loader.createCacheKey("missing")).read());
+
+    // once the resolutions expire, a template added to a loader coming first takes over
+    DelegatingLoader overriding = new DelegatingLoader(Arrays.asList(first, second));
+    overriding.setResolutionTtl(0, TimeUnit.SECONDS);
+    DelegatingLoaderCacheKey overriddenKey = overriding.createCacheKey("c");
+    second.addTemplate("c", "C");
+    assertEquals('C', overriding.getReader(overriddenKey).read());
+    first.addTemplate("c", "override");
+    assertEquals('o', overriding.getReader(overriddenKey).read());
+    assertTrue(overriding.resourceExists("c"));
+  }
+
+  @Test
+  void testDelegatingLoaderKeepsTheFirstLoaderReadingTheTemplate() throws IOException {
+    // a custom loader which finds templates it does not report as existing
+    StringLoader first = new StringLoader() {
+      @Override
+      public boolean resourceExists(String templateName) {
+        return false;
+      }
+    };
+    MemoryLoader second = new MemoryLoader();
+    second.addTemplate("template", "from the second loader");
+    DelegatingLoader loader = new DelegatingLoader(Arrays.asList(first, second));
+
+    Reader reader = loader.getReader(loader.createCacheKey("template"));
+    assertEquals('t', reader.read());
+    assertEquals('e', reader.read());
+  }
+
+  @Test
+  void testFileLoaderReadsTheWholeFile() throws IOException, URISyntaxException {
+    FileLoader loader = new FileLoader();
+    loader.setPrefix(new File(this.getClass().getResource("/templates").toURI()).getPath());
+    loader.setSuffix(".peb");
+    File file = new File(this.getClass().getResource("/templates/template.loaderTest.peb").toURI());
+
+    ContentReader reader = (ContentReader) loader.getReader("template.loaderTest");
+    assertEquals(file.length(), reader.getSize());
+    assertEquals(file.lastModified(), reader.getLastModified());
+    assertEquals(file.lastModified(), loader.getLastModified("template.loaderTest"));
+    assertEquals(file.length(), loader.getSize("template.loaderTest"));
+    assertFalse(loader.isModified("template.loaderTest", file.length(), file.lastModified()));
+    assertTrue(loader.isModified("template.loaderTest", file.length() + 1, file.lastModified()));
+    assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+        new String(reader.getBuffer(), 0, reader.getLength()));
+    assertEquals(-1, loader.getLastModified("missing"));
+    assertEquals(-1, loader.getSize("missing"));
+    assertTrue(loader.isModified("missing", 0, 0));
+  }
+
+  @Test
+  void testContentReaderDecodesMultiByteCharacters() throws IOException {
+    byte[] bytes = "h\u00e9llo \ud83d\ude00".getBytes(StandardCharsets.UTF_8);
+    ContentReader reader = ContentReader.read(new ByteArrayInputStream(bytes), 3,
+        StandardCharsets.UTF_8, -1);
+    assertEquals(bytes.length, reader.getSize());
+    char[] chars = new char[16];
+    int length = reader.read(chars, 0, chars.length);
+    assertEquals("h\u00e9llo \ud83d\ude00", new String(chars, 0, length));
+    assertEquals(-1, reader.read());
+  }
+
+  @Test
+  void testWatchingFileLoader() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("pebble-templates");
+    Files.createDirectories(directory.resolve("partials"));
+    Files.write(directory.resolve("page.peb"),
+        "[{% include 'partials/header' %}]".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("partials/header.peb"),
+        "header".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("other.peb"), "other".getBytes(StandardCharsets.UTF_8));
+
+    try (WatchingFileLoader loader = new WatchingFileLoader()) {
+      loader.setPrefix(directory.toString());
+      loader.setSuffix(".peb");
+      PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+      assertEquals("[header]", this.render(engine.getTemplate("page")));
+      PebbleTemplate other = engine.getTemplate("other");
+
+      Files.write(directory.resolve("partials/header.peb"),
+          "new header".getBytes(StandardCharsets.UTF_8));
+      long deadline = System.currentTimeMillis() + 10000;
+      while (!"[new header]".equals(this.render(engine.getTemplate("page")))
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals("[new header]", this.render(engine.getTemplate("page")));
+      assertSame(other, engine.getTemplate("other"));
+    } finally {
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testFileLoaderRecompilesChangedTemplates() throws IOException {
+    Path directory = Files.createTempDirectory("pebble-templates");
+    Files.write(directory.resolve("page.peb"),
+        "[{% include 'header' %}]".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("header.peb"), "header".getBytes(StandardCharsets.UTF_8));
+    Files.write(directory.resolve("other.peb"), "other".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      FileLoader loader = new FileLoader();
+      loader.setPrefix(directory.toString());
+      loader.setSuffix(".peb");
+      PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+      PebbleTemplate page = engine.getTemplate("page");
+      assertEquals("[header]", this.render(page));
+      assertSame(page, engine.getTemplate("page"));
+      PebbleTemplate other = engine.getTemplate("other");
+
+      // the size differs, whatever the precision of the modification time
+      Files.write(directory.resolve("header.peb"),
+          "new header".getBytes(StandardCharsets.UTF_8));
+      // the page renders the header it is linked to, whose file is checked along with the page
+      assertEquals("[new header]", this.render(engine.getTemplate("page")));
+      assertSame(other, engine.getTemplate("other"));
+
+      Files.delete(directory.resolve("other.peb"));
+      assertThrows(LoaderException.class, () -> engine.getTemplate("other"));
+    } finally {
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  private String render(PebbleTemplate template) throws IOException {
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    return writer.toString();
+  }
+
   @Test
   void testDelegatingLoader() throws PebbleException, IOException {
     List<Loader<?>> loaders = new ArrayList<>();
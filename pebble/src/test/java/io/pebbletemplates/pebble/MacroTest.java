@@ -3,12 +3,14 @@ package io.pebbletemplates.pebble;
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.extension.InvocationCountingFunction;
 import io.pebbletemplates.pebble.extension.TestingExtension;
+import io.pebbletemplates.pebble.loader.MemoryLoader;
 import io.pebbletemplates.pebble.loader.StringLoader;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.HashMap;
@@ -198,4 +200,77 @@ class MacroTest {
     template.evaluate(writer);
     assertEquals("barfoo", writer.toString());
   }
+
+  @Test
+  void testImportedTemplateIsLinkedToImportingTemplate() throws PebbleException, IOException {
+    CountingMemoryLoader loader = new CountingMemoryLoader();
+    loader.addTemplate("macros.peb", "{% macro greet(name) %}Hello {{ name }}{% endmacro %}");
+    loader.addTemplate("home.peb", "{% import 'macros.peb' %}{{ greet('Bob') }}");
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(loader).cacheActive(false).build();
+
+    PebbleTemplate template = pebble.getTemplate("home.peb");
+    for (int i = 0; i < 3; i++) {
+      Writer writer = new StringWriter();
+      template.evaluate(writer);
+      assertEquals("Hello Bob", writer.toString());
+    }
+    assertEquals(1, loader.reads);
+  }
+
+  @Test
+  void testLinkedTemplateIsDroppedWhenInvalidated() throws PebbleException, IOException {
+    CountingMemoryLoader loader = new CountingMemoryLoader();
+    loader.addTemplate("macros.peb", "{% macro greet(name) %}Hello {{ name }}{% endmacro %}");
+    loader.addTemplate("home.peb", "{% import 'macros.peb' %}{{ greet('Bob') }}");
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(loader).build();
+
+    PebbleTemplate template = pebble.getTemplate("home.peb");
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("Hello Bob", writer.toString());
+
+    loader.getTemplates().removeIf(definition -> definition.templateName.equals("macros.peb"));
+    loader.addTemplate("macros.peb", "{% macro greet(name) %}Bye {{ name }}{% endmacro %}");
+    pebble.invalidateTemplate("macros.peb");
+
+    for (int i = 0; i < 3; i++) {
+      writer = new StringWriter();
+      template.evaluate(writer);
+      assertEquals("Bye Bob", writer.toString());
+    }
+    assertEquals(2, loader.reads);
+  }
+
+  @Test
+  void testLinkedTemplatesAreDroppedWithTemplateCache() throws PebbleException, IOException {
+    MemoryLoader loader = new MemoryLoader();
+    loader.addTemplate("macros.peb", "{% macro greet(name) %}Hello {{ name }}{% endmacro %}");
+    loader.addTemplate("home.peb", "{% import 'macros.peb' %}{{ greet('Bob') }}");
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(loader).build();
+
+    Writer writer = new StringWriter();
+    pebble.getTemplate("home.peb").evaluate(writer);
+    assertEquals("Hello Bob", writer.toString());
+
+    loader.getTemplates().removeIf(definition -> definition.templateName.equals("macros.peb"));
+    loader.addTemplate("macros.peb", "{% macro greet(name) %}Bye {{ name }}{% endmacro %}");
+    pebble.getTemplateCache().invalidateAll();
+
+    writer = new StringWriter();
+    pebble.getTemplate("home.peb").evaluate(writer);
+    assertEquals("Bye Bob", writer.toString());
+  }
+
+  private static class CountingMemoryLoader extends MemoryLoader {
+
+    private int reads = 0;
+
+    @Override
+    public Reader getReader(String templateName) {
+      if (templateName.equals("macros.peb")) {
+        this.reads++;
+      }
+      return super.getReader(templateName);
+    }
+  }
 }
@@ -0,0 +1,110 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble;
+
+import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.escaper.EscapeFilter;
+import io.pebbletemplates.pebble.extension.optimizer.OptimizerNodeVisitor;
+import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.node.BodyNode;
+import io.pebbletemplates.pebble.node.PrintNode;
+import io.pebbletemplates.pebble.node.RenderableNode;
+import io.pebbletemplates.pebble.node.RootNode;
+import io.pebbletemplates.pebble.node.TextNode;
+import io.pebbletemplates.pebble.node.expression.AddExpression;
+import io.pebbletemplates.pebble.node.expression.ContextVariableExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralLongExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralStringExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OptimizerTest {
+
+  @Test
+  void testOptimizedTemplateRendersLikeUnoptimizedTemplate() throws IOException {
+    String source = "a{{ 1 + 2 * 3 }}b{{ 'x' ~ 1 }}{{ '<' ~ '>' }}{{ 5 > 3 ? '<' : name }}"
+        + "{{ -(2 - 4) }}{{ not false }}{{ 10 / 4 }}{{ 10.0 / 4 }}{{ null }}{{ name }}"
+        + "{% if 1 == 2 %}no{% elseif name == 'joe' %}{{ name }}{% elseif true %}yes{% else %}"
+        + "no{% endif %}{% autoescape 'js' %}{{ \"'\" ~ 1 }}{% endautoescape %}";
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "<joe>");
+
+    assertEquals("a7bx1<><2true22.5&lt;joe&gt;yes\\'1", this.render(source, context, true));
+    assertEquals(this.render(source, context, false), this.render(source, context, true));
+  }
+
+  @Test
+  void testDeadBranchesAreNeverEvaluated() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% if false %}{{ missing.call() }}{% elseif 1 > 2 %}b{% else %}c{% endif %}"
+            + "{% if 'true' %}d{% else %}{{ missing }}{% endif %}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("cd", writer.toString());
+  }
+
+  @Test
+  void testFailingExpressionFailsWhenRendered() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = pebble.getTemplate("{{ 'a' }}{{ 1 / 0 }}");
+
+    PebbleException exception = assertThrows(PebbleException.class,
+        () -> template.evaluate(new StringWriter()));
+    assertEquals(1, (int) exception.getLineNumber());
+  }
+
+  @Test
+  void testPrintedLiteralsAreMergedWithText() {
+    AddExpression sum = new AddExpression();
+    sum.setLeft(new LiteralLongExpression(1L, 1));
+    sum.setRight(new LiteralLongExpression(2L, 1));
+    PrintNode variable = new PrintNode(new ContextVariableExpression("name", 2), 2);
+    List<RenderableNode> children = new ArrayList<>();
+    children.add(new TextNode("a", 1));
+    children.add(new PrintNode(new LiteralStringExpression("b", 1), 1));
+    children.add(new PrintNode(sum, 1));
+    children.add(variable);
+    children.add(new TextNode("c", 2));
+    children.add(new PrintNode(new LiteralStringExpression("d", 2), 2));
+    BodyNode body = new BodyNode(1, children);
+
+    new RootNode(body).accept(new OptimizerNodeVisitor(null, new EscapeFilter()));
+
+    assertEquals(3, body.getChildren().size());
+    assertEquals("ab3", new String(((TextNode) body.getChildren().get(0)).getData()));
+    assertSame(variable, body.getChildren().get(1));
+    assertEquals("cd", new String(((TextNode) body.getChildren().get(2)).getData()));
+  }
+
+  private String render(String source, Map<String, Object> context, boolean optimizeTemplates)
+      throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .optimizeTemplates(optimizeTemplates).build();
+    Writer writer = new StringWriter();
+    pebble.getTemplate(source).evaluate(writer, context);
+    return writer.toString();
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble;
+
+import io.pebbletemplates.pebble.error.ParserException;
+import io.pebbletemplates.pebble.loader.MemoryLoader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PreloadTest {
+
+  @Test
+  void testTemplatesListedByTheLoaderArePreloaded() throws Exception {
+    CountingLoader loader = new CountingLoader();
+    loader.addTemplate("parent", "{% block content %}{% endblock %}");
+    loader.addTemplate("child", "{% extends 'parent' %}{% block content %}{{ user.name }}"
+        + "{% endblock %}");
+    User user = new User();
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PebbleEngine pebble = new PebbleEngine.Builder().loader(loader)
+          .preloadTemplates(executor)
+          .warmUp("child", Collections.singletonMap("user", user))
+          .build();
+
+      pebble.whenReady().get(10, TimeUnit.SECONDS);
+      assertTrue(pebble.isReady());
+      assertEquals(2, loader.reads.get());
+      assertEquals(1, user.calls.get());
+
+      pebble.getTemplate("parent");
+      pebble.getTemplate("child");
+      assertEquals(2, loader.reads.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testFailingTemplateDoesNotPreventReadiness() throws Exception {
+    MemoryLoader loader = new MemoryLoader();
+    loader.addTemplate("valid", "valid");
+    loader.addTemplate("invalid", "{{ invalid");
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      PebbleEngine pebble = new PebbleEngine.Builder().loader(loader)
+          .preloadTemplates(executor, Arrays.asList("valid", "invalid"))
+          .build();
+
+      pebble.whenReady().get(10, TimeUnit.SECONDS);
+      assertTrue(pebble.isReady());
+      assertThrows(ParserException.class, () -> pebble.getTemplate("invalid"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testEngineWithoutPreloadingIsReady() {
+    assertTrue(new PebbleEngine.Builder().loader(new MemoryLoader()).build().isReady());
+  }
+
+  private static class CountingLoader extends MemoryLoader {
+
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @Override
+    public Reader getReader(String templateName) {
+      this.reads.incrementAndGet();
+      return super.getReader(templateName);
+    }
+  }
+
+  public static class User {
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public String getName() {
+      this.calls.incrementAndGet();
+      return "Bob";
+    }
+  }
+
+}
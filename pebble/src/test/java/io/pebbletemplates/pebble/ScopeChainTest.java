@@ -10,9 +10,13 @@ package io.pebbletemplates.pebble;
 
 import io.pebbletemplates.pebble.error.PebbleException;
 import io.pebbletemplates.pebble.template.ScopeChain;
+import io.pebbletemplates.pebble.template.SlotLayout;
+import io.pebbletemplates.pebble.template.SlottedScope;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -97,4 +101,46 @@ class ScopeChainTest {
     assertTrue(scopeChain.containsKey("key2"));
     assertTrue(scopeChain.containsKey("key3"));
   }
+
+  @Test
+  void testGetSlot() {
+    SlotLayout layout = new SlotLayout(Arrays.asList("item", "loop"));
+    ScopeChain scopeChain = new ScopeChain();
+    scopeChain.pushScope();
+    scopeChain.set("item", "outer");
+    SlottedScope scope = new SlottedScope(layout, false);
+    scopeChain.pushScope(scope);
+
+    // unassigned slots fall back to the regular lookup
+    assertEquals("outer", scopeChain.get("item", layout, 0, 0));
+
+    scope.setSlot(0, "inner");
+    assertEquals("inner", scopeChain.get("item", layout, 0, 0));
+    assertEquals("inner", scopeChain.get("item"));
+
+    // a variable in a scope closer to the current one takes precedence
+    scopeChain.pushScope();
+    assertEquals("inner", scopeChain.get("item", layout, 1, 0));
+    scopeChain.put("item", "closer");
+    assertEquals("closer", scopeChain.get("item", layout, 1, 0));
+
+    // a scope with another layout is never read by slot
+    scopeChain.popScope();
+    scopeChain.pushScope(new SlottedScope(new SlotLayout(Arrays.asList("other", "item")), false));
+    assertEquals("inner", scopeChain.get("item", layout, 0, 0));
+  }
+
+  @Test
+  void testSlottedScopeBehavesLikeAScope() {
+    SlottedScope scope = new SlottedScope(new SlotLayout(Arrays.asList("a", "b")), true);
+    assertFalse(scope.containsKey("a"));
+    scope.put("a", null);
+    scope.put("c", "value");
+    assertTrue(scope.containsKey("a"));
+    assertTrue(scope.containsKey("c"));
+    assertFalse(scope.containsKey("b"));
+    assertEquals("value", scope.get("c"));
+    assertEquals(2, scope.getKeys().size());
+    assertTrue(scope.shallowCopy().containsKey("c"));
+  }
 }
@@ -9,19 +9,34 @@
 package io.pebbletemplates.pebble;
 
 import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.extension.writer.ChunkedWriter;
 import io.pebbletemplates.pebble.loader.StringLoader;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
+import io.pebbletemplates.pebble.utils.EncodingWriter;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class WritingTest {
 
@@ -42,6 +57,67 @@ class WritingTest {
     assertEquals("firstsecond", writer.toString());
   }
 
+  @Test
+  void testEvaluateToOutputStream() throws IOException {
+    String source = "h\u00e9llo {{ name }} \ud83d\ude00"
+        + "{% for i in [1, 2] %} {{ i }}\u20ac{% endfor %}";
+    Map<String, Object> context = new HashMap<>();
+    // a long value fills the buffers and a split surrogate pair must still be encoded as a whole
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < 700; i++) {
+      name.append("\u00fc\ud83d\ude01");
+    }
+    context.put("name", name.toString());
+
+    for (int threshold : new int[]{-1, 0}) {
+      PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+          .compilationThreshold(threshold).build();
+      PebbleTemplate template = pebble.getTemplate(source);
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+
+      for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1,
+          StandardCharsets.UTF_16}) {
+        for (int i = 0; i < 2; i++) {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          template.evaluate(out, charset, context);
+          assertArrayEquals(writer.toString().getBytes(charset), out.toByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  void testEvaluateToChannel() throws IOException {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      source.append("<p>static \u00e9 ").append(i).append("</p>{{ value }}");
+    }
+    Map<String, Object> context = new HashMap<>();
+    context.put("value", "dyn\u00e4mic");
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = pebble.getTemplate(source.toString());
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      template.evaluate(Channels.newChannel(out), StandardCharsets.UTF_8, context);
+      assertArrayEquals(writer.toString().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    Path file = Files.createTempFile("pebble", ".html");
+    try {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        template.evaluate(channel, StandardCharsets.UTF_8, context);
+      }
+      assertArrayEquals(writer.toString().getBytes(StandardCharsets.UTF_8),
+          Files.readAllBytes(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
   public class UncloseableWriter extends StringWriter {
 
     @Override
@@ -50,6 +126,133 @@ class WritingTest {
     }
   }
 
+  @Test
+  void testChunkedWriter() throws IOException {
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      expected.append((char) ('a' + i % 26));
+    }
+    ChunkedWriter writer = new ChunkedWriter();
+    writer.write(expected.substring(0, 1000));
+    writer.write(expected.toString().toCharArray(), 1000, 1500);
+    for (int i = 2500; i < 3000; i++) {
+      writer.write(expected.charAt(i));
+    }
+    assertEquals(3000, writer.length());
+    assertEquals(expected.toString(), writer.toString());
+
+    StringWriter copy = new StringWriter();
+    writer.writeTo(copy);
+    assertEquals(expected.toString(), copy.toString());
+
+    writer.close();
+    assertEquals("", writer.toString());
+    writer.write("reused");
+    assertEquals("reused", writer.toString());
+    writer.close();
+  }
+
+  @Test
+  void testLongMacroAndParallelOutput() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .executorService(Executors.newCachedThreadPool()).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro repeat(n) %}{% for i in range(1, n) %}{{ i }},{% endfor %}{% endmacro %}"
+            + "{{ repeat(1000) }}|{% parallel %}{{ repeat(1000) }}{% endparallel %}");
+    StringBuilder numbers = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      numbers.append(i).append(',');
+    }
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals(numbers + "|" + numbers, writer.toString());
+  }
+
+  @Test
+  void testPrintArithmeticWithoutBoxing() throws IOException {
+    String source = "{{ a + b }} {{ a * 2.5 }} {{ -a }} {{ big + 1 }} {{ 'x' + a }} {{ a / 0.0 }}"
+        + "{% macro m(n) %}{{ n * 1000 }} {{ n + 0.5 }}{% endmacro %} {{ m(a) }}";
+    String expected = "5 7.5 -3 2.5 x3 Infinity 3000 3.5";
+    Map<String, Object> context = new HashMap<>();
+    context.put("a", 3);
+    context.put("b", 2L);
+    context.put("big", new BigDecimal("1.5"));
+    for (int threshold : new int[]{-1, 0}) {
+      PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+          .autoEscaping(false).compilationThreshold(threshold).build();
+      PebbleTemplate template = pebble.getTemplate(source);
+
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals(expected, writer.toString());
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      template.evaluate(out, StandardCharsets.UTF_8, context);
+      assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void testEncodingWriterFormatsNumbers() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EncodingWriter writer = new EncodingWriter(out, StandardCharsets.UTF_8);
+    StringBuilder expected = new StringBuilder();
+    // the numbers written one after the other do not fit in the buffer of the characters
+    for (int i = 0; i < 1000; i++) {
+      writer.writeSpecialized(-i * 1000003L);
+      writer.writeSpecialized(i + 0.0);
+      writer.writeSpecialized(new BigDecimal(i).movePointLeft(2));
+      writer.writeSpecialized('\u00e9');
+      expected.append(-i * 1000003L).append(i + 0.0)
+          .append(new BigDecimal(i).movePointLeft(2).toPlainString()).append('\u00e9');
+    }
+    writer.writeSpecialized(0.1);
+    writer.writeSpecialized("end");
+    expected.append(0.1).append("end");
+    writer.flush();
+    assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testEncodingWriterStreamsNumbers() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    EncodingWriter writer = new EncodingWriter(out, StandardCharsets.UTF_8);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      writer.writeSpecialized(i);
+      expected.append(i);
+    }
+    // the numbers are encoded and written as the buffers fill up, not held until the flush
+    assertTrue(out.size() > expected.length() - 8192 - 1024);
+    writer.flush();
+    assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testFailingStreamIsReportedFromArithmetic() {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .autoEscaping(false).build();
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("closed");
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        throw new IOException("closed");
+      }
+    };
+    for (String operator : new String[]{"+", "-", "*", "/", "%"}) {
+      PebbleTemplate template = pebble.getTemplate(
+          "{% for i in range(1, 10000) %}{{ i " + operator + " 1 }}{% endfor %}");
+      IOException e = assertThrows(IOException.class,
+          () -> template.evaluate(failing, StandardCharsets.UTF_8));
+      assertEquals("closed", e.getMessage());
+    }
+  }
+
   /**
    * The following test used to fail because one parallel thread would rewrite the contents of
    * another parallel thread's character buffer.
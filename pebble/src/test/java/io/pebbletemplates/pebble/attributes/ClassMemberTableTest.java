@@ -0,0 +1,80 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.attributes;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassMemberTableTest {
+
+  @Test
+  void testMethodsAreIndexedByNameIgnoringCaseAndArity() throws Exception {
+    ClassMemberTable table = ClassMemberTable.of(Bean.class);
+
+    assertEquals(Bean.class.getMethod("getValue"), table.getMethods("GETvalue", 0).get(0));
+    assertEquals(1, table.getMethods("getvalue", 1).size());
+    assertTrue(table.getMethods("getValue", 2).isEmpty());
+    assertTrue(table.getMethods("missing", 0).isEmpty());
+
+    List<Method> overloads = table.getMethods("format", 1);
+    assertEquals(2, overloads.size());
+  }
+
+  @Test
+  void testFieldsAreTheSameAsGetField() throws Exception {
+    ClassMemberTable table = ClassMemberTable.of(ChildBean.class);
+
+    assertEquals(ChildBean.class.getField("name"), table.getField("name"));
+    assertEquals(ChildBean.class.getField("count"), table.getField("count"));
+    assertNull(table.getField("Name"));
+    assertNull(table.getField("hidden"));
+  }
+
+  @Test
+  void testTableIsComputedOncePerClass() {
+    assertSame(ClassMemberTable.of(Bean.class), ClassMemberTable.of(Bean.class));
+  }
+
+  public static class Bean {
+
+    public int count;
+
+    public String name = "parent";
+
+    private String hidden;
+
+    public String getValue() {
+      return "value";
+    }
+
+    public String getValue(String suffix) {
+      return "value" + suffix;
+    }
+
+    public String format(String value) {
+      return value;
+    }
+
+    public String format(Integer value) {
+      return String.valueOf(value);
+    }
+  }
+
+  public static class ChildBean extends Bean {
+
+    public String name = "child";
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.attributes;
+
+import io.pebbletemplates.pebble.error.PebbleException;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemberAccessorTest {
+
+  @Test
+  void testGetter() throws Exception {
+    MemberAccessor accessor = MemberAccessor.of(Bean.class.getMethod("getName"));
+    assertEquals("bean", accessor.invoke(new Bean(), null, "template", 1));
+    assertEquals("bean", accessor.invoke(new Bean(), new Object[0], "template", 1));
+  }
+
+  @Test
+  void testField() throws Exception {
+    MemberAccessor accessor = MemberAccessor.of(Bean.class.getField("count"));
+    assertEquals(3, accessor.invoke(new Bean(), null, "template", 1));
+  }
+
+  @Test
+  void testStaticMethodAndVoidMethod() throws Exception {
+    MemberAccessor staticAccessor = MemberAccessor.of(Bean.class.getMethod("twice", int.class));
+    assertEquals(4, staticAccessor.invoke(new Bean(), new Object[]{2L}, "template", 1));
+
+    MemberAccessor voidAccessor = MemberAccessor.of(Bean.class.getMethod("reset"));
+    assertNull(voidAccessor.invoke(new Bean(), null, "template", 1));
+  }
+
+  @Test
+  void testArgumentsAreConverted() throws Exception {
+    MemberAccessor accessor = MemberAccessor
+        .of(Bean.class.getMethod("concat", String.class, int.class, Object.class));
+    assertEquals("a1null",
+        accessor.invoke(new Bean(), new Object[]{"a", 1L, null}, "template", 1));
+    assertEquals("b25", accessor.invoke(new Bean(), new Object[]{"b", 2.9D, 5}, "template", 1));
+  }
+
+  @Test
+  void testInvalidArguments() throws Exception {
+    MemberAccessor accessor = MemberAccessor
+        .of(Bean.class.getMethod("concat", String.class, int.class, Object.class));
+    PebbleException exception = assertThrows(PebbleException.class,
+        () -> accessor.invoke(new Bean(), new Object[]{"a", null, null}, "template", 1));
+    assertTrue(exception.getCause() instanceof IllegalArgumentException);
+  }
+
+  @Test
+  void testExceptionOfMethodIsWrapped() throws Exception {
+    MemberAccessor accessor = MemberAccessor.of(Bean.class.getMethod("fail"));
+    PebbleException exception = assertThrows(PebbleException.class,
+        () -> accessor.invoke(new Bean(), null, "template", 1));
+    assertTrue(exception.getCause() instanceof InvocationTargetException);
+    assertTrue(exception.getCause().getCause() instanceof IllegalStateException);
+  }
+
+  public static class Bean {
+
+    public final int count = 3;
+
+    public String getName() {
+      return "bean";
+    }
+
+    public static int twice(int value) {
+      return value * 2;
+    }
+
+    public void reset() {
+    }
+
+    public String concat(String a, int b, Object c) {
+      return a + b + c;
+    }
+
+    public String fail() {
+      throw new IllegalStateException("failed");
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.pebbletemplates.pebble.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DependencyGraphTest {
+
+  @Test
+  void testGetDependentsIsTransitive() {
+    DependencyGraph<String> graph = new DependencyGraph<>();
+    graph.setDependencies("page", Arrays.asList("layout", "macros"));
+    graph.setDependencies("layout", Collections.singletonList("header"));
+    graph.setDependencies("header", Collections.singletonList("page"));
+
+    assertEquals(new HashSet<>(Arrays.asList("layout", "page")),
+        graph.getDependents("header"));
+    assertEquals(new HashSet<>(Arrays.asList("page", "header", "layout")),
+        graph.getDependents("macros"));
+    assertEquals(new HashSet<>(Arrays.asList("header", "layout")), graph.getDependents("page"));
+  }
+
+  @Test
+  void testGetDependenciesIsTransitive() {
+    DependencyGraph<String> graph = new DependencyGraph<>();
+    graph.setDependencies("page", Arrays.asList("layout", "macros"));
+    graph.setDependencies("layout", Collections.singletonList("header"));
+
+    assertEquals(new HashSet<>(Arrays.asList("layout", "macros", "header")),
+        graph.getDependencies("page"));
+    assertEquals(Collections.singleton("header"), graph.getDependencies("layout"));
+    assertEquals(Collections.emptySet(), graph.getDependencies("header"));
+  }
+
+  @Test
+  void testSetDependenciesReplacesEdges() {
+    DependencyGraph<String> graph = new DependencyGraph<>();
+    graph.setDependencies("page", Collections.singletonList("layout"));
+    graph.setDependencies("page", Collections.singletonList("other"));
+
+    assertEquals(Collections.emptySet(), graph.getDependents("layout"));
+    assertEquals(Collections.singleton("page"), graph.getDependents("other"));
+
+    graph.removeDependencies("page");
+    assertEquals(Collections.emptySet(), graph.getDependents("other"));
+  }
+
+}
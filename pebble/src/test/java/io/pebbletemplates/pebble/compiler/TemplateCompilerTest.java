@@ -0,0 +1,182 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package io.pebbletemplates.pebble.compiler;
+
+import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.compiler.TemplateCompiler.GeneratedClassLoader;
+import io.pebbletemplates.pebble.error.AttributeNotFoundException;
+import io.pebbletemplates.pebble.error.RootAttributeNotFoundException;
+import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.node.ArgumentsNode;
+import io.pebbletemplates.pebble.node.PrintNode;
+import io.pebbletemplates.pebble.node.RenderableNode;
+import io.pebbletemplates.pebble.node.TextNode;
+import io.pebbletemplates.pebble.node.expression.ContextVariableExpression;
+import io.pebbletemplates.pebble.node.expression.FilterExpression;
+import io.pebbletemplates.pebble.node.expression.FilterInvocationExpression;
+import io.pebbletemplates.pebble.node.expression.GetAttributeExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralBigDecimalExpression;
+import io.pebbletemplates.pebble.node.expression.LiteralStringExpression;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TemplateCompilerTest {
+
+  private static final String TEMPLATE = "{% macro greet(name) %}Hi {{ name }}!{% endmacro %}"
+      + "<ul>{% for item in items %}<li>{{ loop.index }}: {{ item }}</li>{% endfor %}</ul>"
+      + "{% if items is empty %}none{% else %}{{ greet(user) }}{% endif %}";
+
+  @Test
+  void testCompiledBodyRendersTextAndPrintTags() throws IOException {
+    List<RenderableNode> children = Arrays.asList(
+        new TextNode("Hello ", 1),
+        new TextNode("dear ", 1),
+        new PrintNode(new LiteralStringExpression("world", 1), 1),
+        new TextNode("!", 1),
+        new PrintNode(new LiteralBigDecimalExpression(new BigDecimal("1E+3"), 1), 1));
+
+    CompiledBody compiled = TemplateCompiler.compile(children,
+        new GeneratedClassLoader(this.getClass().getClassLoader()), null);
+    assertNotNull(compiled);
+
+    StringWriter writer = new StringWriter();
+    compiled.render(null, writer, null);
+    assertEquals("Hello dear world!1000", writer.toString());
+    // the printed literal is part of the static text
+    assertEquals(1, compiled.texts.length);
+  }
+
+  @Test
+  void testPrintChainsAreCompiled() {
+    FilterExpression upper = new FilterExpression();
+    upper.setLeft(new GetAttributeExpression(new ContextVariableExpression("user", 1),
+        new LiteralStringExpression("name", 1), "test", 1));
+    upper.setRight(new FilterInvocationExpression("upper",
+        new ArgumentsNode(null, null, 1), 1));
+    List<RenderableNode> children = Arrays.asList(
+        new PrintNode(upper, 1),
+        new PrintNode(new ContextVariableExpression("user", 1), 1));
+
+    CompiledBody compiled = TemplateCompiler.compile(children,
+        new GeneratedClassLoader(this.getClass().getClassLoader()),
+        new PebbleEngine.Builder().build().getExtensionRegistry());
+    // the generated class passed verification
+    assertNotNull(compiled);
+    assertEquals(4, compiled.expressions.length);
+  }
+
+  @Test
+  void testLargeBodiesAreNotCompiled() {
+    List<RenderableNode> children = new ArrayList<>();
+    for (int i = 0; i <= TemplateCompiler.MAX_CHILDREN; i++) {
+      children.add(new PrintNode(new LiteralStringExpression("x", 1), 1));
+    }
+    assertNull(TemplateCompiler.compile(children,
+        new GeneratedClassLoader(this.getClass().getClassLoader()), null));
+  }
+
+  @Test
+  void testCompiledTemplateRendersLikeInterpretedTemplate() throws IOException {
+    PebbleEngine interpreted = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleEngine compiled = new PebbleEngine.Builder().loader(new StringLoader())
+        .compilationThreshold(1).build();
+
+    Map<String, Object> context = new HashMap<>();
+    context.put("items", Arrays.asList("a", "<b>"));
+    context.put("user", "Bob");
+    String expected = this.render(interpreted.getTemplate(TEMPLATE), context);
+    assertEquals("<ul><li>0: a</li><li>1: &lt;b&gt;</li></ul>Hi Bob!", expected);
+
+    PebbleTemplate template = compiled.getTemplate(TEMPLATE);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expected, this.render(template, context));
+    }
+
+    context.put("items", Collections.emptyList());
+    assertEquals("<ul></ul>none", this.render(template, context));
+  }
+
+  @Test
+  void testCompiledPrintChainsRenderLikeInterpretedOnes() throws IOException {
+    String source = "{{ 'lit' }} {{ 4 }} {{ user.name }} {{ user.name | upper }}"
+        + " {{ user.address.city | lower | abbreviate(4) }} {{ user.nickname | default('none') }}"
+        + " {{ user.name | capitalize ~ '!' }} {{ (user.name) | escape(strategy='html') }}";
+    PebbleEngine interpreted = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleEngine compiled = new PebbleEngine.Builder().loader(new StringLoader())
+        .compilationThreshold(0).build();
+
+    Map<String, Object> address = new HashMap<>();
+    address.put("city", "<Paris>");
+    Map<String, Object> user = new HashMap<>();
+    user.put("name", "bob & co");
+    user.put("address", address);
+    Map<String, Object> context = new HashMap<>();
+    context.put("user", user);
+
+    String expected = this.render(interpreted.getTemplate(source), context);
+    assertEquals("lit 4 bob &amp; co BOB &amp; CO &lt;... none Bob &amp; co! bob &amp; co",
+        expected);
+    PebbleTemplate template = compiled.getTemplate(source);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expected, this.render(template, context));
+    }
+  }
+
+  @Test
+  void testCompiledPrintChainsFailLikeInterpretedOnes() {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).compilationThreshold(0).build();
+    PebbleTemplate template = pebble.getTemplate("{{ user.name | upper }}");
+
+    Map<String, Object> context = new HashMap<>();
+    RootAttributeNotFoundException missingVariable = assertThrows(
+        RootAttributeNotFoundException.class, () -> this.render(template, context));
+    assertEquals("user", missingVariable.getAttributeName());
+
+    context.put("user", new HashMap<>());
+    AttributeNotFoundException missingAttribute = assertThrows(AttributeNotFoundException.class,
+        () -> this.render(template, context));
+    assertEquals("name", missingAttribute.getAttributeName());
+  }
+
+  @Test
+  void testCompiledInheritance() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().strictVariables(false)
+        .compilationThreshold(0).build();
+    PebbleTemplate template = pebble.getTemplate("templates/template.child.peb");
+
+    String first = this.render(template, new HashMap<>());
+    assertEquals(first, this.render(template, new HashMap<>()));
+    assertEquals(true, first.contains("CHILD HEAD"));
+    assertEquals(false, first.contains("PARENT HEAD"));
+  }
+
+  private String render(PebbleTemplate template, Map<String, Object> context)
+      throws IOException {
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer, context);
+    return writer.toString();
+  }
+}
@@ -0,0 +1,113 @@
+package io.pebbletemplates.pebble.extension.writer;
+
+import io.pebbletemplates.pebble.PebbleEngine;
+import io.pebbletemplates.pebble.error.PebbleException;
+import io.pebbletemplates.pebble.loader.StringLoader;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+  @Test
+  void sharedPoolReusesBuffersOfTheRightSizeClass() {
+    SharedBufferPool pool = new SharedBufferPool();
+    char[] small = pool.acquire(10);
+    char[] medium = pool.acquire(300);
+    char[] large = pool.acquire(100000);
+    assertEquals(256, small.length);
+    assertEquals(512, medium.length);
+    assertEquals(100000, large.length);
+
+    pool.release(small);
+    pool.release(medium);
+    pool.release(large);
+    assertEquals(768, pool.getRetainedChars());
+
+    assertSame(medium, pool.acquire(400));
+    assertSame(small, pool.acquire(256));
+    assertNotSame(small, pool.acquire(256));
+    assertEquals(0, pool.getRetainedChars());
+  }
+
+  @Test
+  void sharedPoolCapsTheRetainedBuffers() {
+    SharedBufferPool pool = new SharedBufferPool(2, 1024);
+    pool.release(new char[256]);
+    pool.release(new char[256]);
+    pool.release(new char[256]);
+    assertEquals(512, pool.getRetainedChars());
+
+    pool.release(new char[512]);
+    pool.release(new char[512]);
+    assertEquals(1024, pool.getRetainedChars());
+  }
+
+  @Test
+  void threadLocalPoolReusesBuffers() {
+    ThreadLocalBufferPool pool = new ThreadLocalBufferPool(1);
+    char[] buffer = pool.acquire(1000);
+    assertEquals(1024, buffer.length);
+    pool.release(buffer);
+    pool.release(new char[1024]);
+    assertSame(buffer, pool.acquire(1024));
+    assertNotSame(buffer, pool.acquire(1024));
+  }
+
+  @Test
+  void engineRendersWithTheSelectedPool() throws IOException {
+    SharedBufferPool pool = new SharedBufferPool();
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .executorService(Executors.newCachedThreadPool()).bufferPool(pool).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro repeat(n) %}{% for i in range(1, n) %}{{ i }},{% endfor %}{% endmacro %}"
+            + "{{ repeat(1000) }}|{% parallel %}{{ repeat(3) }}{% endparallel %}");
+    StringBuilder numbers = new StringBuilder();
+    for (int i = 1; i <= 1000; i++) {
+      numbers.append(i).append(',');
+    }
+
+    for (int i = 0; i < 2; i++) {
+      StringWriter writer = new StringWriter();
+      template.evaluate(writer);
+      assertEquals(numbers + "|1,2,3,", writer.toString());
+    }
+    assertTrue(pool.getRetainedChars() > 0);
+  }
+
+  @Test
+  void macroGivesItsBuffersBackWhenItFails() {
+    AtomicInteger acquired = new AtomicInteger();
+    AtomicInteger released = new AtomicInteger();
+    BufferPool pool = new BufferPool() {
+      @Override
+      public char[] acquire(int minimumLength) {
+        acquired.incrementAndGet();
+        return new char[minimumLength];
+      }
+
+      @Override
+      public void release(char[] buffer) {
+        released.incrementAndGet();
+      }
+    };
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).bufferPool(pool).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro fail() %}some output {{ missing }}{% endmacro %}{{ fail() }}");
+
+    assertThrows(PebbleException.class, () -> template.evaluate(new StringWriter()));
+    assertEquals(1, acquired.get());
+    assertEquals(1, released.get());
+  }
+}
@@ -1,5 +1,6 @@
 package io.pebbletemplates.pebble.lexer;
 
+import io.pebbletemplates.pebble.error.ParserException;
 import io.pebbletemplates.pebble.extension.ExtensionRegistry;
 import io.pebbletemplates.pebble.extension.core.CoreExtension;
 import io.pebbletemplates.pebble.loader.Loader;
@@ -11,8 +12,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class LexerImplTest {
 
@@ -461,4 +471,88 @@ class LexerImplTest {
 	assertThat(tokenStream.peek(i++).getValue()).isNull(); 
   }
   
+  /**
+   * Test that the operators are matched by the longest symbol, unless it is followed by a letter.
+   */
+  @Test
+  void testLongestOperatorIsMatched() {
+    TokenStream tokenStream = this.lexer
+        .tokenize(new StringReader("{{ a is not null or not organization }}"), this.TEMPLATE_NAME);
+
+    List<String> values = new ArrayList<>();
+    for (Token token : tokenStream.getTokens()) {
+      values.add(token.getType() + ":" + token.getValue());
+    }
+    assertThat(values).isEqualTo(Arrays.asList("PRINT_START:null", "NAME:a", "OPERATOR:is not",
+        "NAME:null", "OPERATOR:or", "OPERATOR:not", "NAME:organization", "PRINT_END:}}",
+        "EOF:null"));
+  }
+
+  /**
+   * Test that a string which ends with a backslash is reported as unclosed.
+   */
+  @Test
+  void testUnclosedStringEndingWithBackslash() {
+    ParserException exception = assertThrows(ParserException.class, () -> this.lexer
+        .tokenize(new StringReader("{{ \"abc\\"), this.TEMPLATE_NAME));
+    assertThat(exception.getMessage()).contains("Unclosed \"\"\"");
+  }
+
+  /**
+   * Test that a single lexer can tokenize templates from several threads at once.
+   */
+  @Test
+  void testLexerIsThreadSafe() throws Exception {
+    String source = "{% for item in items %}\n  {{ item.name | upper }} {# comment #}\n"
+        + "{% if item.count > 1 %}{{ \"#{item.count} items\" }}{% endif %}{% endfor %}";
+    String expected = this.lexer.tokenize(new StringReader(source), this.TEMPLATE_NAME)
+        .toString();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        results.add(executor.submit(
+            () -> this.lexer.tokenize(new StringReader(source), this.TEMPLATE_NAME).toString()));
+      }
+      for (Future<String> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Test that the estimated length of a template only affects how it is read.
+   */
+  @Test
+  void testTokenizeWithExpectedLength() {
+    String source = "{% for item in items %}{{ item.name }}\n{% endfor %} trailing text";
+    String expected = this.lexer.tokenize(new StringReader(source), this.TEMPLATE_NAME)
+        .toString();
+
+    for (int expectedLength : new int[]{-1, 0, 1, source.length(), source.length() * 2}) {
+      assertThat(this.lexer.tokenize(new StringReader(source), this.TEMPLATE_NAME,
+          expectedLength).toString()).isEqualTo(expected);
+    }
+  }
+
+  /**
+   * Test that text tokens are slices of the source and names are interned.
+   */
+  @Test
+  void testTokensReferenceTheSource() {
+    TokenStream tokenStream = this.lexer.tokenize(
+        new StringReader("a  {{- name -}}  b {{ name }}"), this.TEMPLATE_NAME);
+
+    Token first = tokenStream.peek(0);
+    Token second = tokenStream.peek(4);
+    assertThat(first.getValue()).isEqualTo("a");
+    assertThat(second.getValue()).isEqualTo("b ");
+    assertSame(first.getValueChars(), second.getValueChars());
+    assertSame("name", tokenStream.peek(2).getValue());
+    assertSame("name", tokenStream.peek(6).getValue());
+  }
+
 }
@@ -0,0 +1,104 @@
+package io.pebbletemplates.pebble.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ChannelWriterTest {
+
+  @Test
+  void dynamicOutputBetweenStaticTextsSharesOneBuffer() throws IOException {
+    RecordingChannel channel = new RecordingChannel();
+    ChannelWriter writer = new ChannelWriter(channel, StandardCharsets.UTF_8);
+    char[] text = "<p>static</p>".toCharArray();
+    EncodingWriter.EncodedText encoded = null;
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      encoded = writer.writeText(text, 0, text.length, encoded);
+      writer.write("x" + i);
+      expected.append(text).append('x').append(i);
+    }
+    writer.flush();
+
+    assertEquals(expected.toString(),
+        new String(channel.out.toByteArray(), StandardCharsets.UTF_8));
+    // about 4 KB of dynamic output, written in more than one go as the segments pile up
+    assertEquals(1, channel.dynamicBuffers.size());
+  }
+
+  @Test
+  void flushedBufferIsReused() throws IOException {
+    RecordingChannel channel = new RecordingChannel();
+    ChannelWriter writer = new ChannelWriter(channel, StandardCharsets.UTF_8);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      StringBuilder chunk = new StringBuilder();
+      for (int j = 0; j < 1000; j++) {
+        chunk.append((char) ('a' + (i + j) % 26));
+      }
+      writer.write(chunk.toString());
+      writer.flush();
+      expected.append(chunk);
+    }
+
+    assertEquals(expected.toString(),
+        new String(channel.out.toByteArray(), StandardCharsets.UTF_8));
+    assertEquals(1, channel.dynamicBuffers.size());
+  }
+
+  /**
+   * A channel keeping the written bytes and the arrays of the buffers of the dynamic output, the
+   * static text being written from read-only buffers.
+   */
+  private static class RecordingChannel implements GatheringByteChannel {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private final Set<byte[]> dynamicBuffers =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      long written = 0;
+      for (int i = offset; i < offset + length; i++) {
+        written += this.write(srcs[i]);
+      }
+      return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return this.write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      if (src.hasArray()) {
+        this.dynamicBuffers.add(src.array());
+      }
+      int length = src.remaining();
+      byte[] bytes = new byte[length];
+      src.get(bytes);
+      this.out.write(bytes, 0, length);
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
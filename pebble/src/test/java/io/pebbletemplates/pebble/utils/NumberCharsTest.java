@@ -0,0 +1,84 @@
+package io.pebbletemplates.pebble.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NumberCharsTest {
+
+  @Test
+  void formatsLongsLikeTheJdk() {
+    long[] values = {0, 1, -1, 9, 10, -10, 99, 100, 123456789, -987654321, Integer.MAX_VALUE,
+        Integer.MIN_VALUE, 999999999999999999L, 1000000000000000000L, Long.MAX_VALUE,
+        Long.MIN_VALUE};
+    for (long value : values) {
+      assertEquals(String.valueOf(value), format(value));
+    }
+  }
+
+  @Test
+  void formatsIntegralDoublesLikeTheJdk() {
+    double[] values = {0.0, 1.0, -1.0, 42.0, 9999999.0, -9999999.0};
+    for (double value : values) {
+      char[] buffer = new char[NumberChars.MAX_LENGTH];
+      assertEquals(String.valueOf(value),
+          new String(buffer, 0, NumberChars.getChars(value, buffer, 0)));
+    }
+    double[] others = {-0.0, 0.5, 1e7, -1e7, 1e300, Double.NaN, Double.POSITIVE_INFINITY};
+    for (double value : others) {
+      assertEquals(-1, NumberChars.getChars(value, new char[NumberChars.MAX_LENGTH], 0));
+    }
+  }
+
+  @Test
+  void formatsBigDecimalsLikeToPlainString() {
+    String[] values = {"0", "0.00", "-0.05", "1.5", "-123.456", "0.00000000000000000001",
+        "123456789012345678", "12345678901234567.8", "-0.00000000000000000001"};
+    for (String value : values) {
+      BigDecimal decimal = new BigDecimal(value);
+      char[] buffer = new char[NumberChars.MAX_LENGTH];
+      int end = NumberChars.getChars(decimal, buffer, 0);
+      assertEquals(decimal.toPlainString(), new String(buffer, 0, end));
+    }
+    assertEquals(-1, NumberChars.getChars(new BigDecimal("1E+3"), new char[40], 0));
+    assertEquals(-1, NumberChars.getChars(new BigDecimal("1234567890123456789"), new char[40], 0));
+  }
+
+  @Test
+  void writesNumbersToAnyWriter() throws Exception {
+    StringWriter writer = new StringWriter();
+    NumberChars.write(-42, writer);
+    writer.write(' ');
+    NumberChars.write(Long.MIN_VALUE, writer);
+    writer.write(' ');
+    NumberChars.write(Long.MAX_VALUE, writer);
+    writer.write(' ');
+    NumberChars.write(2.5, writer);
+    writer.write(' ');
+    NumberChars.write(3.0f, writer);
+    writer.write(' ');
+    NumberChars.write(-0.0, writer);
+    writer.write(' ');
+    NumberChars.write(new BigDecimal("1E+3"), writer);
+    assertEquals("-42 " + Long.MIN_VALUE + " " + Long.MAX_VALUE + " 2.5 3.0 -0.0 1000",
+        writer.toString());
+
+    String[] decimals = {"0", "0.00", "-0.05", "1.5", "-123.456", "0.00000000000000000001",
+        "123456789012345678", "12345678901234567.8", "-100.001"};
+    for (String value : decimals) {
+      writer = new StringWriter();
+      NumberChars.write(new BigDecimal(value), writer);
+      assertEquals(new BigDecimal(value).toPlainString(), writer.toString());
+    }
+  }
+
+  private static String format(long value) {
+    char[] buffer = new char[NumberChars.MAX_LENGTH + 1];
+    int end = NumberChars.getChars(value, buffer, 1);
+    assertEquals(NumberChars.length(value), end - 1);
+    return new String(buffer, 1, end - 1);
+  }
+}